@@ -0,0 +1,116 @@
+package com.creditagricole.maestror.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Fichiers d'incidents générés pour les benchmarks, au format attendu par buildIncidentFromRow.
+ * Les fichiers sont générés une fois par taille dans target/benchmark-data (-Dbenchmark.data-dir) et réutilisés.
+ */
+final class BenchmarkFiles {
+
+    static final String[] INCIDENT_HEADER = {"incident_code", "incident_title", "incident_description", "incident_date",
+            "severity", "status", "entity_code", "business_unit", "financial_impact", "currency", "detected_by"};
+
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+    private static final String[] STATUSES = {"OPEN", "IN_PROGRESS", "CLOSED"};
+    private static final LocalDate FIRST_DATE = LocalDate.of(2020, 1, 1);
+
+    private BenchmarkFiles() {
+    }
+
+    static Path dataDir() throws IOException {
+        return Files.createDirectories(Path.of(System.getProperty("benchmark.data-dir", "target/benchmark-data")));
+    }
+
+    /**
+     * Ligne d'incident déterministe (même graine, mêmes lignes)
+     */
+    static String[] incidentRow(int index, Random random) {
+        return new String[]{
+                "INC-" + index,
+                "Incident " + index,
+                "Description de l'incident " + index + ", \"défaillance\" du processus de contrôle",
+                FIRST_DATE.plusDays(random.nextInt(2000)).toString(),
+                SEVERITIES[random.nextInt(SEVERITIES.length)],
+                STATUSES[random.nextInt(STATUSES.length)],
+                "ENT" + random.nextInt(50),
+                "BU" + random.nextInt(10),
+                String.valueOf(random.nextInt(1_000_000) / 100.0),
+                "EUR",
+                "user" + random.nextInt(200)
+        };
+    }
+
+    static Path incidentsCsv(int rows) throws IOException {
+        Path file = dataDir().resolve("incidents-" + rows + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path tmp = Files.createTempFile(dataDir(), "incidents-", ".csv.tmp");
+        Random random = new Random(42);
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writeCsvLine(out, INCIDENT_HEADER);
+            for (int i = 0; i < rows; i++) {
+                writeCsvLine(out, incidentRow(i, random));
+            }
+        }
+        return Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static Path incidentsXlsx(int rows) throws IOException {
+        Path file = dataDir().resolve("incidents-" + rows + ".xlsx");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path tmp = Files.createTempFile(dataDir(), "incidents-", ".xlsx.tmp");
+        Random random = new Random(42);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            Sheet sheet = workbook.createSheet("Incidents");
+            writeXlsxRow(sheet.createRow(0), INCIDENT_HEADER);
+            for (int i = 0; i < rows; i++) {
+                writeXlsxRow(sheet.createRow(i + 1), incidentRow(i, random));
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeCsvLine(Writer out, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String value = values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeXlsxRow(Row row, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.creditagricole.maestror.benchmark;
+
+import com.creditagricole.maestror.ingestion.reader.CsvEngine;
+import com.creditagricole.maestror.ingestion.reader.CsvRowSource;
+import com.creditagricole.maestror.ingestion.reader.MappedCsvRowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture complète d'un fichier CSV d'incidents (parseCSV) par chacun des moteurs de lecture,
+ * puis lecture avec conversion des colonnes typées (date, impact financier) depuis les chaînes de chaque ligne
+ * ou depuis sa {@link RowView} ; l'écart d'allocation se mesure avec -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"OPENCSV", "MAPPED"})
+    private CsvEngine engine;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        file = BenchmarkFiles.incidentsCsv(rows);
+    }
+
+    @Benchmark
+    public long parseCsv(Blackhole blackhole) throws IOException {
+        try (RowSource source = open()) {
+            String[] row;
+            while ((row = source.nextRow()) != null) {
+                blackhole.consume(row);
+            }
+            return source.getRowNumber();
+        }
+    }
+
+    @Benchmark
+    public long typedColumnsFromStrings(Blackhole blackhole) throws IOException {
+        try (RowSource source = open()) {
+            source.nextRow();
+            String[] row;
+            while ((row = source.nextRow()) != null) {
+                blackhole.consume(LocalDate.parse(row[3]));
+                blackhole.consume(new BigDecimal(row[8]));
+            }
+            return source.getRowNumber();
+        }
+    }
+
+    @Benchmark
+    public long typedColumnsFromView(Blackhole blackhole) throws IOException {
+        try (RowSource source = open()) {
+            source.nextView();
+            RowView row;
+            while ((row = source.nextView()) != null) {
+                blackhole.consume(row.parseIsoDate(3));
+                blackhole.consume(row.parseDecimal(8));
+            }
+            return source.getRowNumber();
+        }
+    }
+
+    private RowSource open() throws IOException {
+        return engine == CsvEngine.MAPPED
+                ? new MappedCsvRowSource(file)
+                : new CsvRowSource(Files.newInputStream(file));
+    }
+}
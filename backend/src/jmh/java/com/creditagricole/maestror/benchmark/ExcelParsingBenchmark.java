@@ -0,0 +1,70 @@
+package com.creditagricole.maestror.benchmark;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.pipeline.IngestionPipeline;
+import com.creditagricole.maestror.ingestion.pipeline.PipelineMetrics;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.scheduling.IngestionThrottle;
+import com.creditagricole.maestror.storage.LocalContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture complète d'un classeur d'incidents (parseExcel) : lecture en flux (XSSFReader + SAX)
+ * ou ancien mode DOM (XSSFWorkbook, getCellValueAsString sur chaque cellule)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExcelParsingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean streaming;
+
+    private RowSourceFactory rowSourceFactory;
+    private FileStorage fileStorage;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        LocalContentStore contentStore = new LocalContentStore(BenchmarkFiles.dataDir().resolve("content").toString());
+        String contentRef;
+        try (InputStream content = Files.newInputStream(BenchmarkFiles.incidentsXlsx(rows))) {
+            contentRef = contentStore.store(content).contentRef();
+        }
+
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        IngestionPipeline pipeline = new IngestionPipeline(metrics, new IngestionThrottle(0, Set.of(), metrics));
+        rowSourceFactory = new RowSourceFactory(contentStore, pipeline);
+        ReflectionTestUtils.setField(rowSourceFactory, "excelStreaming", streaming);
+        ReflectionTestUtils.setField(rowSourceFactory, "sharedStringsDiskThreshold", DataSize.ofMegabytes(16));
+        ReflectionTestUtils.setField(rowSourceFactory, "sharedStringsCacheSize", 10_000);
+        fileStorage = FileStorage.builder().fileType("EXCEL").category("INCIDENT").contentRef(contentRef).build();
+    }
+
+    @Benchmark
+    public long parseExcel(Blackhole blackhole) throws IOException {
+        try (RowSource source = rowSourceFactory.open(fileStorage)) {
+            String[] row;
+            while ((row = source.nextRow()) != null) {
+                blackhole.consume(row);
+            }
+            return source.getRowNumber();
+        }
+    }
+}
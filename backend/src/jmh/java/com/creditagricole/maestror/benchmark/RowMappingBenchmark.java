@@ -0,0 +1,55 @@
+package com.creditagricole.maestror.benchmark;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.ingestion.batch.FileRowMappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion d'une ligne en entité (buildIncidentFromRow, buildControlFromRow), mesurée ligne par ligne
+ * sur un échantillon de lignes générées parcouru en boucle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final int SAMPLE_SIZE = 10_000;
+
+    private final FileStorage fileStorage = FileStorage.builder().id(1L).category("INCIDENT").build();
+    private String[][] incidentRows;
+    private String[][] controlRows;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        incidentRows = new String[SAMPLE_SIZE][];
+        controlRows = new String[SAMPLE_SIZE][];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            incidentRows[i] = BenchmarkFiles.incidentRow(i, random);
+            controlRows[i] = new String[]{"CTRL-" + i, "Contrôle " + i, "Description du contrôle " + i,
+                    "PREVENTIVE", "MONTHLY", "ENT" + random.nextInt(50), "user" + random.nextInt(200),
+                    "ACTIVE", "EFFECTIVE"};
+        }
+    }
+
+    @Benchmark
+    public Incident buildIncidentFromRow() {
+        index = (index + 1) % SAMPLE_SIZE;
+        return FileRowMappers.buildIncidentFromRow(incidentRows[index], fileStorage);
+    }
+
+    @Benchmark
+    public Control buildControlFromRow() {
+        index = (index + 1) % SAMPLE_SIZE;
+        return FileRowMappers.buildControlFromRow(controlRows[index], fileStorage);
+    }
+}
@@ -0,0 +1,42 @@
+package com.creditagricole.maestror.benchmark;
+
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération du DDL d'une table STAGING (SchemaColumn.toDDL) sur des colonnes de chaque type de MODELE_STAGING
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaDdlBenchmark {
+
+    private SchemaColumn[] columns;
+
+    @Setup(Level.Trial)
+    public void columns() {
+        columns = new SchemaColumn[]{
+                SchemaColumn.builder().nomChamp("ID").typeChamps("ID").clePrimaire(true).build(),
+                SchemaColumn.builder().nomChamp("CODE_RISQUE").typeChamps("VARCHAR2").tailleChamps("50").build(),
+                SchemaColumn.builder().nomChamp("LIBELLE").typeChamps("VARCHAR").tailleChamps("255").build(),
+                SchemaColumn.builder().nomChamp("MONTANT").typeChamps("DECIMAL").tailleChamps("15,2").build(),
+                SchemaColumn.builder().nomChamp("DATE_SURVENANCE").typeChamps("DATE").build(),
+                SchemaColumn.builder().nomChamp("ACTIF").typeChamps("BOOLEAN").build(),
+                SchemaColumn.builder().nomChamp("COMMENTAIRE").typeChamps("TEXT").build(),
+                SchemaColumn.builder().nomChamp("ID_ENTITE").typeChamps("BIGINT").cleEtrangere("ENTITE.ID").build()
+        };
+    }
+
+    @Benchmark
+    public void toDDL(Blackhole blackhole) {
+        for (SchemaColumn column : columns) {
+            blackhole.consume(column.toDDL());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.creditagricole.maestror.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Exécuteurs dédiés au traitement des fichiers uploadés.
+ * Le nombre de traitements simultanés et la file d'attente sont bornés : au-delà,
+ * les nouveaux uploads sont refusés plutôt que d'accumuler des fichiers en mémoire.
+ * Les fichiers en attente sont confiés à l'exécuteur d'ingestion par le
+ * {@link com.creditagricole.maestror.ingestion.scheduling.FairShareScheduler}.
+ */
+@Configuration
+@Slf4j
+public class IngestionConfig {
+
+    @Bean(name = "ingestionTaskExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor ingestionTaskExecutor(
+            @Value("${maestror.ingestion.executor.concurrency:2}") int concurrency,
+            @Value("${maestror.ingestion.executor.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingestion-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Threads des partitions d'un fichier, partagés par tous les fichiers en cours de traitement.
+     * Par défaut un thread par cœur. Chaque partition active occupe une connexion du pool : le nombre de threads
+     * est plafonné à la taille du pool Hikari moins les connexions réservées à l'API et au JobRepository,
+     * faute de quoi les partitions attendraient une connexion jusqu'au timeout.
+     */
+    @Bean(name = "ingestionPartitionExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor ingestionPartitionExecutor(
+            @Value("${maestror.ingestion.partition.grid-size:0}") int gridSize,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            @Value("${maestror.ingestion.partition.reserved-connections:4}") int reservedConnections) {
+        int threads = partitionThreads(gridSize, Runtime.getRuntime().availableProcessors(),
+                connectionPoolSize, reservedConnections);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("ingestion-partition-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Nombre de threads de partition : la taille demandée (0 = nombre de cœurs), au plus les connexions disponibles
+     */
+    static int partitionThreads(int gridSize, int processors, int connectionPoolSize, int reservedConnections) {
+        int requested = gridSize > 0 ? gridSize : processors;
+        int available = Math.max(1, connectionPoolSize - reservedConnections);
+        if (requested > available) {
+            log.warn("Partition grid size {} capped to {} ({} pooled connections, {} reserved)",
+                    requested, available, connectionPoolSize, reservedConnections);
+            return available;
+        }
+        return requested;
+    }
+
+    /**
+     * Threads des feuilles d'un classeur WORKBOOK : chaque feuille est un traitement à part entière
+     * (job, partitions et connexions propres)
+     */
+    @Bean(name = "ingestionSheetExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor ingestionSheetExecutor(
+            @Value("${maestror.ingestion.workbook.concurrency:4}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("ingestion-sheet-");
+        executor.initialize();
+        return executor;
+    }
+}
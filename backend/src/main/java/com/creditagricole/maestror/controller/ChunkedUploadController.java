@@ -0,0 +1,139 @@
+package com.creditagricole.maestror.controller;
+
+import com.creditagricole.maestror.dto.ChunkedUploadResponse;
+import com.creditagricole.maestror.dto.FileUploadResponse;
+import com.creditagricole.maestror.service.ChunkedUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Chunked Upload", description = "API for resumable uploads of large files")
+@CrossOrigin(origins = "*")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    @Operation(summary = "Start a chunked upload", description = "Open an upload session; chunks are then sent with PUT in any order")
+    public ResponseEntity<ChunkedUploadResponse> initiate(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("category") String category,
+            @RequestParam(value = "uploadedBy", defaultValue = "system") String uploadedBy,
+            @RequestParam(value = "targetTable", required = false) String targetTable,
+            @RequestParam(value = "loadMode", defaultValue = "INSERT") String loadMode,
+            @RequestParam(value = "totalSize", required = false) Long totalSize) {
+        try {
+            ChunkedUploadResponse response = chunkedUploadService.initiate(fileName, category, uploadedBy, targetTable,
+                    loadMode, totalSize);
+            return ResponseEntity.created(URI.create("/api/files/uploads/" + response.getUploadId())).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(errorResponse("Validation error: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to start chunked upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse("Upload failed: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{uploadId}/chunks/{index}")
+    @Operation(summary = "Upload a chunk", description = "Raw chunk bytes as request body; sending the same index again replaces it")
+    public ResponseEntity<ChunkedUploadResponse> uploadChunk(@PathVariable String uploadId,
+                                                             @PathVariable int index,
+                                                             HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, index, request.getInputStream()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(errorResponse("Validation error: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to store chunk {} of upload {}", index, uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse("Upload failed: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    @Operation(summary = "Get upload session status", description = "List the chunks already received, to resume an interrupted upload")
+    public ResponseEntity<ChunkedUploadResponse> getStatus(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @Operation(summary = "Complete a chunked upload", description = "Assemble the chunks and queue the file for processing like a direct upload")
+    public ResponseEntity<FileUploadResponse> complete(
+            @PathVariable String uploadId,
+            @RequestParam("chunkCount") int chunkCount,
+            @RequestParam(value = "reprocess", defaultValue = "false") boolean reprocess) {
+        try {
+            FileUploadResponse response = chunkedUploadService.complete(uploadId, chunkCount, reprocess);
+            log.info("Chunked upload {} completed - FileId: {}, Status: {}", uploadId, response.getFileId(), response.getStatus());
+            if (response.isDuplicate()) {
+                return ResponseEntity.ok(response);
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/files/" + response.getFileId() + "/status"))
+                    .body(response);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    FileUploadResponse.builder()
+                            .message("Validation error: " + e.getMessage())
+                            .build()
+            );
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    FileUploadResponse.builder()
+                            .message(e.getMessage())
+                            .build()
+            );
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    FileUploadResponse.builder()
+                            .message("Ingestion queue is full, please retry later")
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Failed to complete chunked upload {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    FileUploadResponse.builder()
+                            .message("Upload failed: " + e.getMessage())
+                            .build()
+            );
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @Operation(summary = "Abort a chunked upload", description = "Delete the upload session and its chunks")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId) {
+        try {
+            chunkedUploadService.abort(uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Failed to abort chunked upload {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private static ChunkedUploadResponse errorResponse(String message) {
+        return ChunkedUploadResponse.builder().message(message).build();
+    }
+}
@@ -1,15 +1,30 @@
 package com.creditagricole.maestror.controller;
 
 import com.creditagricole.maestror.dto.FileUploadResponse;
+import com.creditagricole.maestror.entity.FileStorage;
 import com.creditagricole.maestror.service.FileUploadService;
+import com.creditagricole.maestror.service.IngestionProgressService;
+import com.creditagricole.maestror.service.RejectedRowService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/files")
@@ -20,21 +35,40 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileUploadController {
 
     private final FileUploadService fileUploadService;
+    private final IngestionProgressService ingestionProgressService;
+    private final RejectedRowService rejectedRowService;
 
     @PostMapping("/upload")
-    @Operation(summary = "Upload a file", description = "Upload CSV or Excel file for processing")
+    @Operation(summary = "Upload a file", description = "Upload CSV or Excel file and queue it for processing; "
+            + "poll the status endpoint to follow the job. An identical file already uploaded for the same target "
+            + "returns the existing result unless reprocess is set. loadMode=UPSERT updates existing rows by business code "
+            + "(REFERENTIAL, INCIDENT, CONTROL); loadMode=DELTA applies a full REFERENTIAL file as a diff, writing only "
+            + "new or changed risks and deactivating the missing ones. .gz files are decompressed on reception; a .zip archive queues one file "
+            + "per CSV, Excel or TXT entry, listed in entries. category=WORKBOOK loads each sheet of an Excel workbook "
+            + "into the category matching its name, referential sheets first")
     public ResponseEntity<FileUploadResponse> uploadFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("category") String category,
-            @RequestParam(value = "uploadedBy", defaultValue = "system") String uploadedBy) {
+            @RequestParam(value = "uploadedBy", defaultValue = "system") String uploadedBy,
+            @RequestParam(value = "targetTable", required = false) String targetTable,
+            @RequestParam(value = "loadMode", defaultValue = "INSERT") String loadMode,
+            @RequestParam(value = "reprocess", defaultValue = "false") boolean reprocess) {
         
         log.info("Received upload request - File: {}, Category: {}, UploadedBy: {}", 
                 file.getOriginalFilename(), category, uploadedBy);
         
         try {
-            FileUploadResponse response = fileUploadService.uploadFile(file, category, uploadedBy);
+            FileUploadResponse response = fileUploadService.uploadFile(file, category, uploadedBy, targetTable, loadMode, reprocess);
             log.info("Upload successful - FileId: {}, Status: {}", response.getFileId(), response.getStatus());
-            return ResponseEntity.ok(response);
+            if (response.isDuplicate()) {
+                return ResponseEntity.ok(response);
+            }
+            if (response.getEntries() != null) {
+                return ResponseEntity.accepted().body(response);
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/files/" + response.getFileId() + "/status"))
+                    .body(response);
         } catch (IllegalArgumentException e) {
             log.error("Validation error during upload: {}", e.getMessage());
             return ResponseEntity.badRequest().body(
@@ -42,6 +76,13 @@ public class FileUploadController {
                             .message("Validation error: " + e.getMessage())
                             .build()
             );
+        } catch (TaskRejectedException e) {
+            log.warn("Upload rejected, ingestion queue is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    FileUploadResponse.builder()
+                            .message("Ingestion queue is full, please retry later")
+                            .build()
+            );
         } catch (Exception e) {
             log.error("Upload failed with exception", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
@@ -52,8 +93,38 @@ public class FileUploadController {
         }
     }
 
+    @GetMapping
+    @Operation(summary = "File history", description = "Paginated history of uploaded files, most recent first")
+    public ResponseEntity<Page<FileUploadResponse>> getFileHistory(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "uploadedBy", required = false) String uploadedBy,
+            @PageableDefault(size = 20, sort = "uploadedAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(fileUploadService.getFileHistory(category, status, uploadedBy, pageable));
+    }
+
+    @PostMapping("/{fileId}/retry")
+    @Operation(summary = "Retry a failed file", description = "Resume processing of a failed file after its last committed chunk")
+    public ResponseEntity<FileUploadResponse> retryFile(@PathVariable Long fileId) {
+        try {
+            return ResponseEntity.accepted().body(fileUploadService.retryFile(fileId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    FileUploadResponse.builder()
+                            .message("Validation error: " + e.getMessage())
+                            .build()
+            );
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    FileUploadResponse.builder()
+                            .message("Ingestion queue is full, please retry later")
+                            .build()
+            );
+        }
+    }
+
     @GetMapping("/{fileId}/status")
-    @Operation(summary = "Get file processing status", description = "Retrieve the processing status of an uploaded file")
+    @Operation(summary = "Get file processing status", description = "Retrieve the processing status of an uploaded file (QUEUED, PROCESSING, COMPLETED, FAILED)")
     public ResponseEntity<FileUploadResponse> getFileStatus(@PathVariable Long fileId) {
         try {
             FileUploadResponse response = fileUploadService.getFileStatus(fileId);
@@ -62,4 +133,31 @@ public class FileUploadController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @GetMapping(value = "/{fileId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream file processing progress", description = "Server-Sent Events pushing processed rows, "
+            + "rows per second, percent done and ETA until the file is COMPLETED or FAILED")
+    public ResponseEntity<SseEmitter> streamProgress(@PathVariable Long fileId) {
+        try {
+            return ResponseEntity.ok(ingestionProgressService.subscribe(fileId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping(value = "/{fileId}/rejected-rows", produces = "text/csv")
+    @Operation(summary = "Download rejected rows", description = "CSV of the rows rejected during processing, "
+            + "with line number, reason and original values, ready to be corrected and uploaded again")
+    public ResponseEntity<StreamingResponseBody> downloadRejectedRows(@PathVariable Long fileId) {
+        FileStorage fileStorage;
+        try {
+            fileStorage = rejectedRowService.getFile(fileId);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+        String fileName = "rejected-" + fileStorage.getFileName().replaceAll("\\.[^.]*$", "") + ".csv";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(out -> rejectedRowService.writeCsv(fileStorage, out));
+    }
 }
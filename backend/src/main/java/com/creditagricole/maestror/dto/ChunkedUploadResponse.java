@@ -0,0 +1,23 @@
+package com.creditagricole.maestror.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadResponse {
+
+    private String uploadId;
+    private String fileName;
+    private String category;
+    private Long totalSize;
+    private List<Integer> receivedChunks;
+    private Long receivedBytes;
+    private String message;
+}
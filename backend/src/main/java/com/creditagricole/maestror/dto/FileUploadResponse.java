@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -17,11 +18,24 @@ public class FileUploadResponse {
     private String fileName;
     private String fileType;
     private String category;
+    private Long parentFileId;
+    private String sheetName;
     private Long fileSize;
     private String status;
+    private String loadMode;
     private Integer totalRecords;
     private Integer processedRecords;
     private Integer failedRecords;
+    private Integer insertedRecords;
+    private Integer updatedRecords;
+    private Integer unchangedRecords;
+    private Integer deactivatedRecords;
+    private String uploadedBy;
+    private String errorMessage;
     private String message;
+    private boolean duplicate;
+    // Fichiers extraits d'une archive .zip, chacun avec son propre traitement
+    private List<FileUploadResponse> entries;
     private LocalDateTime uploadedAt;
+    private LocalDateTime processedAt;
 }
@@ -0,0 +1,23 @@
+package com.creditagricole.maestror.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionProgressResponse {
+
+    private Long fileId;
+    private String status;
+    private Long processedRecords;
+    private Long failedRecords;
+    private Long estimatedTotalRecords;
+    private Double percentComplete;
+    private Double rowsPerSecond;
+    private Long etaSeconds;
+    private String errorMessage;
+}
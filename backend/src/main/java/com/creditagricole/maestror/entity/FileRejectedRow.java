@@ -0,0 +1,45 @@
+package com.creditagricole.maestror.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'un fichier écartée lors de l'ingestion, conservée pour correction
+ */
+@Entity
+@Table(name = "file_rejected_row", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_file_rejected_row", columnNames = {"file_storage_id", "row_number"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileRejectedRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_storage_id", nullable = false)
+    private FileStorage fileStorage;
+
+    @Column
+    private Long rowNumber; // Numéro (base 0) dans le fichier source, null si la ligne n'a pas pu être lue
+
+    @Column(columnDefinition = "TEXT")
+    private String rawValues; // Valeurs de la ligne, encodées en CSV
+
+    @Column(length = 2000)
+    private String reason;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime rejectedAt;
+}
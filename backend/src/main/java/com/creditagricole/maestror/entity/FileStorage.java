@@ -11,7 +11,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "file_storage")
+@Table(name = "file_storage", indexes = {
+        @Index(name = "idx_file_storage_content_hash", columnList = "contentHash, category"),
+        @Index(name = "idx_file_storage_parent", columnList = "parentFileId")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,20 +32,34 @@ public class FileStorage {
     private String fileType; // CSV, EXCEL
 
     @Column(nullable = false)
-    private String category; // REFERENTIAL, INCIDENT, CONTROL
+    private String category; // REFERENTIAL, INCIDENT, CONTROL, TEST, STAGING, WORKBOOK
+
+    @Column
+    private Long parentFileId; // Classeur WORKBOOK dont ce fichier est une feuille
+
+    @Column
+    private String sheetName; // Feuille Excel à lire (null = première feuille)
+
+    @Column
+    private String targetTable; // Table MODELE_STAGING cible (catégorie STAGING)
 
     @Column(nullable = false)
     private Long fileSize;
 
-    @Lob
-    @Column(nullable = false)
-    private byte[] fileContent;
+    @Column(nullable = false, length = 64)
+    private String contentRef; // Référence du contenu dans le ContentStore
+
+    @Column(nullable = false, length = 64)
+    private String contentHash; // SHA-256 du contenu, pour détecter les ré-uploads identiques
 
     @Column(nullable = false)
     private String uploadedBy;
 
     @Column(nullable = false)
-    private String status; // UPLOADED, PROCESSING, COMPLETED, FAILED
+    private String status; // QUEUED, PROCESSING, COMPLETED, FAILED
+
+    @Column(length = 16)
+    private String loadMode; // INSERT, UPSERT, DELTA (null = INSERT)
 
     @Column(length = 2000)
     private String errorMessage;
@@ -56,6 +73,19 @@ public class FileStorage {
     @Column(nullable = false)
     private Integer failedRecords = 0;
 
+    // Détail des lignes écrites en mode UPSERT ou DELTA
+    @Column
+    private Integer insertedRecords;
+
+    @Column
+    private Integer updatedRecords;
+
+    @Column
+    private Integer unchangedRecords;
+
+    @Column
+    private Integer deactivatedRecords; // Mode DELTA : risques absents du fichier
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime uploadedAt;
@@ -49,6 +49,9 @@ public class OperationalRiskReferential {
     @Column
     private Boolean active = true;
 
+    @Column(length = 64)
+    private String rowHash; // Empreinte des colonnes métier, comparée par le chargement DELTA
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "file_storage_id")
     private FileStorage fileStorage;
@@ -0,0 +1,26 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.writer.BatchInsert;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Écrit un chunk en un seul batch JDBC, dans la transaction du chunk.
+ * En cas d'erreur, Spring Batch rejoue le chunk élément par élément pour écarter les lignes fautives.
+ */
+public class BatchInsertItemWriter<T> implements ItemWriter<T> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchInsert<T> insert;
+
+    public BatchInsertItemWriter(JdbcTemplate jdbcTemplate, BatchInsert<T> insert) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insert = insert;
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) {
+        jdbcTemplate.batchUpdate(insert.sql(), chunk.getItems(), chunk.size(), insert.setter()::setValues);
+    }
+}
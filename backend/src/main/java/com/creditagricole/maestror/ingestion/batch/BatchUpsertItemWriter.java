@@ -0,0 +1,156 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.writer.BatchInsert;
+import com.creditagricole.maestror.ingestion.writer.BatchUpsert;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.ingestion.writer.UpsertCounts;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écrit un chunk par INSERT ou, si le job est lancé en mode UPSERT, par un upsert ensembliste.
+ * <p>
+ * En mode UPSERT, les lignes du chunk sont dédoublonnées en mémoire sur leur code (la dernière
+ * l'emporte, comme si elles étaient appliquées dans l'ordre du fichier), puis appliquées en une
+ * requête. Chaque code du fichier n'est compté qu'une fois, quel que soit le découpage en chunks :
+ * le writer retient, par exécution de step, le bilan des codes des chunks validés (un fichier UPSERT
+ * n'est jamais partitionné, son step lit donc tout le fichier). Les compteurs insérés / mis à jour /
+ * inchangés sont cumulés dans le contexte d'exécution du step une fois la transaction du chunk validée ;
+ * après une reprise, les codes vus par l'exécution précédente ne sont plus connus.
+ * <p>
+ * Partagé par les jobs d'une catégorie : doit être enregistré comme listener du step pour libérer
+ * les codes retenus à la fin de chaque exécution.
+ */
+public class BatchUpsertItemWriter<T> extends BatchInsertItemWriter<T> implements StepExecutionListener {
+
+    static final String INSERTED_KEY = "upsert.inserted";
+    static final String UPDATED_KEY = "upsert.updated";
+    static final String UNCHANGED_KEY = "upsert.unchanged";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchUpsert<T> upsert;
+    // Bilan des codes déjà comptés, par exécution de step en cours
+    private final Map<StepExecution, Map<String, Outcome>> seenCodes =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public BatchUpsertItemWriter(JdbcTemplate jdbcTemplate, BatchInsert<T> insert, BatchUpsert<T> upsert) {
+        super(jdbcTemplate, insert);
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = upsert;
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null || loadMode(context.getStepExecution()) != LoadMode.UPSERT) {
+            super.write(chunk);
+            return;
+        }
+
+        Map<String, T> latest = new LinkedHashMap<>();
+        for (T item : chunk.getItems()) {
+            latest.remove(upsert.key().apply(item));
+            latest.put(upsert.key().apply(item), item);
+        }
+        List<T> rows = new ArrayList<>(latest.values());
+
+        jdbcTemplate.execute(upsert.createStagingSql());
+        jdbcTemplate.batchUpdate(upsert.stagingInsert().sql(), rows, rows.size(), upsert.stagingInsert().setter());
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        latest.keySet().forEach(code -> outcomes.put(code, Outcome.UNCHANGED));
+        jdbcTemplate.query(upsert.upsertSql(), rs -> {
+            outcomes.put(rs.getString(1), rs.getBoolean(2) ? Outcome.INSERTED : Outcome.UPDATED);
+        });
+
+        StepExecution stepExecution = context.getStepExecution();
+        Map<String, Outcome> seen = seenCodes.computeIfAbsent(stepExecution, execution -> new HashMap<>());
+        onCommit(() -> add(stepExecution.getExecutionContext(), merge(seen, outcomes)));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        seenCodes.remove(stepExecution);
+        return null;
+    }
+
+    /**
+     * Retient le bilan des codes d'un chunk validé et renvoie ce qu'il ajoute aux compteurs du fichier :
+     * un code déjà compté comme inchangé et modifié depuis passe en mis à jour
+     */
+    static UpsertCounts merge(Map<String, Outcome> seen, Map<String, Outcome> outcomes) {
+        long inserted = 0;
+        long updated = 0;
+        long unchanged = 0;
+        for (Map.Entry<String, Outcome> entry : outcomes.entrySet()) {
+            Outcome outcome = entry.getValue();
+            Outcome previous = seen.get(entry.getKey());
+            if (previous == null) {
+                seen.put(entry.getKey(), outcome);
+                switch (outcome) {
+                    case INSERTED -> inserted++;
+                    case UPDATED -> updated++;
+                    case UNCHANGED -> unchanged++;
+                }
+            } else if (previous == Outcome.UNCHANGED && outcome != Outcome.UNCHANGED) {
+                seen.put(entry.getKey(), Outcome.UPDATED);
+                unchanged--;
+                updated++;
+            }
+        }
+        return new UpsertCounts(inserted, updated, unchanged);
+    }
+
+    /**
+     * Exécute l'action après validation du chunk : un chunk annulé puis rejoué ligne à ligne
+     * n'est compté qu'une fois
+     */
+    private static void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void add(ExecutionContext executionContext, UpsertCounts counts) {
+        UpsertCounts total = countsOf(executionContext).plus(counts);
+        executionContext.putLong(INSERTED_KEY, total.inserted());
+        executionContext.putLong(UPDATED_KEY, total.updated());
+        executionContext.putLong(UNCHANGED_KEY, total.unchanged());
+    }
+
+    /**
+     * Compteurs cumulés d'un step, y compris ceux des exécutions précédentes en cas de reprise
+     */
+    static UpsertCounts countsOf(ExecutionContext executionContext) {
+        return new UpsertCounts(executionContext.getLong(INSERTED_KEY, 0), executionContext.getLong(UPDATED_KEY, 0),
+                executionContext.getLong(UNCHANGED_KEY, 0));
+    }
+
+    static LoadMode loadMode(StepExecution stepExecution) {
+        return LoadMode.of(stepExecution.getJobParameters().getString(FileIngestionJobConfig.LOAD_MODE_PARAM));
+    }
+
+    enum Outcome { INSERTED, UPDATED, UNCHANGED }
+}
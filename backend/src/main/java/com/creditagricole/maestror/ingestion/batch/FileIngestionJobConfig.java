@@ -0,0 +1,308 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+import com.creditagricole.maestror.entity.ParamFichier;
+import com.creditagricole.maestror.entity.TestData;
+import com.creditagricole.maestror.ingestion.pipeline.IngestionPipeline;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowStore;
+import com.creditagricole.maestror.ingestion.reader.CsvEngine;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeCache;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeIndex;
+import com.creditagricole.maestror.ingestion.writer.BatchInsert;
+import com.creditagricole.maestror.ingestion.writer.BatchUpsert;
+import com.creditagricole.maestror.ingestion.writer.EntityInserts;
+import com.creditagricole.maestror.ingestion.writer.EntityUpserts;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.service.ParamFichierService;
+import com.creditagricole.maestror.storage.ContentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.DateTimeException;
+import java.util.List;
+
+/**
+ * Jobs Spring Batch d'ingestion des fichiers uploadés, un par catégorie.
+ * <p>
+ * Chaque job lit le fichier en chunks (lecture, mapping, écriture JDBC par lot) validés chacun
+ * dans leur propre transaction. Les lignes invalides sont écartées jusqu'à la limite configurée,
+ * comptée sur le fichier entier, et enregistrées dans FILE_REJECTED_ROW.
+ * Relancé avec le même fileId après un échec, un job reprend après le dernier chunk validé.
+ * <p>
+ * Le step de chargement est partitionné : les portions du fichier (voir {@link FilePartitioner})
+ * sont traitées en parallèle, chacune avec son lecteur, ses transactions et donc sa connexion.
+ * <p>
+ * REFERENTIAL, INCIDENT et CONTROL acceptent le mode UPSERT (paramètre loadMode) : les lignes
+ * sont alors appliquées sur leur code métier, dans l'ordre du fichier et sans partitionnement.
+ * <p>
+ * Incidents et contrôles sont rattachés au référentiel par leur code risque, résolu sur la correspondance
+ * du {@link RiskCodeCache} prise au démarrage du step ; un code inconnu rejette la ligne.
+ */
+@Configuration
+@Slf4j
+public class FileIngestionJobConfig {
+
+    public static final String FILE_ID_PARAM = "fileId";
+    public static final String FILE_NAME_PARAM = "fileName";
+    public static final String LOAD_MODE_PARAM = "loadMode";
+    public static final String JOB_NAME_SUFFIX = "IngestionJob";
+    public static final String STEP_NAME_SUFFIX = "IngestionStep";
+
+    private static final String ID_FICHIER_KEY = "idFichier";
+
+    /**
+     * Erreurs de mapping ou de contrainte qui écartent la ligne au lieu de faire échouer le job
+     */
+    private static final List<Class<? extends Throwable>> SKIPPABLE_EXCEPTIONS = List.of(
+            IllegalArgumentException.class, IndexOutOfBoundsException.class,
+            DateTimeException.class, DataIntegrityViolationException.class);
+
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ParamFichierService paramFichierService;
+    private final ThreadPoolTaskExecutor partitionExecutor;
+    private final IngestionProgressListener progressListener;
+    private final IngestionPipeline pipeline;
+    private final RiskCodeCache riskCodeCache;
+
+    @Value("${maestror.ingestion.batch-size:1000}")
+    private int chunkSize;
+
+    @Value("${maestror.ingestion.skip-limit:1000}")
+    private int skipLimit;
+
+    public FileIngestionJobConfig(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                                  JdbcTemplate jdbcTemplate, ParamFichierService paramFichierService,
+                                  @Qualifier("ingestionPartitionExecutor") ThreadPoolTaskExecutor partitionExecutor,
+                                  IngestionProgressTracker progressTracker, IngestionPipeline pipeline,
+                                  RiskCodeCache riskCodeCache) {
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.paramFichierService = paramFichierService;
+        this.partitionExecutor = partitionExecutor;
+        this.progressListener = new IngestionProgressListener(progressTracker);
+        this.pipeline = pipeline;
+        this.riskCodeCache = riskCodeCache;
+    }
+
+    @Bean
+    @StepScope
+    public RowSourceItemReader ingestionReader(FileStorageRepository fileStorageRepository,
+                                               RowSourceFactory rowSourceFactory,
+                                               @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId,
+                                               @Value("#{stepExecution}") StepExecution stepExecution) {
+        return new RowSourceItemReader(fileStorageRepository, rowSourceFactory, fileId,
+                FilePartitioner.fromContext(stepExecution.getExecutionContext()));
+    }
+
+    @Bean
+    @StepScope
+    public FilePartitioner filePartitioner(FileStorageRepository fileStorageRepository,
+                                           ContentStore contentStore,
+                                           @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId,
+                                           @Value("${maestror.ingestion.partition.min-size:5242880}") long minPartitionSize,
+                                           @Value("${maestror.ingestion.csv.engine:OPENCSV}") CsvEngine csvEngine) {
+        return new FilePartitioner(fileStorageRepository, contentStore, fileId, minPartitionSize, csvEngine);
+    }
+
+    @Bean
+    @StepScope
+    public RejectedRowListener rejectedRowListener(RejectedRowStore rejectedRowStore,
+                                                   @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId) {
+        return new RejectedRowListener(rejectedRowStore.open(fileId));
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<SourceRow, OperationalRiskReferential> referentialProcessor(
+            @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId) {
+        FileStorage fileStorage = fileReference(fileId);
+        return row -> FileRowMappers.buildReferentialFromRow(row.view(), fileStorage);
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<SourceRow, Incident> incidentProcessor(
+            @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId) {
+        FileStorage fileStorage = fileReference(fileId);
+        RiskCodeIndex riskCodes = riskCodeCache.snapshot();
+        return row -> FileRowMappers.buildIncidentFromRow(row.view(), fileStorage, riskCodes);
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<SourceRow, Control> controlProcessor(
+            @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId) {
+        FileStorage fileStorage = fileReference(fileId);
+        RiskCodeIndex riskCodes = riskCodeCache.snapshot();
+        return row -> FileRowMappers.buildControlFromRow(row.view(), fileStorage, riskCodes);
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<SourceRow, TestData> testProcessor(
+            @Value("#{jobParameters['" + FILE_ID_PARAM + "']}") Long fileId) {
+        FileStorage fileStorage = fileReference(fileId);
+        return row -> FileRowMappers.buildTestDataFromRow(row.view(), fileStorage);
+    }
+
+    @Bean
+    public Job referentialIngestionJob(FilePartitioner filePartitioner, RowSourceItemReader ingestionReader,
+                                       ItemProcessor<SourceRow, OperationalRiskReferential> referentialProcessor,
+                                RejectedRowListener rejectedRowListener) {
+        return new JobBuilder("referential" + JOB_NAME_SUFFIX, jobRepository)
+                .start(partitionedStep("referential", filePartitioner, ingestionReader, referentialProcessor,
+                        rejectedRowListener, EntityInserts.REFERENTIAL, EntityUpserts.REFERENTIAL))
+                .build();
+    }
+
+    @Bean
+    public Job incidentIngestionJob(FilePartitioner filePartitioner, RowSourceItemReader ingestionReader,
+                                    ItemProcessor<SourceRow, Incident> incidentProcessor,
+                                RejectedRowListener rejectedRowListener) {
+        return new JobBuilder("incident" + JOB_NAME_SUFFIX, jobRepository)
+                .start(partitionedStep("incident", filePartitioner, ingestionReader, incidentProcessor,
+                        rejectedRowListener, EntityInserts.INCIDENT, EntityUpserts.INCIDENT))
+                .build();
+    }
+
+    @Bean
+    public Job controlIngestionJob(FilePartitioner filePartitioner, RowSourceItemReader ingestionReader,
+                                   ItemProcessor<SourceRow, Control> controlProcessor,
+                                RejectedRowListener rejectedRowListener) {
+        return new JobBuilder("control" + JOB_NAME_SUFFIX, jobRepository)
+                .start(partitionedStep("control", filePartitioner, ingestionReader, controlProcessor,
+                        rejectedRowListener, EntityInserts.CONTROL, EntityUpserts.CONTROL))
+                .build();
+    }
+
+    /**
+     * TEST : le fichier est tracé dans PARAM_FICHIER avant le chargement, puis sa date
+     * d'intégration STAGING est mise à jour une fois toutes les lignes chargées
+     */
+    @Bean
+    public Job testIngestionJob(FilePartitioner filePartitioner, RowSourceItemReader ingestionReader,
+                                ItemProcessor<SourceRow, TestData> testProcessor,
+                                RejectedRowListener rejectedRowListener) {
+        return new JobBuilder("test" + JOB_NAME_SUFFIX, jobRepository)
+                .start(registerParamFichierStep())
+                .next(partitionedStep("test", filePartitioner, ingestionReader, testProcessor,
+                        rejectedRowListener, EntityInserts.TEST_DATA, null))
+                .next(updateDateIntegrationStep())
+                .build();
+    }
+
+    private <T> Step partitionedStep(String category, FilePartitioner partitioner, RowSourceItemReader reader,
+                                     ItemProcessor<SourceRow, T> processor, RejectedRowListener rejectedRowListener,
+                                     BatchInsert<T> insert, BatchUpsert<T> upsert) {
+        Step worker = chunkStep(category, reader, processor, rejectedRowListener, insert, upsert);
+        return new StepBuilder(category + "IngestionPartitionStep", jobRepository)
+                .partitioner(worker.getName(), partitioner)
+                .step(worker)
+                .gridSize(partitionExecutor.getMaxPoolSize())
+                .taskExecutor(partitionExecutor)
+                .build();
+    }
+
+    /**
+     * Step de chargement d'une portion ; la limite de lignes écartées s'applique au fichier,
+     * toutes partitions confondues (voir {@link FileSkipPolicy}).
+     * La conversion et l'écriture sont chronométrées par étage (maestror.ingestion.stage).
+     *
+     * @param upsert écriture en mode UPSERT, null si la catégorie ne le permet pas
+     */
+    private <T> Step chunkStep(String category, RowSourceItemReader reader, ItemProcessor<SourceRow, T> processor,
+                               RejectedRowListener rejectedRowListener, BatchInsert<T> insert, BatchUpsert<T> upsert) {
+        BatchUpsertItemWriter<T> upsertWriter = upsert != null
+                ? new BatchUpsertItemWriter<>(jdbcTemplate, insert, upsert)
+                : null;
+        ItemWriter<T> writer = upsertWriter != null ? upsertWriter : new BatchInsertItemWriter<>(jdbcTemplate, insert);
+        FaultTolerantStepBuilder<SourceRow, T> builder = new StepBuilder(category + STEP_NAME_SUFFIX, jobRepository)
+                .<SourceRow, T>chunk(chunkSize, transactionManager)
+                .reader(reader)
+                .processor(pipeline.map(processor, category))
+                .writer(pipeline.write(writer, category))
+                .faultTolerant()
+                .skipPolicy(new FileSkipPolicy(skipLimit, SKIPPABLE_EXCEPTIONS))
+                .skipLimit(skipLimit);
+        SKIPPABLE_EXCEPTIONS.forEach(builder::skip);
+        if (upsertWriter != null) {
+            // Le writer est enveloppé par le pipeline : son listener n'est pas détecté automatiquement
+            builder.listener((StepExecutionListener) upsertWriter);
+        }
+        return builder
+                .listener((SkipListener<SourceRow, Object>) rejectedRowListener)
+                .listener((ItemProcessListener<SourceRow, Object>) rejectedRowListener)
+                .listener((ChunkListener) rejectedRowListener)
+                .listener((SkipListener<SourceRow, Object>) progressListener)
+                .listener((ItemWriteListener<Object>) progressListener)
+                .build();
+    }
+
+    private Step registerParamFichierStep() {
+        return new StepBuilder("registerParamFichierStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    String fileName = (String) chunkContext.getStepContext().getJobParameters().get(FILE_NAME_PARAM);
+                    ParamFichier paramFichier = paramFichierService.enregistrerReceptionFichier(fileName);
+                    log.info("Fichier {} enregistré dans PARAM_FICHIER avec ID: {}", fileName, paramFichier.getIdFichier());
+                    jobContext(contribution.getStepExecution()).putLong(ID_FICHIER_KEY, paramFichier.getIdFichier());
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    private Step updateDateIntegrationStep() {
+        return new StepBuilder("updateDateIntegrationStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    long idFichier = jobContext(contribution.getStepExecution()).getLong(ID_FICHIER_KEY);
+                    paramFichierService.mettreAJourDateIntegration(idFichier);
+                    log.info("Intégration STAGING terminée pour fichier ID: {}", idFichier);
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    private static ExecutionContext jobContext(StepExecution stepExecution) {
+        return stepExecution.getJobExecution().getExecutionContext();
+    }
+
+    /**
+     * Référence vers le fichier source : seul l'identifiant est utilisé par les INSERT
+     */
+    private static FileStorage fileReference(Long fileId) {
+        FileStorage fileStorage = new FileStorage();
+        fileStorage.setId(fileId);
+        return fileStorage;
+    }
+}
@@ -0,0 +1,148 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.ingestion.writer.UpsertCounts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lance, reprend et récupère les jobs d'ingestion de fichiers.
+ * Un fichier correspond à une instance de job identifiée par son fileId : relancer le même
+ * fichier après un échec redémarre l'exécution précédente au lieu d'en créer une nouvelle.
+ */
+@Component
+@Slf4j
+public class FileIngestionJobLauncher {
+
+    private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final Map<String, Job> jobs;
+
+    public FileIngestionJobLauncher(JobLauncher jobLauncher, JobExplorer jobExplorer,
+                                    JobRepository jobRepository, Map<String, Job> jobs) {
+        this.jobLauncher = jobLauncher;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.jobs = jobs;
+    }
+
+    public boolean supports(String category) {
+        return category != null && jobs.containsKey(jobName(category));
+    }
+
+    /**
+     * Lance (ou reprend) le job de la catégorie du fichier et attend sa fin
+     */
+    public FileIngestionResult run(FileStorage fileStorage) throws JobRestartException,
+            JobExecutionAlreadyRunningException, JobParametersInvalidException {
+        Job job = jobs.get(jobName(fileStorage.getCategory()));
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown category: " + fileStorage.getCategory());
+        }
+        JobParameters parameters = new JobParametersBuilder()
+                .addLong(FileIngestionJobConfig.FILE_ID_PARAM, fileStorage.getId())
+                .addString(FileIngestionJobConfig.FILE_NAME_PARAM, fileStorage.getFileName(), false)
+                .addString(FileIngestionJobConfig.LOAD_MODE_PARAM, LoadMode.of(fileStorage.getLoadMode()).name(), false)
+                .toJobParameters();
+
+        JobExecution execution;
+        try {
+            execution = jobLauncher.run(job, parameters);
+        } catch (JobInstanceAlreadyCompleteException e) {
+            // Déjà chargé : le statut du fichier n'avait pas été mis à jour avant l'arrêt
+            log.info("Ingestion job already completed for file {}", fileStorage.getId());
+            JobInstance instance = jobExplorer.getJobInstance(job.getName(), parameters);
+            execution = jobExplorer.getLastJobExecution(instance);
+        }
+        return toResult(execution, LoadMode.of(fileStorage.getLoadMode()));
+    }
+
+    /**
+     * Cumule les compteurs de toutes les exécutions de l'instance et de toutes les partitions, reprises comprises.
+     * Les compteurs UPSERT, repris d'une exécution à l'autre dans le contexte du step, sont lus sur la dernière.
+     */
+    private FileIngestionResult toResult(JobExecution execution, LoadMode loadMode) {
+        long written = 0;
+        long rejected = 0;
+        Map<String, StepExecution> latestSteps = new HashMap<>();
+        for (JobExecution attempt : jobExplorer.getJobExecutions(execution.getJobInstance())) {
+            for (StepExecution step : attempt.getStepExecutions()) {
+                if (isChunkStep(step.getStepName())) {
+                    written += step.getWriteCount();
+                    rejected += step.getSkipCount();
+                    latestSteps.merge(step.getStepName(), step,
+                            (previous, current) -> current.getId() > previous.getId() ? current : previous);
+                }
+            }
+        }
+        UpsertCounts upsertCounts = null;
+        if (loadMode == LoadMode.UPSERT) {
+            upsertCounts = latestSteps.values().stream()
+                    .map(step -> BatchUpsertItemWriter.countsOf(step.getExecutionContext()))
+                    .reduce(UpsertCounts.NONE, UpsertCounts::plus);
+        }
+        String failure = execution.getAllFailureExceptions().stream()
+                .map(Throwable::getMessage)
+                .findFirst()
+                .orElse(execution.getExitStatus().getExitDescription());
+        return new FileIngestionResult(execution.getStatus(), written, rejected, upsertCounts, failure);
+    }
+
+    /**
+     * Marque en échec les exécutions restées en cours après un arrêt brutal de l'application,
+     * afin qu'elles puissent être redémarrées depuis leur dernier chunk validé
+     */
+    public void failInterruptedExecutions() {
+        for (String name : jobs.keySet()) {
+            for (JobExecution execution : jobExplorer.findRunningJobExecutions(name)) {
+                LocalDateTime now = LocalDateTime.now();
+                for (StepExecution step : execution.getStepExecutions()) {
+                    if (step.getStatus().isRunning()) {
+                        step.setStatus(BatchStatus.FAILED);
+                        step.setExitStatus(ExitStatus.FAILED);
+                        step.setEndTime(now);
+                        jobRepository.update(step);
+                    }
+                }
+                execution.setStatus(BatchStatus.FAILED);
+                execution.setExitStatus(ExitStatus.FAILED.addExitDescription("Interrupted by application shutdown"));
+                execution.setEndTime(now);
+                jobRepository.update(execution);
+                log.warn("Ingestion job execution {} ({}) marked as failed after restart", execution.getId(), name);
+            }
+        }
+    }
+
+    /**
+     * Step de chargement, ou l'une de ses partitions ("incidentIngestionStep:partition0")
+     */
+    private static boolean isChunkStep(String stepName) {
+        return stepName.endsWith(FileIngestionJobConfig.STEP_NAME_SUFFIX)
+                || stepName.contains(FileIngestionJobConfig.STEP_NAME_SUFFIX + ":");
+    }
+
+    private static String jobName(String category) {
+        return category.toLowerCase() + FileIngestionJobConfig.JOB_NAME_SUFFIX;
+    }
+}
@@ -0,0 +1,17 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.writer.UpsertCounts;
+import org.springframework.batch.core.BatchStatus;
+
+/**
+ * Bilan d'un job d'ingestion, cumulé sur toutes ses exécutions
+ *
+ * @param upsertCounts détail des lignes écrites en mode UPSERT, null en mode INSERT
+ */
+public record FileIngestionResult(BatchStatus status, long writtenCount, long failedCount,
+                                  UpsertCounts upsertCounts, String failureMessage) {
+
+    public boolean isCompleted() {
+        return status == BatchStatus.COMPLETED;
+    }
+}
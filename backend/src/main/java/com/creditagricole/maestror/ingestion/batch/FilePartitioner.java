@@ -0,0 +1,106 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.reader.CsvEngine;
+import com.creditagricole.maestror.ingestion.reader.CsvSplitter;
+import com.creditagricole.maestror.ingestion.reader.FileSlice;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.storage.ContentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Découpe un fichier en portions traitées en parallèle : plages d'octets coupées en fin de ligne pour les CSV.
+ * Les fichiers plus petits que le seuil configuré restent en une seule portion, de même que
+ * les fichiers chargés en mode UPSERT, dont les lignes doivent être appliquées dans l'ordre.
+ * <p>
+ * Les XLSX ne sont pas découpés : une feuille ne se lit qu'en flux depuis sa première ligne, chaque
+ * partition reparserait donc la feuille (et rechargerait la table des chaînes partagées) pour n'en garder qu'une plage.
+ */
+@Slf4j
+public class FilePartitioner implements Partitioner {
+
+    private static final String FIRST_ROW_KEY = "firstRow";
+    private static final String LAST_ROW_KEY = "lastRow";
+    private static final String START_OFFSET_KEY = "startOffset";
+    private static final String END_OFFSET_KEY = "endOffset";
+
+    private final FileStorageRepository fileStorageRepository;
+    private final ContentStore contentStore;
+    private final Long fileId;
+    private final long minPartitionSize;
+    private final CsvEngine csvEngine;
+
+    public FilePartitioner(FileStorageRepository fileStorageRepository, ContentStore contentStore,
+                           Long fileId, long minPartitionSize, CsvEngine csvEngine) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.contentStore = contentStore;
+        this.fileId = fileId;
+        this.minPartitionSize = minPartitionSize;
+        this.csvEngine = csvEngine;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        FileStorage fileStorage = fileStorageRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalStateException("File not found with ID: " + fileId));
+
+        List<FileSlice> slices = slice(fileStorage, gridSize);
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < slices.size(); i++) {
+            partitions.put("partition" + i, toContext(slices.get(i)));
+        }
+        log.info("File {} split into {} partition(s)", fileId, partitions.size());
+        return partitions;
+    }
+
+    private List<FileSlice> slice(FileStorage fileStorage, int gridSize) {
+        if (gridSize <= 1 || fileStorage.getFileSize() < minPartitionSize
+                || LoadMode.of(fileStorage.getLoadMode()) == LoadMode.UPSERT) {
+            return List.of(FileSlice.WHOLE_FILE);
+        }
+        if (!"CSV".equals(fileStorage.getFileType())) {
+            return List.of(FileSlice.WHOLE_FILE);
+        }
+        try {
+            return splitCsv(fileStorage, gridSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<FileSlice> splitCsv(FileStorage fileStorage, int gridSize) throws IOException {
+        try (SeekableByteChannel channel = contentStore.openChannel(fileStorage.getContentRef())) {
+            return CsvSplitter.split(channel, channel.size(), gridSize, csvEngine.backslashEscapes());
+        }
+    }
+
+    static ExecutionContext toContext(FileSlice slice) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(FIRST_ROW_KEY, slice.firstRow());
+        context.putLong(LAST_ROW_KEY, slice.lastRow());
+        context.putLong(START_OFFSET_KEY, slice.startOffset());
+        context.putLong(END_OFFSET_KEY, slice.endOffset());
+        return context;
+    }
+
+    /**
+     * Portion assignée à une partition, ou le fichier entier hors partitionnement
+     */
+    static FileSlice fromContext(ExecutionContext context) {
+        if (!context.containsKey(FIRST_ROW_KEY)) {
+            return FileSlice.WHOLE_FILE;
+        }
+        return new FileSlice(context.getLong(FIRST_ROW_KEY), context.getLong(LAST_ROW_KEY),
+                context.getLong(START_OFFSET_KEY), context.getLong(END_OFFSET_KEY));
+    }
+}
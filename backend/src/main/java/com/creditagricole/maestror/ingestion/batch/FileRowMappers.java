@@ -0,0 +1,142 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+import com.creditagricole.maestror.entity.TestData;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeIndex;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Mapping des lignes de fichier vers les entités de chaque catégorie
+ */
+public final class FileRowMappers {
+
+    // Issue #5 et #6 - Constantes pour litteraux dupliques
+    private static final String RISK_LEVEL_MEDIUM = "MEDIUM";
+
+    private FileRowMappers() {
+    }
+
+    public static OperationalRiskReferential buildReferentialFromRow(String[] row, FileStorage fileStorage) {
+        return buildReferentialFromRow(RowView.of(row), fileStorage);
+    }
+
+    public static OperationalRiskReferential buildReferentialFromRow(RowView row, FileStorage fileStorage) {
+        int fields = row.fieldCount();
+        return OperationalRiskReferential.builder()
+                .riskCode(row.string(0))
+                .riskName(row.string(1))
+                .riskDescription(fields > 2 ? row.string(2) : "")
+                .riskCategory(fields > 3 ? row.string(3) : "")
+                .riskType(fields > 4 ? row.string(4) : "")
+                .businessLine(fields > 5 ? row.string(5) : "")
+                .impactLevel(fields > 6 ? row.string(6) : RISK_LEVEL_MEDIUM)
+                .probabilityLevel(fields > 7 ? row.string(7) : RISK_LEVEL_MEDIUM)
+                .active(true)
+                .fileStorage(fileStorage)
+                .build();
+    }
+
+    /**
+     * Sans référentiel chargé : une ligne portant un code risque est rejetée
+     */
+    public static Incident buildIncidentFromRow(String[] row, FileStorage fileStorage) {
+        return buildIncidentFromRow(row, fileStorage, RiskCodeIndex.EMPTY);
+    }
+
+    /**
+     * Le code risque optionnel (12e colonne) rattache l'incident au référentiel
+     *
+     * @throws IllegalArgumentException si le code risque est inconnu
+     */
+    public static Incident buildIncidentFromRow(String[] row, FileStorage fileStorage, RiskCodeIndex riskCodes) {
+        return buildIncidentFromRow(RowView.of(row), fileStorage, riskCodes);
+    }
+
+    /**
+     * Date et impact financier sont convertis depuis la vue, sans passer par une chaîne pour une source CSV projetée
+     *
+     * @throws IllegalArgumentException si le code risque est inconnu
+     */
+    public static Incident buildIncidentFromRow(RowView row, FileStorage fileStorage, RiskCodeIndex riskCodes) {
+        int fields = row.fieldCount();
+        return Incident.builder()
+                .incidentCode(row.string(0))
+                .incidentTitle(row.string(1))
+                .incidentDescription(fields > 2 ? row.string(2) : "")
+                .incidentDate(fields > 3 ? row.parseIsoDate(3) : LocalDate.now())
+                .severity(fields > 4 ? row.string(4) : RISK_LEVEL_MEDIUM)
+                .status(fields > 5 ? row.string(5) : "OPEN")
+                .entityCode(fields > 6 ? row.string(6) : "")
+                .businessUnit(fields > 7 ? row.string(7) : "")
+                .financialImpact(fields > 8 && !row.isEmpty(8) ? row.parseDecimal(8) : BigDecimal.ZERO)
+                .currency(fields > 9 ? row.string(9) : "EUR")
+                .detectedBy(fields > 10 ? row.string(10) : "")
+                .riskReferential(fields > 11 ? riskCodes.reference(row.string(11)) : null)
+                .fileStorage(fileStorage)
+                .build();
+    }
+
+    /**
+     * Sans référentiel chargé : une ligne portant un code risque est rejetée
+     */
+    public static Control buildControlFromRow(String[] row, FileStorage fileStorage) {
+        return buildControlFromRow(row, fileStorage, RiskCodeIndex.EMPTY);
+    }
+
+    /**
+     * Le code risque optionnel (10e colonne) rattache le contrôle au référentiel
+     *
+     * @throws IllegalArgumentException si le code risque est inconnu
+     */
+    public static Control buildControlFromRow(String[] row, FileStorage fileStorage, RiskCodeIndex riskCodes) {
+        return buildControlFromRow(RowView.of(row), fileStorage, riskCodes);
+    }
+
+    /**
+     * @throws IllegalArgumentException si le code risque est inconnu
+     */
+    public static Control buildControlFromRow(RowView row, FileStorage fileStorage, RiskCodeIndex riskCodes) {
+        int fields = row.fieldCount();
+        return Control.builder()
+                .controlCode(row.string(0))
+                .controlName(row.string(1))
+                .controlDescription(fields > 2 ? row.string(2) : "")
+                .controlType(fields > 3 ? row.string(3) : "DETECTIVE")
+                .frequency(fields > 4 ? row.string(4) : "MONTHLY")
+                .entityCode(fields > 5 ? row.string(5) : "")
+                .responsiblePerson(fields > 6 ? row.string(6) : "")
+                .status(fields > 7 ? row.string(7) : "ACTIVE")
+                .effectiveness(fields > 8 ? row.string(8) : "EFFECTIVE")
+                .riskReferential(fields > 9 ? riskCodes.reference(row.string(9)) : null)
+                .fileStorage(fileStorage)
+                .build();
+    }
+
+    public static TestData buildTestDataFromRow(String[] row, FileStorage fileStorage) {
+        return buildTestDataFromRow(RowView.of(row), fileStorage);
+    }
+
+    /**
+     * Seul le premier champ est décodé, les suivants sont ignorés
+     */
+    public static TestData buildTestDataFromRow(RowView row, FileStorage fileStorage) {
+        // Prendre le premier champ comme données texte
+        String textData = row.fieldCount() > 0 ? row.string(0) : "";
+
+        // Limiter à 500 caractères
+        if (textData.length() > 500) {
+            textData = textData.substring(0, 500);
+        }
+
+        return TestData.builder()
+                .textData(textData)
+                .fileStorage(fileStorage)
+                .build();
+    }
+}
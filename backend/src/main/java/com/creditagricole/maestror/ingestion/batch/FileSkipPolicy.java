@@ -0,0 +1,57 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limite de lignes écartées appliquée au fichier entier et non à chaque partition.
+ * <p>
+ * Le compteur de Spring Batch est propre au step : la limite serait sinon multipliée par le nombre
+ * de partitions. Les lignes déjà écartées par les autres partitions du même job y sont ajoutées ;
+ * ces compteurs n'étant reportés qu'à la validation de chaque chunk, la limite peut être dépassée
+ * au plus des lignes écartées dans les chunks en cours des autres partitions.
+ * Partagée par toutes les partitions : le job est retrouvé depuis le contexte du step courant.
+ */
+public class FileSkipPolicy implements SkipPolicy {
+
+    private final LimitCheckingItemSkipPolicy delegate;
+
+    public FileSkipPolicy(int skipLimit, List<Class<? extends Throwable>> skippableExceptions) {
+        Map<Class<? extends Throwable>, Boolean> skippable = new LinkedHashMap<>();
+        skippableExceptions.forEach(type -> skippable.put(type, true));
+        this.delegate = new LimitCheckingItemSkipPolicy(skipLimit, skippable);
+    }
+
+    @Override
+    public boolean shouldSkip(Throwable t, long skipCount) {
+        return delegate.shouldSkip(t, skipCount + otherPartitionsSkipCount());
+    }
+
+    private static long otherPartitionsSkipCount() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return 0;
+        }
+        StepExecution current = context.getStepExecution();
+        String workerPrefix = workerName(current.getStepName()) + ":";
+        return current.getJobExecution().getStepExecutions().stream()
+                .filter(execution -> execution != current && execution.getStepName().startsWith(workerPrefix))
+                .mapToLong(StepExecution::getSkipCount)
+                .sum();
+    }
+
+    /**
+     * Nom du step de chargement, sans le suffixe de partition ("incidentIngestionStep:partition0")
+     */
+    private static String workerName(String stepName) {
+        int separator = stepName.indexOf(':');
+        return separator < 0 ? stepName : stepName.substring(0, separator);
+    }
+}
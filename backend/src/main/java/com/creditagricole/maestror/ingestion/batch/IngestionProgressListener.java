@@ -0,0 +1,53 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.progress.IngestionProgress;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+
+import java.util.Optional;
+
+/**
+ * Reporte les lignes écrites et écartées dans l'avancement du fichier.
+ * Partagé par toutes les partitions : le fichier est retrouvé depuis le contexte du step courant.
+ */
+public class IngestionProgressListener implements ItemWriteListener<Object>, SkipListener<SourceRow, Object> {
+
+    private final IngestionProgressTracker tracker;
+
+    public IngestionProgressListener(IngestionProgressTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        currentProgress().ifPresent(progress -> progress.addProcessed(items.size()));
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        currentProgress().ifPresent(progress -> progress.addFailed(1));
+    }
+
+    @Override
+    public void onSkipInProcess(SourceRow item, Throwable t) {
+        currentProgress().ifPresent(progress -> progress.addFailed(1));
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+        currentProgress().ifPresent(progress -> progress.addFailed(1));
+    }
+
+    private Optional<IngestionProgress> currentProgress() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return Optional.empty();
+        }
+        Long fileId = context.getStepExecution().getJobParameters().getLong(FileIngestionJobConfig.FILE_ID_PARAM);
+        return fileId != null ? tracker.get(fileId) : Optional.empty();
+    }
+}
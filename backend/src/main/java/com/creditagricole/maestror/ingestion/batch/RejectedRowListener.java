@@ -0,0 +1,66 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowBuffer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Enregistre les lignes écartées par un step d'ingestion (une instance par step ou partition).
+ * <p>
+ * Une ligne rejetée à l'écriture n'est connue que par son entité : la ligne source de chaque
+ * élément du chunk est conservée jusqu'à la fin du chunk pour retrouver son numéro et ses valeurs.
+ * Les rejets sont enregistrés par lot après la validation de chaque chunk.
+ */
+public class RejectedRowListener implements SkipListener<SourceRow, Object>, ItemProcessListener<SourceRow, Object>,
+        ChunkListener {
+
+    private final RejectedRowBuffer buffer;
+    private final Map<Object, SourceRow> sources = new IdentityHashMap<>();
+
+    public RejectedRowListener(RejectedRowBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void afterProcess(SourceRow item, Object result) {
+        if (result != null) {
+            sources.put(result, item);
+        }
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        buffer.add(null, null, t);
+    }
+
+    @Override
+    public void onSkipInProcess(SourceRow item, Throwable t) {
+        buffer.add(item.rowNumber(), item.values(), t);
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+        SourceRow source = sources.get(item);
+        buffer.add(source != null ? source.rowNumber() : null, source != null ? source.values() : null, t);
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        sources.clear();
+        buffer.flush();
+    }
+
+    /**
+     * Chunk annulé : il sera rejoué élément par élément, sans repasser par le processor
+     * (sorties conservées), d'où le maintien des lignes sources
+     */
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        buffer.discard();
+    }
+}
@@ -0,0 +1,60 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.reader.FileSlice;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+/**
+ * Lecteur Spring Batch au-dessus d'un {@link RowSource}.
+ * <p>
+ * Le nombre de lignes lues est enregistré dans le contexte d'exécution à chaque commit de chunk :
+ * lors d'une reprise, les lignes déjà validées sont relues puis ignorées sans être réécrites.
+ * En mode partitionné, chaque lecteur ne lit que la portion du fichier assignée à sa partition.
+ */
+public class RowSourceItemReader extends AbstractItemCountingItemStreamItemReader<SourceRow> {
+
+    private final FileStorageRepository fileStorageRepository;
+    private final RowSourceFactory rowSourceFactory;
+    private final Long fileId;
+    private final FileSlice slice;
+
+    private RowSource rowSource;
+
+    public RowSourceItemReader(FileStorageRepository fileStorageRepository, RowSourceFactory rowSourceFactory,
+                               Long fileId, FileSlice slice) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.rowSourceFactory = rowSourceFactory;
+        this.fileId = fileId;
+        this.slice = slice;
+        setName("rowSource");
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        FileStorage fileStorage = fileStorageRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalStateException("File not found with ID: " + fileId));
+        rowSource = rowSourceFactory.open(fileStorage, slice);
+        // Pour TEST, pas d'en-tête
+        if (slice.includesHeader() && !"TEST".equals(fileStorage.getCategory())) {
+            rowSource.nextRow();
+        }
+    }
+
+    @Override
+    protected SourceRow doRead() throws Exception {
+        RowView row = rowSource.nextView();
+        return row != null ? new SourceRow(rowSource.getRowNumber(), row.detach()) : null;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (rowSource != null) {
+            rowSource.close();
+            rowSource = null;
+        }
+    }
+}
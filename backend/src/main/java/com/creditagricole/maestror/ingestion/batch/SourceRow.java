@@ -0,0 +1,21 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.reader.RowView;
+
+/**
+ * Ligne lue dans un fichier uploadé, avec son numéro de ligne d'origine.
+ * La vue est détachée de la source : elle reste valide jusqu'à l'écriture du chunk.
+ */
+public record SourceRow(long rowNumber, RowView view) {
+
+    public SourceRow(long rowNumber, String[] values) {
+        this(rowNumber, RowView.of(values));
+    }
+
+    /**
+     * Valeurs décodées en chaînes (mappings texte, lignes rejetées)
+     */
+    public String[] values() {
+        return view.toArray();
+    }
+}
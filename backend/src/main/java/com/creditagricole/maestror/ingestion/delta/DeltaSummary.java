@@ -0,0 +1,17 @@
+package com.creditagricole.maestror.ingestion.delta;
+
+/**
+ * Bilan d'un chargement DELTA. Une ligne remplacée par une ligne ultérieure de même code
+ * dans le fichier compte comme inchangée, une ligne rejetée n'entre dans aucun autre compteur.
+ *
+ * @param deactivated risques actifs absents du fichier, passés à active = false
+ */
+public record DeltaSummary(long inserted, long updated, long deactivated, long unchanged, long rejected) {
+
+    /**
+     * Lignes du fichier acceptées (écrites ou identiques à l'existant)
+     */
+    public long acceptedCount() {
+        return inserted + updated + unchanged;
+    }
+}
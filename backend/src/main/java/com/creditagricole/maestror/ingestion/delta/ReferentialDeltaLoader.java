@@ -0,0 +1,192 @@
+package com.creditagricole.maestror.ingestion.delta;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+import com.creditagricole.maestror.ingestion.batch.FileRowMappers;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.writer.EntityInserts;
+import com.creditagricole.maestror.ingestion.writer.RowFailureListener;
+import com.creditagricole.maestror.ingestion.writer.RowHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chargement différentiel d'un référentiel des risques livré en totalité (mode DELTA).
+ * <p>
+ * Le fichier est lu en entier et chaque ligne comparée, par l'empreinte de ses colonnes métier ({@link RowHash}),
+ * à la ligne de même code en base : seuls les risques nouveaux sont insérés et les risques modifiés mis à jour,
+ * les risques actifs absents du fichier sont désactivés. Les trois opérations sont appliquées en une transaction,
+ * table verrouillée en écriture : le référentiel passe d'un état complet au suivant.
+ * <p>
+ * Une ligne rejetée ne désactive pas le risque de même code. Une ligne en base sans empreinte
+ * (chargée avant le calcul des empreintes) est mise à jour une fois.
+ */
+@Slf4j
+@Component
+public class ReferentialDeltaLoader {
+
+    static final String LOCK_SQL = "LOCK TABLE operational_risk_referential IN SHARE ROW EXCLUSIVE MODE";
+    static final String CURRENT_SQL = "SELECT id, risk_code, row_hash, active FROM operational_risk_referential";
+    static final String UPDATE_SQL = "UPDATE operational_risk_referential SET risk_name = ?, risk_description = ?, "
+            + "risk_category = ?, risk_type = ?, business_line = ?, impact_level = ?, probability_level = ?, "
+            + "active = TRUE, row_hash = ?, file_storage_id = ?, updated_at = ? WHERE id = ?";
+    static final String DEACTIVATE_SQL = "UPDATE operational_risk_referential SET active = FALSE, file_storage_id = ?, "
+            + "updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${maestror.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    public ReferentialDeltaLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applique les lignes restantes de la source (en-tête déjà lu) comme nouvel état du référentiel
+     *
+     * @throws IllegalArgumentException si le fichier ne contient aucune ligne valide : le référentiel est laissé intact
+     */
+    public DeltaSummary load(RowSource records, FileStorage fileStorage, RowFailureListener failureListener)
+            throws IOException {
+        Map<String, OperationalRiskReferential> incoming = new LinkedHashMap<>();
+        Set<String> rejectedCodes = new HashSet<>();
+        long superseded = 0;
+        long rejected = 0;
+        String[] row;
+        while ((row = records.nextRow()) != null) {
+            try {
+                OperationalRiskReferential risk = FileRowMappers.buildReferentialFromRow(row, fileStorage);
+                if (risk.getRiskCode() == null || risk.getRiskCode().isBlank()) {
+                    throw new IllegalArgumentException("Missing risk code");
+                }
+                risk.setRowHash(RowHash.of(risk));
+                if (incoming.put(risk.getRiskCode(), risk) != null) {
+                    superseded++;
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                if (row.length > 0) {
+                    rejectedCodes.add(row[0]);
+                }
+                rejected++;
+                failureListener.onRowFailure(records.getRowNumber(), row, e);
+            }
+        }
+        if (incoming.isEmpty()) {
+            throw new IllegalArgumentException("No valid row in referential file " + fileStorage.getId()
+                    + ", current referential left unchanged");
+        }
+
+        long unchanged = superseded;
+        long rejectedRows = rejected;
+        DeltaSummary summary = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            Changes changes = diff(currentRisks(), incoming, rejectedCodes);
+            apply(changes, fileStorage.getId());
+            return new DeltaSummary(changes.inserts().size(), changes.updates().size(), changes.deactivations().size(),
+                    changes.unchanged() + unchanged, rejectedRows);
+        });
+        log.info("Referential delta of file {}: {} inserted, {} updated, {} deactivated, {} unchanged, {} rejected",
+                fileStorage.getId(), summary.inserted(), summary.updated(), summary.deactivated(), summary.unchanged(),
+                summary.rejected());
+        return summary;
+    }
+
+    private Map<String, CurrentRisk> currentRisks() {
+        Map<String, CurrentRisk> current = new HashMap<>();
+        jdbcTemplate.query(CURRENT_SQL, rs -> {
+            current.put(rs.getString("risk_code"),
+                    new CurrentRisk(rs.getLong("id"), rs.getString("row_hash"), rs.getBoolean("active")));
+        });
+        return current;
+    }
+
+    /**
+     * Compare le fichier à l'état courant ; les lignes à mettre à jour reçoivent l'identifiant de la ligne existante
+     *
+     * @param keptCodes codes à ne pas désactiver bien qu'absents des lignes valides (lignes rejetées)
+     */
+    static Changes diff(Map<String, CurrentRisk> current, Map<String, OperationalRiskReferential> incoming,
+                        Set<String> keptCodes) {
+        List<OperationalRiskReferential> inserts = new ArrayList<>();
+        List<OperationalRiskReferential> updates = new ArrayList<>();
+        long unchanged = 0;
+        for (OperationalRiskReferential risk : incoming.values()) {
+            CurrentRisk existing = current.get(risk.getRiskCode());
+            if (existing == null) {
+                inserts.add(risk);
+            } else if (!existing.active() || !risk.getRowHash().equals(existing.rowHash())) {
+                risk.setId(existing.id());
+                updates.add(risk);
+            } else {
+                unchanged++;
+            }
+        }
+        List<Long> deactivations = new ArrayList<>();
+        current.forEach((code, existing) -> {
+            if (existing.active() && !incoming.containsKey(code) && !keptCodes.contains(code)) {
+                deactivations.add(existing.id());
+            }
+        });
+        return new Changes(inserts, updates, deactivations, unchanged);
+    }
+
+    private void apply(Changes changes, Long fileId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(EntityInserts.REFERENTIAL.sql(), changes.inserts(), batchSize,
+                EntityInserts.REFERENTIAL.setter());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, changes.updates(), batchSize, (ps, risk) -> {
+            ps.setString(1, risk.getRiskName());
+            ps.setString(2, risk.getRiskDescription());
+            ps.setString(3, risk.getRiskCategory());
+            ps.setString(4, risk.getRiskType());
+            ps.setString(5, risk.getBusinessLine());
+            ps.setString(6, risk.getImpactLevel());
+            ps.setString(7, risk.getProbabilityLevel());
+            ps.setString(8, risk.getRowHash());
+            setFileId(ps, 9, fileId);
+            ps.setTimestamp(10, now);
+            ps.setLong(11, risk.getId());
+        });
+        jdbcTemplate.batchUpdate(DEACTIVATE_SQL, changes.deactivations(), batchSize, (ps, id) -> {
+            setFileId(ps, 1, fileId);
+            ps.setTimestamp(2, now);
+            ps.setLong(3, id);
+        });
+    }
+
+    private static void setFileId(PreparedStatement ps, int index, Long fileId) throws SQLException {
+        if (fileId != null) {
+            ps.setLong(index, fileId);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    record CurrentRisk(long id, String rowHash, boolean active) {
+    }
+
+    record Changes(List<OperationalRiskReferential> inserts, List<OperationalRiskReferential> updates,
+                   List<Long> deactivations, long unchanged) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.creditagricole.maestror.ingestion.pipeline;
+
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.scheduling.IngestionThrottle;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assemble les étages du pipeline d'ingestion : parse → map/validation → écriture par lots.
+ * Le parsing tourne en avance sur son propre thread (voir {@link PrefetchingRowSource}),
+ * la conversion et l'écriture restent dans le thread du step, chaque étage étant chronométré.
+ * L'écriture respecte le plafond global de lignes par seconde ({@link IngestionThrottle}).
+ */
+@Component
+public class IngestionPipeline {
+
+    private final PipelineMetrics metrics;
+    private final IngestionThrottle throttle;
+
+    @Value("${maestror.ingestion.pipeline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${maestror.ingestion.pipeline.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${maestror.ingestion.pipeline.block-size:500}")
+    private int blockSize;
+
+    public IngestionPipeline(PipelineMetrics metrics, IngestionThrottle throttle) {
+        this.metrics = metrics;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Étage de parsing : la source est lue en avance sur un thread virtuel, ou telle quelle si le pipeline est désactivé
+     */
+    public RowSource parse(RowSource source, String category) {
+        if (!enabled) {
+            return source;
+        }
+        return new PrefetchingRowSource(source, queueCapacity, blockSize,
+                metrics.timer(PipelineMetrics.PARSE, category),
+                metrics.timer(PipelineMetrics.PARSE_BLOCKED, category),
+                metrics.timer(PipelineMetrics.READ_STARVED, category));
+    }
+
+    public <I, O> ItemProcessor<I, O> map(ItemProcessor<I, O> processor, String category) {
+        Timer timer = metrics.timer(PipelineMetrics.MAP, category);
+        return item -> {
+            long start = System.nanoTime();
+            try {
+                return processor.process(item);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    public <T> ItemWriter<T> write(ItemWriter<T> writer, String category) {
+        Timer timer = metrics.timer(PipelineMetrics.WRITE, category);
+        return chunk -> {
+            throttle.acquire(category, chunk.size());
+            long start = System.nanoTime();
+            try {
+                writer.write(chunk);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
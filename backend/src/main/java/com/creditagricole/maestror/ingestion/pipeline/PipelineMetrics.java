@@ -0,0 +1,38 @@
+package com.creditagricole.maestror.ingestion.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Temps passé par étage du pipeline d'ingestion (métrique maestror.ingestion.stage, /actuator/metrics).
+ * <p>
+ * Étages : parse (lecture et découpage des lignes), map (conversion en entités), write (écriture en base).
+ * Les attentes de part et d'autre de la file de lignes désignent le goulot : parse.blocked croît quand
+ * l'aval ne suit pas (base de données), read.starved quand le parsing ne suit pas.
+ * throttled mesure l'attente imposée par le plafond global d'écriture.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String PARSE = "parse";
+    public static final String PARSE_BLOCKED = "parse.blocked";
+    public static final String READ_STARVED = "read.starved";
+    public static final String MAP = "map";
+    public static final String WRITE = "write";
+    public static final String THROTTLED = "throttled";
+
+    private final MeterRegistry meterRegistry;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer timer(String stage, String category) {
+        return Timer.builder("maestror.ingestion.stage")
+                .description("Time spent per ingestion pipeline stage")
+                .tag("stage", stage)
+                .tag("category", category != null ? category.toUpperCase() : "UNKNOWN")
+                .register(meterRegistry);
+    }
+}
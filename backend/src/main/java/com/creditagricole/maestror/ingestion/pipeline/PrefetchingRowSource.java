@@ -0,0 +1,172 @@
+package com.creditagricole.maestror.ingestion.pipeline;
+
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Étage de parsing découplé du consommateur : un thread virtuel lit la source par blocs de lignes
+ * et les dépose dans une file bornée, pendant que le consommateur convertit et écrit les blocs précédents.
+ * <p>
+ * La file bornée applique la contre-pression : le parsing se suspend lorsqu'elle est pleine,
+ * la mémoire reste limitée à capacity × blockSize lignes.
+ * <p>
+ * Les lignes sont transmises sous forme de vues détachées de la source : une source qui lit les octets
+ * ({@link com.creditagricole.maestror.ingestion.reader.MappedCsvRowSource}) n'a pas à décoder ses champs en chaînes.
+ */
+public class PrefetchingRowSource implements RowSource {
+
+    private static final Block END = new Block(new RowView[0], new long[0], 0);
+
+    private final RowSource delegate;
+    private final BlockingQueue<Block> queue;
+    private final int blockSize;
+    private final Timer parseTimer;
+    private final Timer parseBlockedTimer;
+    private final Timer readStarvedTimer;
+    private final Thread producer;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    private Block current;
+    private int index;
+    private long rowNumber = -1;
+    private boolean finished;
+
+    public PrefetchingRowSource(RowSource delegate, int capacity, int blockSize,
+                                Timer parseTimer, Timer parseBlockedTimer, Timer readStarvedTimer) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.blockSize = blockSize;
+        this.parseTimer = parseTimer;
+        this.parseBlockedTimer = parseBlockedTimer;
+        this.readStarvedTimer = readStarvedTimer;
+        this.producer = Thread.ofVirtual().name("ingestion-parse").start(this::produce);
+    }
+
+    private void produce() {
+        try {
+            int count;
+            do {
+                RowView[] rows = new RowView[blockSize];
+                long[] rowNumbers = new long[blockSize];
+                count = 0;
+                long start = System.nanoTime();
+                try {
+                    RowView row;
+                    while (count < blockSize && !closed && (row = delegate.nextView()) != null) {
+                        rows[count] = row.detach();
+                        rowNumbers[count] = delegate.getRowNumber();
+                        count++;
+                    }
+                } catch (Throwable e) {
+                    // Les lignes lues avant l'erreur restent transmises, l'erreur est levée ensuite côté consommateur
+                    failure = e;
+                }
+                parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (count > 0) {
+                    put(new Block(rows, rowNumbers, count));
+                }
+            } while (count == blockSize && failure == null && !closed);
+            put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(Block block) throws InterruptedException {
+        if (!queue.offer(block)) {
+            long start = System.nanoTime();
+            queue.put(block);
+            parseBlockedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        RowView row = nextView();
+        return row != null ? row.toArray() : null;
+    }
+
+    @Override
+    public RowView nextView() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current == null || index >= current.count()) {
+            current = take();
+            index = 0;
+            if (current == END) {
+                finished = true;
+                rethrowFailure();
+                return null;
+            }
+        }
+        rowNumber = current.rowNumbers()[index];
+        return current.rows()[index++];
+    }
+
+    private Block take() throws IOException {
+        Block block = queue.poll();
+        if (block != null) {
+            return block;
+        }
+        long start = System.nanoTime();
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parsed rows");
+        } finally {
+            readStarvedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable t = failure;
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException e) {
+            throw e;
+        }
+        if (t instanceof UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (t instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new IOException("Row parsing failed: " + t.getMessage(), t);
+    }
+
+    @Override
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Arrête le parsing en cours (lecture interrompue avant la fin) puis ferme la source
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        producer.interrupt();
+        queue.clear();
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    private record Block(RowView[] rows, long[] rowNumbers, int count) {
+    }
+}
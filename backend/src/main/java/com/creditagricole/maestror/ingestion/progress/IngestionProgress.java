@@ -0,0 +1,92 @@
+package com.creditagricole.maestror.ingestion.progress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avancement d'un fichier en cours de traitement.
+ * <p>
+ * Les compteurs sont incrémentés par toutes les partitions en parallèle ; LongAdder répartit
+ * les écritures par thread pour éviter la contention d'un compteur atomique unique.
+ * Le débit et l'estimation de fin ne tiennent compte que des lignes de l'exécution en cours.
+ */
+public class IngestionProgress {
+
+    private final Long fileId;
+    private final long estimatedRows;
+    private final long initialRows;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param estimatedRows nombre de lignes attendu, -1 si inconnu
+     * @param processed     lignes déjà chargées par une exécution précédente (reprise)
+     * @param failed        lignes déjà écartées par une exécution précédente (reprise)
+     */
+    public IngestionProgress(Long fileId, long estimatedRows, long processed, long failed) {
+        this.fileId = fileId;
+        this.estimatedRows = estimatedRows;
+        this.initialRows = processed + failed;
+        this.processed.add(processed);
+        this.failed.add(failed);
+    }
+
+    public void addProcessed(long rows) {
+        processed.add(rows);
+    }
+
+    public void addFailed(long rows) {
+        failed.add(rows);
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Nombre de lignes attendu, jamais inférieur au nombre de lignes déjà traitées ; -1 si inconnu
+     */
+    public long getEstimatedRows() {
+        return estimatedRows < 0 ? -1 : Math.max(estimatedRows, getProcessed() + getFailed());
+    }
+
+    public double getRowsPerSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (getProcessed() + getFailed() - initialRows) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Pourcentage traité (0 à 100), null si le nombre de lignes attendu est inconnu
+     */
+    public Double getPercentComplete() {
+        long total = getEstimatedRows();
+        if (total < 0) {
+            return null;
+        }
+        return total == 0 ? 100.0 : Math.min(100.0, 100.0 * (getProcessed() + getFailed()) / total);
+    }
+
+    /**
+     * Secondes restantes au débit actuel, null tant qu'elles ne peuvent pas être estimées
+     */
+    public Long getEtaSeconds() {
+        long total = getEstimatedRows();
+        double rate = getRowsPerSecond();
+        if (total < 0 || rate <= 0) {
+            return null;
+        }
+        return Math.round((total - getProcessed() - getFailed()) / rate);
+    }
+}
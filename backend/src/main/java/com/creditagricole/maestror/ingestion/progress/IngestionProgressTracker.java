@@ -0,0 +1,139 @@
+package com.creditagricole.maestror.ingestion.progress;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.reader.XlsxStreamingReader;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.storage.ContentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre en mémoire de l'avancement des fichiers en cours de traitement.
+ * Les compteurs sont recopiés périodiquement dans FILE_STORAGE, pour que l'historique
+ * et le statut reflètent l'avancement sans écriture en base à chaque ligne.
+ */
+@Component
+@Slf4j
+public class IngestionProgressTracker {
+
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    private final FileStorageRepository fileStorageRepository;
+    private final ContentStore contentStore;
+    private final Map<Long, IngestionProgress> running = new ConcurrentHashMap<>();
+
+    public IngestionProgressTracker(FileStorageRepository fileStorageRepository, ContentStore contentStore) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.contentStore = contentStore;
+    }
+
+    /**
+     * Démarre le suivi d'un fichier ; les compteurs repartent de ceux déjà enregistrés (reprise).
+     * Une feuille dont le classeur est suivi est rattachée à l'avancement du classeur.
+     */
+    public IngestionProgress start(FileStorage fileStorage) {
+        IngestionProgress progress = new IngestionProgress(fileStorage.getId(), estimateRows(fileStorage),
+                counter(fileStorage.getProcessedRecords()), counter(fileStorage.getFailedRecords()));
+        running.put(fileStorage.getId(), progress);
+        if (fileStorage.getParentFileId() != null
+                && running.get(fileStorage.getParentFileId()) instanceof WorkbookProgress workbook) {
+            workbook.addSheet(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Démarre le suivi d'un classeur, à appeler avant le traitement de ses feuilles :
+     * ses compteurs sont la somme de ceux des feuilles, les feuilles déjà terminées comptant pour leurs
+     * compteurs enregistrés
+     */
+    public IngestionProgress startWorkbook(FileStorage workbook, List<FileStorage> sheets) {
+        long estimated = 0;
+        long processed = 0;
+        long failed = 0;
+        for (FileStorage sheet : sheets) {
+            long rows = estimateRows(sheet);
+            estimated = estimated < 0 || rows < 0 ? -1 : estimated + rows;
+            if ("COMPLETED".equals(sheet.getStatus())) {
+                processed += counter(sheet.getProcessedRecords());
+                failed += counter(sheet.getFailedRecords());
+            }
+        }
+        IngestionProgress progress = new WorkbookProgress(workbook.getId(), estimated, processed, failed);
+        running.put(workbook.getId(), progress);
+        return progress;
+    }
+
+    public Optional<IngestionProgress> get(Long fileId) {
+        return Optional.ofNullable(running.get(fileId));
+    }
+
+    public void finish(Long fileId) {
+        running.remove(fileId);
+    }
+
+    @Scheduled(fixedDelayString = "${maestror.ingestion.progress.checkpoint-interval:PT5S}")
+    public void checkpoint() {
+        for (IngestionProgress progress : running.values()) {
+            try {
+                fileStorageRepository.updateProgress(progress.getFileId(),
+                        (int) progress.getProcessed(), (int) progress.getFailed());
+            } catch (RuntimeException e) {
+                log.warn("Unable to checkpoint progress of file {}: {}", progress.getFileId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Nombre de lignes de données attendu : dimension déclarée de la feuille pour les XLSX,
+     * extrapolation depuis les premiers 64 Ko pour les CSV ; -1 si inconnu
+     */
+    long estimateRows(FileStorage fileStorage) {
+        long header = "TEST".equals(fileStorage.getCategory()) ? 0 : 1;
+        try {
+            long rows = switch (fileStorage.getFileType()) {
+                case "EXCEL" -> XlsxStreamingReader.declaredRowCount(contentStore.localFile(fileStorage.getContentRef()),
+                        fileStorage.getSheetName());
+                case "CSV" -> estimateCsvRows(fileStorage);
+                default -> -1;
+            };
+            return rows < 0 ? -1 : Math.max(0, rows - header);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to estimate row count of file {}: {}", fileStorage.getId(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private long estimateCsvRows(FileStorage fileStorage) throws IOException {
+        long size = fileStorage.getFileSize();
+        byte[] sample;
+        try (InputStream in = contentStore.openRange(fileStorage.getContentRef(), 0, Math.min(size, SAMPLE_SIZE))) {
+            sample = in.readAllBytes();
+        }
+        long lines = 0;
+        int lineBytes = 0;
+        for (int i = 0; i < sample.length; i++) {
+            if (sample[i] == '\n') {
+                lines++;
+                lineBytes = i + 1;
+            }
+        }
+        if (sample.length >= size) {
+            return lineBytes < sample.length ? lines + 1 : lines;
+        }
+        // Extrapolation sur les lignes complètes de l'échantillon
+        return lines == 0 ? -1 : size * lines / lineBytes;
+    }
+
+    private static long counter(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.creditagricole.maestror.ingestion.progress;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Avancement d'un classeur WORKBOOK : somme de l'avancement de ses feuilles.
+ * <p>
+ * Les feuilles déjà terminées lors d'un traitement précédent forment les compteurs initiaux ;
+ * chaque feuille traitée est rattachée au démarrage de son suivi et conserve ses compteurs une fois terminée.
+ */
+class WorkbookProgress extends IngestionProgress {
+
+    private final List<IngestionProgress> sheets = new CopyOnWriteArrayList<>();
+
+    WorkbookProgress(Long fileId, long estimatedRows, long processed, long failed) {
+        super(fileId, estimatedRows, processed, failed);
+    }
+
+    void addSheet(IngestionProgress sheet) {
+        sheets.add(sheet);
+    }
+
+    @Override
+    public long getProcessed() {
+        return super.getProcessed() + sheets.stream().mapToLong(IngestionProgress::getProcessed).sum();
+    }
+
+    @Override
+    public long getFailed() {
+        return super.getFailed() + sheets.stream().mapToLong(IngestionProgress::getFailed).sum();
+    }
+}
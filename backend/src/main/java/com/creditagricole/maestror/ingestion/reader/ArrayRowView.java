@@ -0,0 +1,61 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Adaptateur d'une ligne String[] vers {@link RowView}, pour les sources qui ne lisent pas les octets eux-mêmes
+ */
+final class ArrayRowView implements RowView {
+
+    private final String[] values;
+
+    ArrayRowView(String[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int fieldCount() {
+        return values.length;
+    }
+
+    @Override
+    public String string(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean isEmpty(int index) {
+        return values[index].isEmpty();
+    }
+
+    @Override
+    public boolean isBlank(int index) {
+        return values[index].isBlank();
+    }
+
+    @Override
+    public long parseLong(int index) {
+        return Long.parseLong(values[index]);
+    }
+
+    @Override
+    public BigDecimal parseDecimal(int index) {
+        return new BigDecimal(values[index]);
+    }
+
+    @Override
+    public LocalDate parseIsoDate(int index) {
+        return LocalDate.parse(values[index]);
+    }
+
+    @Override
+    public RowView detach() {
+        return this;
+    }
+
+    @Override
+    public String[] toArray() {
+        return values;
+    }
+}
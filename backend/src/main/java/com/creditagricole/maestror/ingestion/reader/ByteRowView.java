@@ -0,0 +1,232 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Ligne CSV conservée sous forme d'octets UTF-8 avec les bornes de ses champs.
+ * <p>
+ * Les entiers, décimaux sans exposant et dates yyyy-MM-dd sont convertis directement depuis les octets ;
+ * les autres écritures (champ entre guillemets, exposant, plus de 18 chiffres...) sont décodées
+ * puis confiées au parseur String correspondant, qui en fixe le résultat ou l'erreur.
+ */
+final class ByteRowView implements RowView {
+
+    private static final byte QUOTE = '"';
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private byte[] bytes;
+    private int[] starts;
+    private int[] ends;
+    private boolean[] quoted;
+    private int count;
+    // Copie détachée : plus jamais rechargée par la source
+    private final boolean detached;
+
+    ByteRowView() {
+        this(new byte[1024], new int[32], new int[32], new boolean[32], 0, false);
+    }
+
+    private ByteRowView(byte[] bytes, int[] starts, int[] ends, boolean[] quoted, int count, boolean detached) {
+        this.bytes = bytes;
+        this.starts = starts;
+        this.ends = ends;
+        this.quoted = quoted;
+        this.count = count;
+        this.detached = detached;
+    }
+
+    /**
+     * Enregistre les bornes du champ index, relatives au début de la ligne
+     */
+    void setField(int index, int start, int end, boolean isQuoted) {
+        if (index == starts.length) {
+            starts = Arrays.copyOf(starts, index * 2);
+            ends = Arrays.copyOf(ends, index * 2);
+            quoted = Arrays.copyOf(quoted, index * 2);
+        }
+        starts[index] = start;
+        ends[index] = end;
+        quoted[index] = isQuoted;
+    }
+
+    /**
+     * Copie les octets de la ligne depuis la fenêtre, une fois ses count champs repérés
+     */
+    void load(ByteBuffer window, int lineStart, int fieldCount) {
+        int length = fieldCount > 0 ? ends[fieldCount - 1] : 0;
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        window.get(lineStart, bytes, 0, length);
+        count = fieldCount;
+    }
+
+    @Override
+    public int fieldCount() {
+        return count;
+    }
+
+    @Override
+    public String string(int index) {
+        checkIndex(index);
+        if (quoted[index]) {
+            return unquote(starts[index], ends[index]);
+        }
+        int length = ends[index] - starts[index];
+        return length == 0 ? "" : new String(bytes, starts[index], length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+        return quoted[index] ? string(index).isEmpty() : ends[index] == starts[index];
+    }
+
+    @Override
+    public boolean isBlank(int index) {
+        checkIndex(index);
+        if (quoted[index]) {
+            return string(index).isBlank();
+        }
+        for (int i = starts[index]; i < ends[index]; i++) {
+            if (bytes[i] < 0) {
+                // Caractère non ASCII : les espaces Unicode sont laissés à String.isBlank
+                return string(index).isBlank();
+            }
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long parseLong(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        int i = start < end && (bytes[start] == '-' || bytes[start] == '+') ? start + 1 : start;
+        if (!quoted[index] && i < end && end - i <= MAX_FAST_DIGITS) {
+            long value = 0;
+            for (; i < end && isDigit(bytes[i]); i++) {
+                value = value * 10 + (bytes[i] - '0');
+            }
+            if (i == end) {
+                return bytes[start] == '-' ? -value : value;
+            }
+        }
+        return Long.parseLong(string(index));
+    }
+
+    @Override
+    public BigDecimal parseDecimal(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        int i = start < end && (bytes[start] == '-' || bytes[start] == '+') ? start + 1 : start;
+        if (!quoted[index] && i < end) {
+            long unscaled = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < end && digits <= MAX_FAST_DIGITS; i++) {
+                byte b = bytes[i];
+                if (isDigit(b)) {
+                    unscaled = unscaled * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0 && digits > 0) {
+                    scale = 0;
+                } else {
+                    break;
+                }
+            }
+            if (i == end && digits <= MAX_FAST_DIGITS && scale != 0) {
+                return BigDecimal.valueOf(bytes[start] == '-' ? -unscaled : unscaled, Math.max(scale, 0));
+            }
+        }
+        return new BigDecimal(string(index));
+    }
+
+    @Override
+    public LocalDate parseIsoDate(int index) {
+        checkIndex(index);
+        int s = starts[index];
+        if (!quoted[index] && ends[index] - s == 10 && bytes[s + 4] == '-' && bytes[s + 7] == '-') {
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException e) {
+                    // Date inexistante : l'erreur est celle de LocalDate.parse
+                }
+            }
+        }
+        return LocalDate.parse(string(index));
+    }
+
+    @Override
+    public RowView detach() {
+        if (detached) {
+            return this;
+        }
+        int length = count > 0 ? ends[count - 1] : 0;
+        return new ByteRowView(Arrays.copyOf(bytes, length), Arrays.copyOf(starts, count),
+                Arrays.copyOf(ends, count), Arrays.copyOf(quoted, count), count, true);
+    }
+
+    /**
+     * Valeur des length chiffres commençant à start, -1 si l'un d'eux n'est pas un chiffre
+     */
+    private int digits(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            if (!isDigit(bytes[i])) {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private void checkIndex(int index) {
+        if (index >= count) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+    }
+
+    /**
+     * Retire les guillemets d'encadrement et dédouble les guillemets internes
+     */
+    private String unquote(int start, int end) {
+        byte[] unquoted = new byte[end - start];
+        int length = 0;
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b == QUOTE) {
+                if (inQuotes && i + 1 < end && bytes[i + 1] == QUOTE) {
+                    unquoted[length++] = QUOTE;
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                unquoted[length++] = b;
+            }
+        }
+        return new String(unquoted, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+/**
+ * Moteur de lecture des fichiers CSV (maestror.ingestion.csv.engine)
+ */
+public enum CsvEngine {
+
+    /**
+     * OpenCSV sur un flux de caractères ; la barre oblique inverse échappe le caractère suivant entre guillemets
+     */
+    OPENCSV,
+
+    /**
+     * Découpage au niveau octet sur le fichier projeté en mémoire, règles RFC 4180 ({@link MappedCsvRowSource})
+     */
+    MAPPED;
+
+    public boolean backslashEscapes() {
+        return this == OPENCSV;
+    }
+}
@@ -0,0 +1,45 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture CSV ligne à ligne avec OpenCSV (readNext), sans jamais charger le fichier entier
+ */
+public class CsvRowSource implements RowSource {
+
+    private final CSVReader reader;
+    private long rowNumber = -1;
+
+    public CsvRowSource(InputStream inputStream) {
+        this.reader = new CSVReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        try {
+            String[] row = reader.readNext();
+            if (row != null) {
+                rowNumber++;
+            }
+            return row;
+        } catch (CsvValidationException e) {
+            throw new IOException("Invalid CSV line " + (rowNumber + 2) + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
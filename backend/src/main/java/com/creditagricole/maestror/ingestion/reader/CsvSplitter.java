@@ -0,0 +1,75 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpe un contenu CSV en plages d'octets de tailles voisines, coupées sur des fins de ligne.
+ * Les retours à la ligne situés dans un champ entre guillemets ne sont pas des points de coupe.
+ * <p>
+ * Le contenu est parcouru une seule fois, par blocs lus depuis un canal.
+ */
+public final class CsvSplitter {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private CsvSplitter() {
+    }
+
+    public static List<FileSlice> split(byte[] content, int parts) throws IOException {
+        return split(Channels.newChannel(new ByteArrayInputStream(content)), content.length, parts);
+    }
+
+    public static List<FileSlice> split(ReadableByteChannel channel, long size, int parts) throws IOException {
+        return split(channel, size, parts, true);
+    }
+
+    /**
+     * @param backslashEscapes true si la barre oblique inverse échappe le caractère suivant entre guillemets (OpenCSV),
+     *                         false pour les règles RFC 4180 du moteur {@link CsvEngine#MAPPED}
+     */
+    public static List<FileSlice> split(ReadableByteChannel channel, long size, int parts,
+                                        boolean backslashEscapes) throws IOException {
+        List<FileSlice> slices = new ArrayList<>();
+        long start = 0;
+        long startRow = 0;
+        long row = 0;
+        long nextCut = parts > 1 ? size / parts : Long.MAX_VALUE;
+        boolean inQuotes = false;
+        boolean escaped = false;
+
+        ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        long position = 0;
+        while (channel.read(block) > 0) {
+            block.flip();
+            while (block.hasRemaining()) {
+                byte b = block.get();
+                position++;
+                if (escaped) {
+                    // Caractère d'échappement OpenCSV : l'octet suivant fait partie du champ
+                    escaped = false;
+                } else if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\\' && inQuotes && backslashEscapes) {
+                    escaped = true;
+                } else if (b == '\n' && !inQuotes) {
+                    row++;
+                    if (position >= nextCut && position < size && slices.size() < parts - 1) {
+                        slices.add(new FileSlice(startRow, Long.MAX_VALUE, start, position));
+                        start = position;
+                        startRow = row;
+                        nextCut = size * (slices.size() + 1) / parts;
+                    }
+                }
+            }
+            block.clear();
+        }
+        slices.add(new FileSlice(startRow, Long.MAX_VALUE, start, size));
+        return slices;
+    }
+}
@@ -0,0 +1,206 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Table des chaînes partagées (sharedStrings.xml) stockée sur disque plutôt qu'en mémoire.
+ * <p>
+ * Les chaînes sont écrites en UTF-8 dans un fichier temporaire à la suite les unes des autres ;
+ * un second fichier contient la position de début de chacune. Une chaîne est relue par accès positionnel
+ * à la demande, derrière un cache LRU des chaînes les plus récemment utilisées.
+ * <p>
+ * Comme {@link org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable}, le texte d'une entrée
+ * est la concaténation de tous ses éléments &lt;t&gt; (texte enrichi et phonétique compris).
+ */
+public final class DiskSharedStrings implements SharedStrings, Closeable {
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final int count;
+    private final int uniqueCount;
+    private final int entries;
+    private final Map<Integer, RichTextString> cache;
+    private final ByteBuffer bounds = ByteBuffer.allocate(2 * Long.BYTES);
+
+    private DiskSharedStrings(Path dataFile, Path indexFile, int count, int uniqueCount, int cacheSize) throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.data = FileChannel.open(dataFile, StandardOpenOption.READ);
+        try {
+            this.index = FileChannel.open(indexFile, StandardOpenOption.READ);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        this.count = count;
+        this.uniqueCount = uniqueCount;
+        this.entries = (int) (index.size() / Long.BYTES - 1);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RichTextString> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Recopie le contenu de sharedStrings.xml dans les fichiers temporaires, sans le conserver en mémoire
+     *
+     * @param cacheSize nombre de chaînes gardées en mémoire (0 = aucune)
+     */
+    public static DiskSharedStrings load(InputStream sharedStringsXml, int cacheSize) throws IOException {
+        Path dataFile = Files.createTempFile("maestror-sst-", ".dat");
+        Path indexFile = null;
+        try {
+            indexFile = Files.createTempFile("maestror-sst-", ".idx");
+            int[] counts = spool(sharedStringsXml, dataFile, indexFile);
+            return new DiskSharedStrings(dataFile, indexFile, counts[0], counts[1], cacheSize);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(dataFile);
+            if (indexFile != null) {
+                Files.deleteIfExists(indexFile);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return les attributs count et uniqueCount de &lt;sst&gt; (nombre d'entrées lues à défaut)
+     */
+    private static int[] spool(InputStream xmlStream, Path dataFile, Path indexFile) throws IOException {
+        try (OutputStream data = new BufferedOutputStream(Files.newOutputStream(dataFile));
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(xmlStream);
+            StringBuilder text = new StringBuilder();
+            long offset = 0;
+            int entries = 0;
+            int count = -1;
+            int uniqueCount = -1;
+            boolean inEntry = false;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "sst" -> {
+                            count = intAttribute(xml, "count");
+                            uniqueCount = intAttribute(xml, "uniqueCount");
+                        }
+                        case "si" -> {
+                            inEntry = true;
+                            text.setLength(0);
+                        }
+                        case "t" -> {
+                            if (inEntry) {
+                                text.append(xml.getElementText());
+                            }
+                        }
+                        default -> {
+                            // rPr, rPh... : seul le texte des éléments <t> est conservé
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "si".equals(xml.getLocalName())) {
+                    inEntry = false;
+                    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                    index.writeLong(offset);
+                    data.write(bytes);
+                    offset += bytes.length;
+                    entries++;
+                }
+            }
+            index.writeLong(offset);
+            xml.close();
+            return new int[]{count >= 0 ? count : entries, uniqueCount >= 0 ? uniqueCount : entries};
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to read shared strings: " + e.getMessage(), e);
+        }
+    }
+
+    private static int intAttribute(XMLStreamReader xml, String name) {
+        String value = xml.getAttributeValue(null, name);
+        return value != null ? Integer.parseInt(value) : -1;
+    }
+
+    @Override
+    public synchronized RichTextString getItemAt(int idx) {
+        RichTextString cached = cache.get(idx);
+        if (cached != null) {
+            return cached;
+        }
+        RichTextString item = new XSSFRichTextString(read(idx));
+        cache.put(idx, item);
+        return item;
+    }
+
+    private String read(int idx) {
+        Objects.checkIndex(idx, entries);
+        try {
+            bounds.clear();
+            readFully(index, bounds, (long) idx * Long.BYTES);
+            long start = bounds.getLong(0);
+            long end = bounds.getLong(Long.BYTES);
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            readFully(data, bytes, start);
+            return new String(bytes.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read shared string " + idx, e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of shared strings file");
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        try {
+            data.close();
+            index.close();
+        } finally {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+}
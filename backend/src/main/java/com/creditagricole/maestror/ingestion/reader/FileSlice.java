@@ -0,0 +1,25 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+/**
+ * Portion d'un fichier à lire : plage de lignes [firstRow, lastRow[ et, pour les CSV découpés,
+ * plage d'octets [startOffset, endOffset[ commençant en début de ligne
+ */
+public record FileSlice(long firstRow, long lastRow, long startOffset, long endOffset) {
+
+    public static final FileSlice WHOLE_FILE = new FileSlice(0, Long.MAX_VALUE, -1, -1);
+
+    public static FileSlice rows(long firstRow, long lastRow) {
+        return new FileSlice(firstRow, lastRow, -1, -1);
+    }
+
+    public boolean isByteRange() {
+        return startOffset >= 0;
+    }
+
+    /**
+     * La première portion contient la ligne d'en-tête
+     */
+    public boolean includesHeader() {
+        return firstRow == 0;
+    }
+}
@@ -0,0 +1,166 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecture CSV au niveau octet sur le fichier projeté en mémoire (FileChannel.map), sans InputStreamReader
+ * ni tampon de caractères : les séparateurs sont repérés directement dans les octets.
+ * <p>
+ * Chaque ligne est exposée par une vue réutilisée ({@link #nextView()}) : les colonnes typées sont converties
+ * depuis les octets sans créer de chaîne, seuls les champs texte lus sont décodés en UTF-8.
+ * {@link #nextRow()} reste disponible et décode tous les champs.
+ * <p>
+ * Règles RFC 4180 : champs entre guillemets, guillemet doublé à l'intérieur, retours à la ligne autorisés
+ * dans un champ entre guillemets, fins de ligne LF ou CRLF. La barre oblique inverse n'est pas un caractère
+ * d'échappement (contrairement à OpenCSV). Un BOM UTF-8 en tête de fichier est ignoré.
+ * <p>
+ * Le fichier est projeté par fenêtres successives ; une ligne à cheval sur deux fenêtres est relue
+ * depuis son début dans la fenêtre suivante.
+ */
+public class MappedCsvRowSource implements RowSource {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final FileChannel channel;
+    private final long end;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private long position;
+    private long rowNumber = -1;
+
+    // Octets et bornes des champs de la ligne courante, réutilisés d'une ligne à l'autre
+    private final ByteRowView view = new ByteRowView();
+
+    public MappedCsvRowSource(Path file) throws IOException {
+        this(file, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Plage d'octets [start, start + length[ du fichier, commençant sur un début de ligne
+     */
+    public MappedCsvRowSource(Path file, long start, long length) throws IOException {
+        this(file, start, length, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedCsvRowSource(Path file, long start, long length, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        this.end = length >= size - start ? size : start + length;
+        this.windowSize = windowSize;
+        this.position = start;
+        if (start == 0 && end >= 3) {
+            map(0);
+            if (window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        RowView row = nextView();
+        return row != null ? row.toArray() : null;
+    }
+
+    /**
+     * Ligne suivante, valide jusqu'à la lecture suivante
+     */
+    @Override
+    public RowView nextView() throws IOException {
+        if (position >= end) {
+            return null;
+        }
+        if (window == null || position < windowStart || position >= windowStart + windowLimit) {
+            map(position);
+        }
+        int count;
+        while ((count = tokenize()) < 0) {
+            if (position == windowStart) {
+                throw new IOException("Invalid CSV line " + (rowNumber + 2) + ": row exceeds " + windowSize + " bytes");
+            }
+            map(position);
+        }
+        rowNumber++;
+        return view;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        windowLimit = (int) Math.min(windowSize, end - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLimit);
+    }
+
+    /**
+     * Repère les champs de la ligne commençant à position et la recopie dans la vue.
+     *
+     * @return nombre de champs, ou -1 si la ligne se poursuit au-delà de la fenêtre courante
+     */
+    private int tokenize() throws IOException {
+        int limit = windowLimit;
+        boolean lastWindow = windowStart + limit >= end;
+        int i = (int) (position - windowStart);
+        int lineStart = i;
+        int fieldStart = i;
+        int count = 0;
+        boolean inQuotes = false;
+        boolean quoted = false;
+
+        while (i < limit) {
+            byte b = window.get(i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+                quoted = true;
+            } else if (!inQuotes) {
+                if (b == COMMA) {
+                    view.setField(count++, fieldStart - lineStart, i - lineStart, quoted);
+                    fieldStart = i + 1;
+                    quoted = false;
+                } else if (b == LF) {
+                    view.setField(count++, fieldStart - lineStart, stripCr(fieldStart, i) - lineStart, quoted);
+                    view.load(window, lineStart, count);
+                    position = windowStart + i + 1;
+                    return count;
+                }
+            }
+            i++;
+        }
+
+        if (!lastWindow) {
+            return -1;
+        }
+        if (inQuotes) {
+            throw new IOException("Invalid CSV line " + (rowNumber + 2) + ": unterminated quoted field");
+        }
+        view.setField(count++, fieldStart - lineStart, stripCr(fieldStart, limit) - lineStart, quoted);
+        view.load(window, lineStart, count);
+        position = end;
+        return count;
+    }
+
+    private int stripCr(int fieldStart, int lineEnd) {
+        return lineEnd > fieldStart && window.get(lineEnd - 1) == CR ? lineEnd - 1 : lineEnd;
+    }
+
+    @Override
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
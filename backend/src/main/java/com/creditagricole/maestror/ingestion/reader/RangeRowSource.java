@@ -0,0 +1,56 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.io.IOException;
+
+/**
+ * Restreint une source aux lignes [firstRow, lastRow[.
+ * Les numéros de ligne de la source sont décalés de rowOffset lorsqu'elle ne démarre pas
+ * au début du fichier (plage d'octets CSV).
+ */
+public class RangeRowSource implements RowSource {
+
+    private final RowSource delegate;
+    private final long rowOffset;
+    private final long firstRow;
+    private final long lastRow;
+    private boolean finished;
+
+    public RangeRowSource(RowSource delegate, long rowOffset, long firstRow, long lastRow) {
+        this.delegate = delegate;
+        this.rowOffset = rowOffset;
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        RowView row = nextView();
+        return row != null ? row.toArray() : null;
+    }
+
+    @Override
+    public RowView nextView() throws IOException {
+        if (finished) {
+            return null;
+        }
+        RowView row;
+        do {
+            row = delegate.nextView();
+        } while (row != null && getRowNumber() < firstRow);
+        if (row == null || getRowNumber() >= lastRow) {
+            finished = true;
+            return null;
+        }
+        return row;
+    }
+
+    @Override
+    public long getRowNumber() {
+        return delegate.getRowNumber() + rowOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source de lignes lue au fil de l'eau : une seule ligne est matérialisée à la fois,
+ * les traitements par catégorie peuvent persister pendant que la lecture se poursuit.
+ */
+public interface RowSource extends Closeable {
+
+    /**
+     * Retourne la ligne suivante, ou null en fin de fichier
+     */
+    String[] nextRow() throws IOException;
+
+    /**
+     * Retourne la ligne suivante sous forme de vue, ou null en fin de fichier.
+     * La vue peut être réutilisée par la lecture suivante (voir {@link RowView#detach()}) ;
+     * par défaut, elle enveloppe le tableau renvoyé par {@link #nextRow()}.
+     */
+    default RowView nextView() throws IOException {
+        String[] row = nextRow();
+        return row != null ? RowView.of(row) : null;
+    }
+
+    /**
+     * Numéro (base 0) de la dernière ligne retournée, -1 avant la première lecture
+     */
+    long getRowNumber();
+
+    /**
+     * Source sur des lignes déjà chargées en mémoire (mode DOM Excel, tests)
+     */
+    static RowSource of(List<String[]> rows) {
+        return new RowSource() {
+            private int index = -1;
+
+            @Override
+            public String[] nextRow() {
+                if (index + 1 >= rows.size()) {
+                    return null;
+                }
+                return rows.get(++index);
+            }
+
+            @Override
+            public long getRowNumber() {
+                return index;
+            }
+
+            @Override
+            public void close() {
+                // rien à libérer
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.pipeline.IngestionPipeline;
+import com.creditagricole.maestror.storage.ContentStore;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ouvre la source de lignes adaptée au type d'un fichier uploadé, en lisant son contenu
+ * depuis le {@link ContentStore}. Le parsing CSV est exécuté en avance par l'{@link IngestionPipeline} ;
+ * la lecture Excel en flux dispose déjà de son propre thread de parsing.
+ */
+@Component
+public class RowSourceFactory {
+
+    private final ContentStore contentStore;
+    private final IngestionPipeline pipeline;
+
+    @Value("${maestror.ingestion.excel.streaming:true}")
+    private boolean excelStreaming;
+
+    @Value("${maestror.ingestion.excel.shared-strings.disk-threshold:16MB}")
+    private DataSize sharedStringsDiskThreshold;
+
+    @Value("${maestror.ingestion.excel.shared-strings.cache-size:10000}")
+    private int sharedStringsCacheSize;
+
+    @Value("${maestror.ingestion.csv.engine:OPENCSV}")
+    private CsvEngine csvEngine;
+
+    public RowSourceFactory(ContentStore contentStore, IngestionPipeline pipeline) {
+        this.contentStore = contentStore;
+        this.pipeline = pipeline;
+    }
+
+    public RowSource open(FileStorage fileStorage) throws IOException {
+        if ("CSV".equals(fileStorage.getFileType())) {
+            return pipeline.parse(openCsv(fileStorage.getContentRef(), 0, Long.MAX_VALUE), fileStorage.getCategory());
+        } else if ("EXCEL".equals(fileStorage.getFileType())) {
+            return openExcel(fileStorage.getContentRef(), fileStorage.getSheetName());
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + fileStorage.getFileType());
+    }
+
+    /**
+     * Ouvre une portion du fichier. Une plage d'octets CSV est lue directement depuis son début ;
+     * sinon le fichier est lu depuis le début et les lignes hors plage sont ignorées.
+     */
+    public RowSource open(FileStorage fileStorage, FileSlice slice) throws IOException {
+        if (FileSlice.WHOLE_FILE.equals(slice)) {
+            return open(fileStorage);
+        }
+        if (slice.isByteRange() && "CSV".equals(fileStorage.getFileType())) {
+            RowSource range = openCsv(fileStorage.getContentRef(), slice.startOffset(), slice.endOffset() - slice.startOffset());
+            return new RangeRowSource(pipeline.parse(range, fileStorage.getCategory()), slice.firstRow(), 0, slice.lastRow());
+        }
+        return new RangeRowSource(open(fileStorage), 0, slice.firstRow(), slice.lastRow());
+    }
+
+    /**
+     * Moteur OpenCSV (par défaut) sur un flux, ou découpage octet par octet du fichier projeté en mémoire
+     */
+    private RowSource openCsv(String contentRef, long offset, long length) throws IOException {
+        if (csvEngine == CsvEngine.MAPPED) {
+            return new MappedCsvRowSource(contentStore.localFile(contentRef), offset, length);
+        }
+        if (offset == 0 && length == Long.MAX_VALUE) {
+            return new CsvRowSource(contentStore.openStream(contentRef));
+        }
+        return new CsvRowSource(contentStore.openRange(contentRef, offset, length));
+    }
+
+    /**
+     * Mode streaming (par défaut) : les lignes sont lues via le modèle évènementiel POI, la table des chaînes
+     * partagées passant sur disque au-delà du seuil configuré. Le mode DOM reste disponible via la configuration.
+     */
+    private RowSource openExcel(String contentRef, String sheetName) throws IOException {
+        if (excelStreaming) {
+            return XlsxStreamingReader.open(contentStore.localFile(contentRef), sheetName,
+                    new SharedStringsPolicy(sharedStringsDiskThreshold.toBytes(), sharedStringsCacheSize));
+        }
+        return RowSource.of(parseExcel(contentRef, sheetName));
+    }
+
+    private List<String[]> parseExcel(String contentRef, String sheetName) throws IOException {
+        List<String[]> records = new ArrayList<>();
+
+        try (InputStream content = contentStore.openStream(contentRef);
+             Workbook workbook = new XSSFWorkbook(content)) {
+            Sheet sheet = sheetName != null ? workbook.getSheet(sheetName) : workbook.getSheetAt(0);
+            if (sheet == null) {
+                throw new IOException("Sheet not found: " + sheetName);
+            }
+
+            for (Row row : sheet) {
+                List<String> values = new ArrayList<>();
+                for (Cell cell : row) {
+                    values.add(getCellValueAsString(cell));
+                }
+                records.add(values.toArray(new String[0]));
+            }
+        }
+
+        return records;
+    }
+
+    private String getCellValueAsString(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> {
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    yield cell.getLocalDateTimeCellValue().toLocalDate().toString();
+                } else {
+                    yield String.valueOf(cell.getNumericCellValue());
+                }
+            }
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            case FORMULA -> cell.getCellFormula();
+            default -> "";
+        };
+    }
+}
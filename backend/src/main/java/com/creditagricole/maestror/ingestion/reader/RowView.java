@@ -0,0 +1,55 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Accès aux champs d'une ligne sans matérialiser de tableau de chaînes : les colonnes typées
+ * (nombres, dates ISO) sont converties directement depuis les octets lus lorsque la source le permet.
+ * <p>
+ * Les conversions suivent la sémantique de leur équivalent sur String (Long.parseLong, new BigDecimal,
+ * LocalDate.parse) et lèvent les mêmes exceptions. Une vue renvoyée par {@link RowSource#nextView()}
+ * peut être réutilisée par la lecture suivante : {@link #detach()} en fait une copie indépendante.
+ */
+public interface RowView {
+
+    int fieldCount();
+
+    String string(int index);
+
+    boolean isEmpty(int index);
+
+    /**
+     * Champ vide ou composé uniquement d'espaces
+     */
+    boolean isBlank(int index);
+
+    long parseLong(int index);
+
+    BigDecimal parseDecimal(int index);
+
+    /**
+     * Date au format ISO (yyyy-MM-dd)
+     */
+    LocalDate parseIsoDate(int index);
+
+    /**
+     * Copie de la ligne qui reste valide après la lecture suivante
+     */
+    RowView detach();
+
+    default String[] toArray() {
+        String[] values = new String[fieldCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = string(i);
+        }
+        return values;
+    }
+
+    /**
+     * Vue sur une ligne déjà découpée en chaînes (sources OpenCSV, Excel, tests)
+     */
+    static RowView of(String[] values) {
+        return new ArrayRowView(values);
+    }
+}
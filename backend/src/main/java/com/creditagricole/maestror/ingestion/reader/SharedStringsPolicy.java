@@ -0,0 +1,37 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Choix du stockage de la table des chaînes partagées d'un classeur : en mémoire (ReadOnlySharedStringsTable)
+ * tant que sharedStrings.xml reste sous le seuil, sur disque avec cache LRU ({@link DiskSharedStrings}) au-delà.
+ *
+ * @param diskThreshold taille décompressée (octets) de sharedStrings.xml à partir de laquelle la table passe sur disque
+ * @param cacheSize     nombre de chaînes gardées en mémoire devant la table sur disque
+ */
+public record SharedStringsPolicy(long diskThreshold, int cacheSize) {
+
+    public static final SharedStringsPolicy IN_MEMORY = new SharedStringsPolicy(Long.MAX_VALUE, 0);
+
+    /**
+     * Charge la table du classeur ; une table sur disque doit être refermée pour supprimer ses fichiers temporaires
+     */
+    public SharedStrings load(OPCPackage opcPackage) throws IOException, SAXException {
+        List<PackagePart> parts = opcPackage.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty() || parts.get(0).getSize() < diskThreshold) {
+            return new ReadOnlySharedStringsTable(opcPackage);
+        }
+        try (InputStream xml = parts.get(0).getInputStream()) {
+            return DiskSharedStrings.load(xml, cacheSize);
+        }
+    }
+}
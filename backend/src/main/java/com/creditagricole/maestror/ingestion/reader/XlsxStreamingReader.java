@@ -0,0 +1,337 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Lecture en flux d'une feuille d'un classeur XLSX (la première par défaut) via le modèle évènementiel POI
+ * (XSSFReader + handler SAX). Les valeurs de formules sont lues depuis le cache du fichier.
+ * <p>
+ * L'analyse SAX tourne sur un thread dédié et dépose les lignes dans un tampon borné :
+ * le consommateur les lit une par une et la mémoire reste constante quelle que soit la taille de la feuille.
+ * La table des chaînes partagées est gardée en mémoire ou sur disque selon la {@link SharedStringsPolicy}.
+ */
+public class XlsxStreamingReader implements RowSource {
+
+    private static final int BUFFER_SIZE = 256;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final String[] END_OF_SHEET = new String[0];
+
+    private final OPCPackage opcPackage;
+    private final Path tempFile;
+    private final SharedStrings strings;
+    private final BlockingQueue<String[]> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+    private final Thread parserThread;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private boolean finished;
+    private long rowNumber = -1;
+
+    private XlsxStreamingReader(OPCPackage opcPackage, Path tempFile, String sheetName,
+                                SharedStringsPolicy policy) throws IOException {
+        this.opcPackage = opcPackage;
+        this.tempFile = tempFile;
+        SharedStrings sharedStrings = null;
+        try {
+            XSSFReader reader = new XSSFReader(opcPackage);
+            sharedStrings = policy.load(opcPackage);
+            SharedStrings strings = sharedStrings;
+            StylesTable styles = reader.getStylesTable();
+            InputStream sheet = sheetData(reader, sheetName);
+            this.strings = strings;
+            this.parserThread = new Thread(() -> parse(styles, strings, sheet), "xlsx-reader");
+            this.parserThread.setDaemon(true);
+            this.parserThread.start();
+        } catch (OpenXML4JException | SAXException e) {
+            release(sharedStrings);
+            opcPackage.revert();
+            throw new IOException("Unable to open workbook: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            release(sharedStrings);
+            opcPackage.revert();
+            throw e;
+        }
+    }
+
+    private static void release(SharedStrings strings) throws IOException {
+        if (strings instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Ouvre la première feuille d'un classeur stocké sur disque
+     */
+    public static XlsxStreamingReader open(Path xlsx) throws IOException {
+        return open(xlsx, null);
+    }
+
+    /**
+     * Ouvre une feuille d'un classeur stocké sur disque
+     *
+     * @param sheetName nom de la feuille, null pour la première
+     */
+    public static XlsxStreamingReader open(Path xlsx, String sheetName) throws IOException {
+        return open(xlsx, sheetName, SharedStringsPolicy.IN_MEMORY);
+    }
+
+    /**
+     * Ouvre une feuille d'un classeur stocké sur disque
+     *
+     * @param sheetName nom de la feuille, null pour la première
+     * @param policy    stockage de la table des chaînes partagées
+     */
+    public static XlsxStreamingReader open(Path xlsx, String sheetName, SharedStringsPolicy policy) throws IOException {
+        try {
+            return new XlsxStreamingReader(OPCPackage.open(xlsx.toFile(), PackageAccess.READ), null, sheetName, policy);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Invalid XLSX file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Noms des feuilles du classeur, dans l'ordre du fichier
+     */
+    public static List<String> sheetNames(Path xlsx) throws IOException {
+        OPCPackage opcPackage = null;
+        try {
+            opcPackage = OPCPackage.open(xlsx.toFile(), PackageAccess.READ);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(opcPackage).getSheetsData();
+            List<String> names = new ArrayList<>();
+            while (sheets.hasNext()) {
+                try (InputStream ignored = sheets.next()) {
+                    names.add(sheets.getSheetName());
+                }
+            }
+            return names;
+        } catch (OpenXML4JException e) {
+            throw new IOException("Unable to read XLSX sheets: " + e.getMessage(), e);
+        } finally {
+            if (opcPackage != null) {
+                opcPackage.revert();
+            }
+        }
+    }
+
+    /**
+     * Données de la feuille demandée (null = première feuille), les autres flux parcourus sont refermés
+     */
+    private static InputStream sheetData(XSSFReader reader, String sheetName) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            InputStream sheet = sheets.next();
+            if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+                return sheet;
+            }
+            sheet.close();
+        }
+        throw new IOException(sheetName == null ? "Workbook contains no sheet" : "Sheet not found: " + sheetName);
+    }
+
+    /**
+     * Ouvre un classeur déjà chargé en mémoire : il est recopié dans un fichier temporaire
+     * pour que POI puisse lire les entrées du zip sans les décompresser en mémoire.
+     */
+    public static XlsxStreamingReader open(byte[] content) throws IOException {
+        return open(content, SharedStringsPolicy.IN_MEMORY);
+    }
+
+    public static XlsxStreamingReader open(byte[] content, SharedStringsPolicy policy) throws IOException {
+        Path tmp = Files.createTempFile("maestror-", ".xlsx");
+        try {
+            Files.write(tmp, content);
+            return new XlsxStreamingReader(OPCPackage.open(tmp.toFile(), PackageAccess.READ), tmp, null, policy);
+        } catch (InvalidFormatException e) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("Invalid XLSX file: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    public static long declaredRowCount(Path xlsx) throws IOException {
+        return declaredRowCount(xlsx, null);
+    }
+
+    /**
+     * Nombre de lignes déclaré par la balise &lt;dimension&gt; d'une feuille (null = la première),
+     * lu sans analyser les données.
+     *
+     * @return le nombre de lignes, ou -1 si la feuille ne déclare pas sa dimension
+     */
+    public static long declaredRowCount(Path xlsx, String sheetName) throws IOException {
+        OPCPackage opcPackage = null;
+        try {
+            opcPackage = OPCPackage.open(xlsx.toFile(), PackageAccess.READ);
+            try (InputStream sheet = sheetData(new XSSFReader(opcPackage), sheetName)) {
+                XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheet);
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                        if ("dimension".equals(xml.getLocalName())) {
+                            return CellRangeAddress.valueOf(xml.getAttributeValue(null, "ref")).getLastRow() + 1L;
+                        }
+                        if ("sheetData".equals(xml.getLocalName())) {
+                            return -1;
+                        }
+                    }
+                }
+                return -1;
+            }
+        } catch (OpenXML4JException | XMLStreamException | IllegalArgumentException e) {
+            throw new IOException("Unable to read XLSX dimension: " + e.getMessage(), e);
+        } finally {
+            if (opcPackage != null) {
+                opcPackage.revert();
+            }
+        }
+    }
+
+    private void parse(StylesTable styles, SharedStrings strings, InputStream sheet) {
+        try (sheet) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, new RowCollector(), new IsoDateFormatter(), false));
+            parser.parse(new InputSource(sheet));
+        } catch (IOException | SAXException | ParserConfigurationException | RuntimeException e) {
+            if (!closed) {
+                failure = e;
+            }
+        } finally {
+            signalEndOfSheet();
+        }
+    }
+
+    private void signalEndOfSheet() {
+        if (closed) {
+            return;
+        }
+        try {
+            buffer.put(END_OF_SHEET);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        if (finished) {
+            return null;
+        }
+        try {
+            String[] row = buffer.take();
+            if (row == END_OF_SHEET) {
+                finished = true;
+                if (failure != null) {
+                    throw new IOException("Error reading XLSX sheet: " + failure.getMessage(), failure);
+                }
+                return null;
+            }
+            rowNumber++;
+            return row;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading XLSX sheet", e);
+        }
+    }
+
+    @Override
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        parserThread.interrupt();
+        try {
+            // Le thread de parsing peut encore lire la table : il doit être arrêté avant la suppression des fichiers
+            parserThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            release(strings);
+        } finally {
+            opcPackage.revert();
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Reconstitue chaque ligne en plaçant les cellules selon leur référence :
+     * les cellules absentes du XML deviennent des chaînes vides.
+     */
+    private class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final List<String> values = new ArrayList<>();
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : values.size();
+            while (values.size() < column) {
+                values.add("");
+            }
+            values.add(formattedValue != null ? formattedValue : "");
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                buffer.put(values.toArray(new String[0]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("XLSX reader closed", e);
+            }
+        }
+    }
+
+    /**
+     * Conserve le rendu historique de parseExcel : dates au format ISO, nombres bruts.
+     */
+    private static class IsoDateFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return String.valueOf(value);
+        }
+    }
+}
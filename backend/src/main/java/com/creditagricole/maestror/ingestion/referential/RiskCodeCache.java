@@ -0,0 +1,78 @@
+package com.creditagricole.maestror.ingestion.referential;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache des codes du référentiel des risques, pour rattacher incidents et contrôles sans requête par ligne.
+ * <p>
+ * La correspondance complète (risques inactifs compris) est chargée en une requête au premier besoin,
+ * puis partagée par tous les jobs jusqu'au prochain chargement de référentiel, qui l'invalide.
+ * Une invalidation pendant un chargement n'est pas perdue : le résultat, peut-être déjà périmé,
+ * sert la demande en cours mais n'est pas conservé.
+ */
+@Slf4j
+@Component
+public class RiskCodeCache {
+
+    static final String LOAD_SQL = "SELECT id, risk_code FROM operational_risk_referential";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Sérialise les chargements ; le moniteur de l'instance protège génération et correspondance installée
+    private final Object loadLock = new Object();
+    private long generation;
+    private volatile RiskCodeIndex index;
+
+    public RiskCodeCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Correspondance courante, chargée si le référentiel a changé depuis le dernier appel
+     */
+    public RiskCodeIndex snapshot() {
+        RiskCodeIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            long loadedGeneration;
+            synchronized (this) {
+                if (index != null) {
+                    return index;
+                }
+                loadedGeneration = generation;
+            }
+            Map<String, Long> ids = new HashMap<>();
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                ids.put(rs.getString("risk_code"), rs.getLong("id"));
+            });
+            RiskCodeIndex loaded = new RiskCodeIndex(ids);
+            install(loaded, loadedGeneration);
+            log.info("Risk code cache loaded: {} risk codes", loaded.size());
+            return loaded;
+        }
+    }
+
+    /**
+     * Conserve la correspondance chargée, sauf si une invalidation est survenue pendant la requête
+     */
+    private synchronized void install(RiskCodeIndex loaded, long loadedGeneration) {
+        if (generation == loadedGeneration) {
+            index = loaded;
+        }
+    }
+
+    /**
+     * À appeler après chaque chargement du référentiel : le prochain job relira les codes.
+     * N'attend pas la fin d'un chargement en cours, dont le résultat ne sera pas conservé.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        index = null;
+    }
+}
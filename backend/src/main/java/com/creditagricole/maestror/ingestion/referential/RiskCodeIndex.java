@@ -0,0 +1,43 @@
+package com.creditagricole.maestror.ingestion.referential;
+
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+
+import java.util.Map;
+
+/**
+ * Correspondance code risque → identifiant du référentiel, figée au moment de son chargement
+ * (voir {@link RiskCodeCache}). La résolution d'un code ne fait aucun accès à la base.
+ */
+public final class RiskCodeIndex {
+
+    public static final RiskCodeIndex EMPTY = new RiskCodeIndex(Map.of());
+
+    private final Map<String, Long> ids;
+
+    public RiskCodeIndex(Map<String, Long> ids) {
+        this.ids = Map.copyOf(ids);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Référence vers le risque du code : seul l'identifiant est renseigné, comme attendu par les INSERT
+     *
+     * @return null si le code est vide (ligne non rattachée)
+     * @throws IllegalArgumentException si le code est inconnu du référentiel
+     */
+    public OperationalRiskReferential reference(String riskCode) {
+        if (riskCode == null || riskCode.isBlank()) {
+            return null;
+        }
+        Long id = ids.get(riskCode.trim());
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown risk code: " + riskCode);
+        }
+        OperationalRiskReferential risk = new OperationalRiskReferential();
+        risk.setId(id);
+        return risk;
+    }
+}
@@ -0,0 +1,9 @@
+package com.creditagricole.maestror.ingestion.rejection;
+
+/**
+ * Ligne écartée en attente d'enregistrement
+ *
+ * @param rawValues valeurs de la ligne encodées en CSV, null si inconnues
+ */
+public record RejectedRow(Long rowNumber, String rawValues, String reason) {
+}
@@ -0,0 +1,71 @@
+package com.creditagricole.maestror.ingestion.rejection;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumule les lignes écartées d'un fichier et les enregistre par lots.
+ * Seules les premières lignes sont tracées dans les logs ; le détail complet
+ * est consultable via le fichier des rejets.
+ */
+@Slf4j
+public class RejectedRowBuffer {
+
+    private final RejectedRowStore store;
+    private final Long fileId;
+    private final int batchSize;
+    private final int logLimit;
+    private final List<RejectedRow> pending = new ArrayList<>();
+    private long rejectedCount;
+
+    RejectedRowBuffer(RejectedRowStore store, Long fileId, int batchSize, int logLimit) {
+        this.store = store;
+        this.fileId = fileId;
+        this.batchSize = batchSize;
+        this.logLimit = logLimit;
+    }
+
+    /**
+     * @param rowNumber numéro de la ligne, null si elle n'a pas pu être lue
+     * @param values    valeurs brutes (ou converties) de la ligne, null si inconnues
+     */
+    public void add(Long rowNumber, Object[] values, Throwable cause) {
+        String reason = RejectedRowStore.reasonOf(cause);
+        rejectedCount++;
+        if (rejectedCount <= logLimit) {
+            log.warn("File {}: row {} rejected: {}", fileId, rowNumber, reason);
+            if (rejectedCount == logLimit) {
+                log.warn("File {}: further rejected rows are not logged", fileId);
+            }
+        }
+        pending.add(new RejectedRow(rowNumber, RejectedRowStore.toCsv(values), reason));
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            store.insert(fileId, pending);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Abandonne les lignes non encore enregistrées (chunk annulé)
+     */
+    public void discard() {
+        rejectedCount -= pending.size();
+        pending.clear();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
@@ -0,0 +1,94 @@
+package com.creditagricole.maestror.ingestion.rejection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Enregistrement des lignes écartées dans FILE_REJECTED_ROW, par lots JDBC.
+ * Une ligne déjà enregistrée pour le fichier (reprise, retraitement) est ignorée.
+ */
+@Component
+@Slf4j
+public class RejectedRowStore {
+
+    private static final String INSERT_SQL = "INSERT INTO file_rejected_row (file_storage_id, row_number, raw_values, "
+            + "reason, rejected_at) VALUES (?, ?, ?, ?, ?) ON CONFLICT (file_storage_id, row_number) DO NOTHING";
+    private static final int MAX_REASON_LENGTH = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${maestror.ingestion.rejected.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${maestror.ingestion.rejected.log-limit:10}")
+    private int logLimit;
+
+    public RejectedRowStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Tampon d'écriture pour un fichier, à utiliser depuis un seul thread
+     */
+    public RejectedRowBuffer open(Long fileId) {
+        return new RejectedRowBuffer(this, fileId, batchSize, logLimit);
+    }
+
+    void insert(Long fileId, List<RejectedRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, fileId);
+            if (row.rowNumber() != null) {
+                ps.setLong(2, row.rowNumber());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, row.rawValues());
+            ps.setString(4, row.reason());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    /**
+     * Motif lisible d'un rejet, tronqué à la taille de la colonne
+     */
+    static String reasonOf(Throwable cause) {
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+
+    /**
+     * Encode des valeurs en une ligne CSV (RFC 4180), null = champ vide
+     */
+    public static String toCsv(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendCsvField(line, values[i] != null ? values[i].toString() : null);
+        }
+        return line.toString();
+    }
+
+    public static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+        } else {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.creditagricole.maestror.ingestion.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ordonnancement équitable des fichiers en attente de traitement, à deux niveaux.
+ * <p>
+ * Dès qu'un emplacement de l'exécuteur d'ingestion se libère, le déposant servi est choisi par tourniquet
+ * (stride scheduling) : le déposant le moins avancé est servi en premier, puis, parmi ses catégories,
+ * la moins avancée. Chaque fichier démarré fait avancer son déposant et sa catégorie d'un pas inversement
+ * proportionnel au poids de la catégorie (1 par défaut) : les référentiels coûtent moins que les chargements
+ * massifs, et la part d'un déposant ne grandit pas avec le nombre de catégories qu'il utilise.
+ * Un déposant ou une catégorie qui apparaît part du point atteint par les autres plutôt que de zéro :
+ * il n'accumule pas de crédit pendant son inactivité.
+ * <p>
+ * Un déposant ne peut occuper plus d'emplacements que sa limite, toutes catégories confondues : vingt fichiers
+ * déposés d'un coup par la même équipe n'empêchent pas les fichiers des autres d'être traités. Les catégories
+ * exemptées (REFERENTIAL par défaut) s'ajoutent à cette limite, à raison d'un fichier à la fois par catégorie :
+ * la mise à jour de référentiel d'une équipe n'attend pas la fin de son propre chargement massif.
+ */
+@Slf4j
+@Component
+public class FairShareScheduler {
+
+    private static final String UNKNOWN_USER = "system";
+    private static final long BASE_STRIDE = 1_000_000;
+
+    private final TaskExecutor executor;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final int defaultUserLimit;
+    private final Map<String, Integer> userLimits;
+    private final Map<String, Integer> categoryWeights;
+    private final Set<String> exemptCategories;
+
+    // Déposants ayant des fichiers en attente ou en cours, dans l'ordre d'arrivée (départage les égalités)
+    private final Map<String, UserQueue> users = new LinkedHashMap<>();
+    private long virtualTime;
+    private int running;
+    private int pending;
+
+    public FairShareScheduler(@Qualifier("ingestionTaskExecutor") TaskExecutor executor,
+                              @Value("${maestror.ingestion.executor.concurrency:2}") int concurrency,
+                              @Value("${maestror.ingestion.executor.queue-capacity:50}") int queueCapacity,
+                              @Value("${maestror.ingestion.scheduler.max-jobs-per-user:1}") int defaultUserLimit,
+                              @Value("${maestror.ingestion.scheduler.user-limits:}") String userLimits,
+                              @Value("${maestror.ingestion.scheduler.category-weights:REFERENTIAL:4}") String categoryWeights,
+                              @Value("${maestror.ingestion.scheduler.cap-exempt-categories:REFERENTIAL}") String exemptCategories) {
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.defaultUserLimit = defaultUserLimit;
+        this.userLimits = parseValues(userLimits, false);
+        this.categoryWeights = parseValues(categoryWeights, true);
+        this.exemptCategories = Arrays.stream(exemptCategories.split(","))
+                .map(category -> category.trim().toUpperCase(Locale.ROOT))
+                .filter(category -> !category.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Valeurs CLE:entier,... ; les clés de catégorie sont insensibles à la casse
+     */
+    static Map<String, Integer> parseValues(String mapping, boolean upperCaseKeys) {
+        Map<String, Integer> values = new HashMap<>();
+        if (mapping == null || mapping.isBlank()) {
+            return values;
+        }
+        for (String entry : mapping.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            String key = separator > 0 ? entry.substring(0, separator).trim() : "";
+            int value;
+            try {
+                value = Integer.parseInt(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                value = 0;
+            }
+            if (key.isEmpty() || value <= 0) {
+                throw new IllegalArgumentException("Invalid scheduler setting: " + entry);
+            }
+            values.put(upperCaseKeys ? key.toUpperCase(Locale.ROOT) : key, value);
+        }
+        return values;
+    }
+
+    /**
+     * Place un traitement dans la file de son déposant et de sa catégorie
+     *
+     * @throws TaskRejectedException si le nombre de traitements en attente atteint la capacité
+     */
+    public synchronized void submit(String uploadedBy, String category, Runnable task) {
+        if (pending >= queueCapacity) {
+            throw new TaskRejectedException("Ingestion queue is full (" + queueCapacity + " files pending)");
+        }
+        String user = uploadedBy != null ? uploadedBy : UNKNOWN_USER;
+        String categoryKey = category != null ? category.toUpperCase(Locale.ROOT) : "";
+        UserQueue userQueue = users.computeIfAbsent(user,
+                key -> new UserQueue(userLimits.getOrDefault(key, defaultUserLimit), virtualTime));
+        userQueue.categories.computeIfAbsent(categoryKey, key -> new CategoryQueue(
+                        BASE_STRIDE / categoryWeights.getOrDefault(key, 1), userQueue.virtualTime,
+                        exemptCategories.contains(key)))
+                .tasks.add(task);
+        pending++;
+        dispatch();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * Démarre les traitements en attente tant qu'il reste des emplacements libres
+     */
+    private void dispatch() {
+        while (running < concurrency) {
+            String user = null;
+            UserQueue userQueue = null;
+            Map.Entry<String, CategoryQueue> next = null;
+            for (Map.Entry<String, UserQueue> entry : users.entrySet()) {
+                Map.Entry<String, CategoryQueue> candidate = entry.getValue().nextCategory();
+                if (candidate != null && (userQueue == null || entry.getValue().pass < userQueue.pass)) {
+                    user = entry.getKey();
+                    userQueue = entry.getValue();
+                    next = candidate;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            String category = next.getKey();
+            CategoryQueue queue = next.getValue();
+            Runnable task = queue.tasks.poll();
+            virtualTime = userQueue.pass;
+            userQueue.pass += queue.stride;
+            userQueue.virtualTime = queue.pass;
+            queue.pass += queue.stride;
+            queue.running++;
+            if (!queue.exempt) {
+                userQueue.running++;
+            }
+            pending--;
+            running++;
+            String taskUser = user;
+            try {
+                executor.execute(() -> run(taskUser, category, task));
+            } catch (TaskRejectedException e) {
+                // Exécuteur arrêté : le fichier reste QUEUED et sera repris au redémarrage
+                log.warn("Ingestion executor rejected a task of {}/{}: {}", user, category, e.getMessage());
+                finished(user, category);
+                return;
+            }
+        }
+    }
+
+    private void run(String user, String category, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Ingestion task of {}/{} failed: {}", user, category, e.getMessage(), e);
+        } finally {
+            release(user, category);
+        }
+    }
+
+    private synchronized void release(String user, String category) {
+        finished(user, category);
+        dispatch();
+    }
+
+    private void finished(String user, String category) {
+        running--;
+        UserQueue userQueue = users.get(user);
+        CategoryQueue queue = userQueue.categories.get(category);
+        if (!queue.exempt) {
+            userQueue.running--;
+        }
+        if (--queue.running == 0 && queue.tasks.isEmpty()) {
+            userQueue.categories.remove(category);
+            if (userQueue.categories.isEmpty()) {
+                users.remove(user);
+            }
+        }
+    }
+
+    private static final class UserQueue {
+
+        private final int limit;
+        // Catégories ayant des fichiers en attente ou en cours, dans l'ordre d'arrivée
+        private final Map<String, CategoryQueue> categories = new LinkedHashMap<>();
+        private long pass;
+        // Point de départ d'une catégorie qui apparaît
+        private long virtualTime;
+        // Fichiers en cours hors catégories exemptées
+        private int running;
+
+        private UserQueue(int limit, long pass) {
+            this.limit = limit;
+            this.pass = pass;
+        }
+
+        /**
+         * Catégorie la moins avancée parmi celles qui ont un fichier en attente et peuvent en démarrer un :
+         * sous la limite du déposant, ou exemptée et sans fichier en cours
+         */
+        private Map.Entry<String, CategoryQueue> nextCategory() {
+            Map.Entry<String, CategoryQueue> selected = null;
+            for (Map.Entry<String, CategoryQueue> entry : categories.entrySet()) {
+                CategoryQueue queue = entry.getValue();
+                boolean allowed = queue.exempt ? queue.running == 0 : running < limit;
+                if (queue.tasks.isEmpty() || !allowed) {
+                    continue;
+                }
+                if (selected == null || queue.pass < selected.getValue().pass) {
+                    selected = entry;
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static final class CategoryQueue {
+
+        private final long stride;
+        private final boolean exempt;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private long pass;
+        private int running;
+
+        private CategoryQueue(long stride, long pass, boolean exempt) {
+            this.stride = stride;
+            this.pass = pass;
+            this.exempt = exempt;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.creditagricole.maestror.ingestion.scheduling;
+
+import com.creditagricole.maestror.ingestion.pipeline.PipelineMetrics;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Plafond global du nombre de lignes écrites par seconde en base, partagé par tous les fichiers en cours.
+ * <p>
+ * Seau à jetons (algorithme GCRA) autorisant une rafale d'une seconde de débit : un lot dépassant le plafond
+ * attend le temps nécessaire avant d'être écrit. Les catégories exemptées (REFERENTIAL par défaut) ne sont
+ * pas freinées, les petites mises à jour de référentiel restent rapides pendant les chargements massifs.
+ * Le temps d'attente est mesuré par l'étage throttled de maestror.ingestion.stage.
+ */
+@Component
+public class IngestionThrottle {
+
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int ROWS_PER_PERMIT = 1000;
+
+    private final long nanosPerRow;
+    private final Set<String> exemptCategories;
+    private final PipelineMetrics metrics;
+    private long theoreticalArrival = System.nanoTime();
+
+    public IngestionThrottle(@Value("${maestror.ingestion.throttle.rows-per-second:0}") long rowsPerSecond,
+                             @Value("${maestror.ingestion.throttle.exempt-categories:REFERENTIAL}") Set<String> exemptCategories,
+                             PipelineMetrics metrics) {
+        this.nanosPerRow = rowsPerSecond > 0 ? Math.max(1, TimeUnit.SECONDS.toNanos(1) / rowsPerSecond) : 0;
+        this.exemptCategories = exemptCategories.stream()
+                .map(category -> category.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        this.metrics = metrics;
+    }
+
+    public boolean isLimited(String category) {
+        return nanosPerRow > 0 && category != null && !exemptCategories.contains(category.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Attend si besoin que l'écriture de rows lignes respecte le plafond
+     */
+    public void acquire(String category, int rows) throws InterruptedException {
+        if (rows <= 0 || !isLimited(category)) {
+            return;
+        }
+        long wait = reserve(rows, System.nanoTime());
+        if (wait > 0) {
+            metrics.timer(PipelineMetrics.THROTTLED, category).record(wait, TimeUnit.NANOSECONDS);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Réserve le débit de rows lignes
+     *
+     * @return attente nécessaire en nanosecondes (négative ou nulle si aucune)
+     */
+    synchronized long reserve(int rows, long now) {
+        theoreticalArrival = Math.max(theoreticalArrival, now) + rows * nanosPerRow;
+        return theoreticalArrival - BURST_NANOS - now;
+    }
+
+    /**
+     * Source freinée par tranches de lignes, pour les chargements qui n'écrivent pas par chunks (STAGING)
+     */
+    public RowSource limit(RowSource source, String category) {
+        if (!isLimited(category)) {
+            return source;
+        }
+        return new RowSource() {
+            private int rows;
+
+            @Override
+            public String[] nextRow() throws IOException {
+                awaitPermit();
+                return source.nextRow();
+            }
+
+            @Override
+            public RowView nextView() throws IOException {
+                awaitPermit();
+                return source.nextView();
+            }
+
+            private void awaitPermit() throws InterruptedIOException {
+                if (rows++ % ROWS_PER_PERMIT == 0) {
+                    try {
+                        acquire(category, ROWS_PER_PERMIT);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while throttling ingestion");
+                    }
+                }
+            }
+
+            @Override
+            public long getRowNumber() {
+                return source.getRowNumber();
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+        };
+    }
+}
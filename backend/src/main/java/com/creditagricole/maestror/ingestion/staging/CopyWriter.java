@@ -0,0 +1,170 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.writer.JdbcBatchWriter;
+import com.creditagricole.maestror.ingestion.writer.RowFailureListener;
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chargement par COPY FROM STDIN (CopyManager PgJDBC).
+ * <p>
+ * Les lignes sont encodées en CSV et envoyées au serveur au fil de la lecture, par tranches
+ * validées chacune par leur propre COPY (connexion en auto-commit). Les lignes dont une valeur
+ * n'est pas au format texte PostgreSQL, ainsi que les tranches refusées par la base,
+ * sont redirigées vers l'insertion JDBC par lots qui isole les lignes fautives.
+ */
+@Slf4j
+public class CopyWriter implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final String copySql;
+    private final StagingRowMapper mapper;
+    private final List<SchemaColumn> columns;
+    private final int chunkSize;
+    private final JdbcBatchWriter<Object[]> fallback;
+    private final RowFailureListener failureListener;
+
+    private final List<String[]> chunk = new ArrayList<>();
+    private final List<Long> chunkRowNumbers = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder();
+    private Connection connection;
+    private CopyIn copyIn;
+    private boolean chunkFailed;
+    private long copiedCount;
+    private long failedCount;
+
+    public CopyWriter(DataSource dataSource, String copySql, StagingRowMapper mapper, int chunkSize,
+                      JdbcBatchWriter<Object[]> fallback, RowFailureListener failureListener) {
+        this.dataSource = dataSource;
+        this.copySql = copySql;
+        this.mapper = mapper;
+        this.columns = mapper.columns();
+        this.chunkSize = chunkSize;
+        this.fallback = fallback;
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * @param row valeurs brutes dans l'ordre du fichier, conservées telles quelles en cas de rejet
+     */
+    public void write(long rowNumber, String[] row) throws SQLException {
+        String[] aligned = mapper.align(row);
+        for (int i = 0; i < columns.size(); i++) {
+            String reason = StagingValues.checkCopyFormat(columns.get(i), i < aligned.length ? aligned[i] : null);
+            if (reason != null) {
+                log.debug("Row {} routed to batched inserts: {}", rowNumber, reason);
+                writeFallback(rowNumber, row);
+                return;
+            }
+        }
+
+        if (copyIn == null) {
+            startChunk();
+        }
+        chunk.add(row);
+        chunkRowNumbers.add(rowNumber);
+        if (!chunkFailed) {
+            byte[] bytes = encode(aligned);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                log.warn("COPY chunk starting at row {} aborted by server: {}", chunkRowNumbers.get(0), e.getMessage());
+                chunkFailed = true;
+            }
+        }
+        if (chunk.size() >= chunkSize) {
+            endChunk();
+        }
+    }
+
+    private void startChunk() throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+        }
+        copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        chunkFailed = false;
+    }
+
+    private void endChunk() {
+        if (copyIn == null) {
+            return;
+        }
+        try {
+            if (!chunkFailed) {
+                copiedCount += copyIn.endCopy();
+            } else if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } catch (SQLException e) {
+            log.warn("COPY chunk starting at row {} rejected, retrying with batched inserts: {}",
+                    chunkRowNumbers.get(0), e.getMessage());
+            chunkFailed = true;
+        }
+        if (chunkFailed) {
+            for (int i = 0; i < chunk.size(); i++) {
+                writeFallback(chunkRowNumbers.get(i), chunk.get(i));
+            }
+            fallback.flush();
+        }
+        chunk.clear();
+        chunkRowNumbers.clear();
+        copyIn = null;
+    }
+
+    private void writeFallback(long rowNumber, String[] row) {
+        try {
+            fallback.write(rowNumber, mapper.map(row));
+        } catch (IllegalArgumentException e) {
+            failedCount++;
+            failureListener.onRowFailure(rowNumber, row, e);
+        }
+    }
+
+    /**
+     * Encode une ligne alignée en CSV : valeurs entre guillemets, vide non cité = NULL
+     */
+    private byte[] encode(String[] row) {
+        line.setLength(0);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = i < row.length ? row[i] : null;
+            if (value != null && !(value.isEmpty() && !StagingValues.isText(columns.get(i)))) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+        line.append('\n');
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public long getWrittenCount() {
+        return copiedCount + fallback.getWrittenCount();
+    }
+
+    public long getFailedCount() {
+        return failedCount + fallback.getFailedCount();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            endChunk();
+            fallback.flush();
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import com.creditagricole.maestror.schema.model.SchemaTable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Requêtes de chargement d'une table STAGING, dans l'ordre des colonnes de MODELE_STAGING.
+ * Les colonnes générées par la base (SERIAL/BIGSERIAL) ne sont pas alimentées par le fichier.
+ * L'INSERT paramétré est construit par {@link StagingRowMapper#insert()}.
+ */
+public final class StagingInserts {
+
+    private StagingInserts() {
+    }
+
+    public static List<SchemaColumn> loadedColumns(SchemaTable table) {
+        return table.getColumns().stream()
+                .filter(column -> !column.isGenerated())
+                .toList();
+    }
+
+    public static String columnList(List<SchemaColumn> columns) {
+        return columns.stream()
+                .map(column -> "\"" + column.getNomChamp() + "\"")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * COPY ... FROM STDIN au format CSV
+     */
+    public static String copyFor(SchemaTable table) {
+        return "COPY \"" + table.getNomTable() + "\" (" + columnList(loadedColumns(table)) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+}
@@ -0,0 +1,7 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+/**
+ * Bilan d'un chargement STAGING : lignes écrites et lignes rejetées
+ */
+public record StagingLoadResult(long writtenCount, long failedCount) {
+}
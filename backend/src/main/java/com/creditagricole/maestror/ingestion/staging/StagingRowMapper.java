@@ -0,0 +1,168 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.ingestion.writer.BatchInsert;
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import com.creditagricole.maestror.schema.model.SchemaTable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mapping d'un fichier vers une table STAGING, compilé une seule fois par chargement à partir de MODELE_STAGING :
+ * position de chaque colonne dans le fichier, conversion selon TYPE_CHAMPS / TAILLE_CHAMPS et type JDBC
+ * des paramètres de l'INSERT.
+ * <p>
+ * Les colonnes sont retrouvées par leur nom dans l'en-tête du fichier (sans tenir compte de la casse ni de l'ordre) ;
+ * un en-tête ne contenant aucun nom de colonne est lu dans l'ordre de MODELE_STAGING.
+ */
+@Slf4j
+public final class StagingRowMapper {
+
+    private final SchemaTable table;
+    private final List<SchemaColumn> columns;
+    private final int[] sourceIndexes;
+    private final boolean positional;
+    private final Function<String, Object>[] converters;
+    private final StagingValues.FieldConverter[] fieldConverters;
+    private final int[] jdbcTypes;
+
+    @SuppressWarnings("unchecked")
+    private StagingRowMapper(SchemaTable table, List<SchemaColumn> columns, int[] sourceIndexes, boolean positional) {
+        this.table = table;
+        this.columns = columns;
+        this.sourceIndexes = sourceIndexes;
+        this.positional = positional;
+        this.converters = new Function[columns.size()];
+        this.fieldConverters = new StagingValues.FieldConverter[columns.size()];
+        this.jdbcTypes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            converters[i] = StagingValues.converter(columns.get(i));
+            fieldConverters[i] = StagingValues.fieldConverter(columns.get(i));
+            jdbcTypes[i] = StagingValues.jdbcType(columns.get(i));
+        }
+    }
+
+    /**
+     * @param header en-tête du fichier, null pour une lecture dans l'ordre de MODELE_STAGING
+     */
+    public static StagingRowMapper compile(SchemaTable table, String[] header) {
+        List<SchemaColumn> columns = StagingInserts.loadedColumns(table);
+        int[] sourceIndexes = new int[columns.size()];
+        Map<String, Integer> headerIndexes = headerIndexes(header);
+
+        List<String> missing = new ArrayList<>();
+        boolean matched = false;
+        for (int i = 0; i < columns.size(); i++) {
+            Integer index = headerIndexes.get(normalize(columns.get(i).getNomChamp()));
+            sourceIndexes[i] = index != null ? index : -1;
+            if (index != null) {
+                matched = true;
+            } else {
+                missing.add(columns.get(i).getNomChamp());
+            }
+        }
+
+        if (!matched) {
+            for (int i = 0; i < sourceIndexes.length; i++) {
+                sourceIndexes[i] = i;
+            }
+            return new StagingRowMapper(table, columns, sourceIndexes, true);
+        }
+        if (!missing.isEmpty()) {
+            log.warn("Colonnes de {} absentes de l'en-tête du fichier, chargées à NULL : {}", table.getNomTable(), missing);
+        }
+        return new StagingRowMapper(table, columns, sourceIndexes, false);
+    }
+
+    private static Map<String, Integer> headerIndexes(String[] header) {
+        Map<String, Integer> indexes = new HashMap<>();
+        if (header != null) {
+            for (int i = header.length - 1; i >= 0; i--) {
+                if (header[i] != null) {
+                    indexes.put(normalize(header[i]), i);
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static String normalize(String name) {
+        // Un BOM UTF-8 peut précéder le premier nom de colonne
+        return name.replace("\uFEFF", "").trim().toUpperCase(Locale.ROOT);
+    }
+
+    public List<SchemaColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * Valeurs brutes d'une ligne dans l'ordre des colonnes de la table (sans copie en lecture positionnelle)
+     */
+    public String[] align(String[] row) {
+        if (positional) {
+            return row;
+        }
+        String[] aligned = new String[sourceIndexes.length];
+        for (int i = 0; i < aligned.length; i++) {
+            int index = sourceIndexes[i];
+            aligned[i] = index >= 0 && index < row.length ? row[index] : null;
+        }
+        return aligned;
+    }
+
+    /**
+     * Convertit une ligne alignée vers les types des colonnes
+     *
+     * @throws IllegalArgumentException si une valeur ne peut pas être convertie
+     */
+    public Object[] convert(String[] aligned) {
+        Object[] values = new Object[converters.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = converters[i].apply(i < aligned.length ? aligned[i] : null);
+        }
+        return values;
+    }
+
+    public Object[] map(String[] row) {
+        return convert(align(row));
+    }
+
+    /**
+     * Convertit une ligne lue sous forme de vue, sans l'aligner ni la décoder en chaînes
+     *
+     * @throws IllegalArgumentException si une valeur ne peut pas être convertie
+     */
+    public Object[] map(RowView row) {
+        Object[] values = new Object[fieldConverters.length];
+        for (int i = 0; i < values.length; i++) {
+            int index = sourceIndexes[i];
+            values[i] = index >= 0 && index < row.fieldCount() ? fieldConverters[i].convert(row, index) : null;
+        }
+        return values;
+    }
+
+    /**
+     * INSERT paramétré réutilisé pour tous les lots ; les NULL sont typés selon la colonne
+     */
+    public BatchInsert<Object[]> insert() {
+        String placeholders = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        String sql = "INSERT INTO \"" + table.getNomTable() + "\" (" + StagingInserts.columnList(columns)
+                + ") VALUES (" + placeholders + ")";
+        return new BatchInsert<>(sql, (ps, values) -> {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    ps.setNull(i + 1, jdbcTypes[i]);
+                } else {
+                    ps.setObject(i + 1, values[i]);
+                }
+            }
+        });
+    }
+}
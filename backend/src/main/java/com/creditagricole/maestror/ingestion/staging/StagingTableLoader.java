@@ -0,0 +1,92 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.ingestion.scheduling.IngestionThrottle;
+import com.creditagricole.maestror.ingestion.writer.BatchWriterFactory;
+import com.creditagricole.maestror.ingestion.writer.JdbcBatchWriter;
+import com.creditagricole.maestror.ingestion.writer.RowFailureListener;
+import com.creditagricole.maestror.schema.model.SchemaTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Chargement d'un fichier dans une table STAGING décrite par MODELE_STAGING,
+ * soit par COPY FROM STDIN, soit par INSERT JDBC par lots. Toute table déclarée dans MODELE_STAGING
+ * est chargeable : le mapping colonnes / types est compilé une fois par fichier ({@link StagingRowMapper}).
+ */
+@Slf4j
+@Component
+public class StagingTableLoader {
+
+    private final DataSource dataSource;
+    private final BatchWriterFactory batchWriterFactory;
+    private final IngestionThrottle throttle;
+
+    @Value("${maestror.ingestion.copy-chunk-size:50000}")
+    private int copyChunkSize;
+
+    public StagingTableLoader(DataSource dataSource, BatchWriterFactory batchWriterFactory, IngestionThrottle throttle) {
+        this.dataSource = dataSource;
+        this.batchWriterFactory = batchWriterFactory;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Charge les lignes restantes de la source dans la table, au débit permis par le plafond global d'écriture
+     *
+     * @param header  en-tête du fichier, dont les noms désignent les colonnes de la table
+     * @param useCopy true pour le moteur COPY, false pour les INSERT par lots
+     */
+    public StagingLoadResult load(SchemaTable table, String[] header, RowSource records, boolean useCopy,
+                                  RowFailureListener failureListener) throws IOException {
+        StagingRowMapper mapper = StagingRowMapper.compile(table, header);
+        RowSource rows = throttle.limit(records, "STAGING");
+        log.info("Chargement de la table {} ({} colonnes) en mode {}", table.getNomTable(), mapper.columns().size(),
+                useCopy ? "COPY" : "BATCH");
+
+        try (JdbcBatchWriter<Object[]> batchWriter = batchWriterFactory.create(mapper.insert(), failureListener)) {
+            return useCopy
+                    ? loadWithCopy(table, mapper, rows, batchWriter, failureListener)
+                    : loadWithBatches(mapper, rows, batchWriter, failureListener);
+        }
+    }
+
+    private StagingLoadResult loadWithCopy(SchemaTable table, StagingRowMapper mapper, RowSource records,
+                                           JdbcBatchWriter<Object[]> batchWriter,
+                                           RowFailureListener failureListener) throws IOException {
+        CopyWriter copyWriter = new CopyWriter(dataSource, StagingInserts.copyFor(table), mapper, copyChunkSize,
+                batchWriter, failureListener);
+        try (copyWriter) {
+            String[] row;
+            while ((row = records.nextRow()) != null) {
+                copyWriter.write(records.getRowNumber(), row);
+            }
+        } catch (SQLException e) {
+            throw new IOException("COPY into " + table.getNomTable() + " failed: " + e.getMessage(), e);
+        }
+        return new StagingLoadResult(copyWriter.getWrittenCount(), copyWriter.getFailedCount());
+    }
+
+    private StagingLoadResult loadWithBatches(StagingRowMapper mapper, RowSource records,
+                                              JdbcBatchWriter<Object[]> batchWriter,
+                                              RowFailureListener failureListener) throws IOException {
+        long failed = 0;
+        RowView row;
+        while ((row = records.nextView()) != null) {
+            try {
+                batchWriter.write(records.getRowNumber(), mapper.map(row));
+            } catch (IllegalArgumentException e) {
+                failureListener.onRowFailure(records.getRowNumber(), row.toArray(), e);
+                failed++;
+            }
+        }
+        batchWriter.flush();
+        return new StagingLoadResult(batchWriter.getWrittenCount(), failed + batchWriter.getFailedCount());
+    }
+}
@@ -0,0 +1,207 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Contrôle et conversion des valeurs d'une ligne selon le type déclaré dans MODELE_STAGING
+ * (TYPE_CHAMPS / TAILLE_CHAMPS)
+ */
+public final class StagingValues {
+
+    private static final Pattern ISO_TIMESTAMP = Pattern.compile("\\d{4}-\\d{2}-\\d{2}([ T]\\d{2}:\\d{2}(:\\d{2}(\\.\\d{1,9})?)?)?");
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+    private static final Pattern PLAIN_BOOLEAN = Pattern.compile("(?i)true|false|t|f|1|0|yes|no");
+
+    private StagingValues() {
+    }
+
+    /**
+     * Vérifie qu'une valeur peut être transmise telle quelle à COPY (format texte PostgreSQL).
+     *
+     * @return null si la valeur est acceptée, sinon le motif du refus
+     */
+    public static String checkCopyFormat(SchemaColumn column, String value) {
+        if (value == null || value.isEmpty()) {
+            return isNullable(column) || isText(column) ? null : "Valeur obligatoire manquante pour " + column.getNomChamp();
+        }
+        String type = column.sqlType().toUpperCase();
+        return switch (type) {
+            case "VARCHAR", "CHAR" -> {
+                Integer maxLength = parseLength(column.getTailleChamps());
+                yield maxLength != null && value.length() > maxLength
+                        ? "Valeur trop longue pour " + column.getNomChamp() + " (max " + maxLength + ")" : null;
+            }
+            case "NUMERIC" -> PLAIN_NUMBER.matcher(value).matches() ? null : "Nombre non standard pour " + column.getNomChamp();
+            case "TIMESTAMP" -> ISO_TIMESTAMP.matcher(value).matches() ? null : "Date non ISO pour " + column.getNomChamp();
+            case "BOOLEAN" -> PLAIN_BOOLEAN.matcher(value).matches() ? null : "Booléen invalide pour " + column.getNomChamp();
+            default -> null;
+        };
+    }
+
+    /**
+     * Convertit une valeur texte vers le type Java attendu par le driver JDBC
+     *
+     * @throws IllegalArgumentException si la valeur ne peut pas être convertie
+     */
+    public static Object convert(SchemaColumn column, String value) {
+        return converter(column).apply(value);
+    }
+
+    /**
+     * Conversion d'une colonne préparée une seule fois (type, format de date), à appliquer à chaque ligne.
+     * Une valeur vide est NULL, sauf pour les colonnes texte.
+     */
+    public static Function<String, Object> converter(SchemaColumn column) {
+        boolean text = isText(column);
+        Function<String, Object> typed = switch (column.sqlType().toUpperCase()) {
+            case "NUMERIC" -> value -> new BigDecimal(value.replace(" ", "").replace(',', '.'));
+            case "TIMESTAMP" -> timestampConverter(column.getTailleChamps());
+            case "BOOLEAN" -> StagingValues::parseBoolean;
+            case "INTEGER", "SERIAL" -> Integer::valueOf;
+            case "BIGINT", "BIGSERIAL" -> Long::valueOf;
+            default -> null;
+        };
+        if (typed == null) {
+            return value -> value == null || (value.isBlank() && !text) ? null : value;
+        }
+        return value -> value == null || value.isBlank() ? null : typed.apply(value.trim());
+    }
+
+    /**
+     * Conversion d'un champ lu depuis une {@link RowView}, préparée une seule fois par colonne.
+     * Nombres standard, entiers et dates ISO sont convertis depuis la vue sans passer par une chaîne ;
+     * les autres écritures (virgule décimale, espaces, format TAILLE_CHAMPS) repassent par {@link #converter}.
+     */
+    public static FieldConverter fieldConverter(SchemaColumn column) {
+        Function<String, Object> text = converter(column);
+        String pattern = column.getTailleChamps();
+        FieldConverter typed = switch (column.sqlType().toUpperCase()) {
+            case "NUMERIC" -> RowView::parseDecimal;
+            case "INTEGER", "SERIAL" -> (row, index) -> Math.toIntExact(row.parseLong(index));
+            case "BIGINT", "BIGSERIAL" -> RowView::parseLong;
+            // Format déclaré autre que ISO : les dates du fichier ne sont a priori pas ISO
+            case "TIMESTAMP" -> pattern == null || !pattern.toUpperCase().contains("YY")
+                    || "YYYY-MM-DD".equalsIgnoreCase(pattern.trim())
+                    ? (row, index) -> row.parseIsoDate(index).atStartOfDay() : null;
+            default -> null;
+        };
+        if (typed == null) {
+            return (row, index) -> text.apply(row.string(index));
+        }
+        return (row, index) -> {
+            if (row.isBlank(index)) {
+                return null;
+            }
+            try {
+                return typed.convert(row, index);
+            } catch (NumberFormatException | ArithmeticException | DateTimeException e) {
+                return text.apply(row.string(index));
+            }
+        };
+    }
+
+    /**
+     * Type JDBC (java.sql.Types) des valeurs produites par {@link #converter}
+     */
+    public static int jdbcType(SchemaColumn column) {
+        return switch (column.sqlType().toUpperCase()) {
+            case "NUMERIC" -> Types.NUMERIC;
+            case "TIMESTAMP" -> Types.TIMESTAMP;
+            case "BOOLEAN" -> Types.BOOLEAN;
+            case "INTEGER", "SERIAL" -> Types.INTEGER;
+            case "BIGINT", "BIGSERIAL" -> Types.BIGINT;
+            case "VARCHAR", "CHAR", "TEXT" -> Types.VARCHAR;
+            default -> Types.OTHER;
+        };
+    }
+
+    /**
+     * Convertit un format Oracle/Excel (YYYYMMDDHHMMSS, DD/MM/YYYY...) en motif java.time
+     */
+    static DateTimeFormatter toFormatter(String pattern) {
+        String javaPattern = pattern.toUpperCase()
+                .replace("HH24", "HH")
+                .replace("MI", "mm")
+                .replaceAll("HH(:?)MM", "HH$1mm")
+                .replace("YYYY", "yyyy")
+                .replace("DD", "dd")
+                .replace("SS", "ss");
+        return DateTimeFormatter.ofPattern(javaPattern);
+    }
+
+    /**
+     * Dates ISO acceptées quel que soit le format déclaré, sinon format TAILLE_CHAMPS (YYYYMMDD, DD/MM/YYYY...)
+     */
+    private static Function<String, Object> timestampConverter(String pattern) {
+        DateTimeFormatter formatter = null;
+        if (pattern != null && pattern.toUpperCase().contains("YY")) {
+            try {
+                formatter = toFormatter(pattern);
+            } catch (IllegalArgumentException e) {
+                // Format inexploitable : seules les dates ISO seront acceptées
+            }
+        }
+        DateTimeFormatter declared = formatter;
+        boolean withTime = pattern != null && pattern.toUpperCase().contains("HH");
+        return value -> {
+            try {
+                if (ISO_TIMESTAMP.matcher(value).matches()) {
+                    return value.length() == 10
+                            ? LocalDate.parse(value).atStartOfDay()
+                            : LocalDateTime.parse(value.replace(' ', 'T'));
+                }
+                if (declared == null) {
+                    throw new IllegalArgumentException("Date invalide: " + value);
+                }
+                return withTime
+                        ? LocalDateTime.parse(value, declared)
+                        : LocalDate.parse(value, declared).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Date invalide: " + value, e);
+            }
+        };
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return switch (value.toLowerCase()) {
+            case "true", "t", "1", "yes", "oui", "o" -> Boolean.TRUE;
+            case "false", "f", "0", "no", "non", "n" -> Boolean.FALSE;
+            default -> throw new IllegalArgumentException("Booléen invalide: " + value);
+        };
+    }
+
+    private static Integer parseLength(String taille) {
+        if (taille == null || !taille.trim().matches("\\d+")) {
+            return null;
+        }
+        return Integer.valueOf(taille.trim());
+    }
+
+    private static boolean isNullable(SchemaColumn column) {
+        return column.isClePrimaire() || column.isValidForeignKey();
+    }
+
+    static boolean isText(SchemaColumn column) {
+        String type = column.sqlType().toUpperCase();
+        return "VARCHAR".equals(type) || "CHAR".equals(type) || "TEXT".equals(type);
+    }
+
+    /**
+     * Conversion du champ index d'une ligne
+     */
+    @FunctionalInterface
+    public interface FieldConverter {
+        Object convert(RowView row, int index);
+    }
+}
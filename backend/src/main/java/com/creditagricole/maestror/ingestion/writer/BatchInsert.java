@@ -0,0 +1,9 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+/**
+ * Requête INSERT paramétrée et liaison des valeurs d'un élément
+ */
+public record BatchInsert<T>(String sql, ParameterizedPreparedStatementSetter<T> setter) {
+}
@@ -0,0 +1,61 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Upsert ensembliste dérivé d'une requête INSERT de {@link EntityInserts}.
+ * <p>
+ * Les lignes d'un lot sont d'abord insérées dans une table temporaire de même structure
+ * (avec le setter de l'INSERT), puis appliquées à la table cible en une seule requête
+ * INSERT ... SELECT ... ON CONFLICT DO UPDATE. Une ligne identique à l'existant n'est pas réécrite ;
+ * RETURNING renvoie le code de chaque ligne écrite, et (xmax = 0) distingue les insertions des mises à jour.
+ *
+ * @param key code métier portant la contrainte d'unicité, pour le dédoublonnage en mémoire
+ */
+public record BatchUpsert<T>(BatchInsert<T> stagingInsert, String createStagingSql, String upsertSql,
+                             Function<T, String> key) {
+
+    private static final Pattern INSERT_SQL = Pattern.compile("INSERT INTO (\\w+) \\(([^)]+)\\) VALUES .*");
+    // Colonnes de traçabilité, ignorées pour décider si une ligne a changé
+    private static final List<String> AUDIT_COLUMNS = List.of("file_storage_id", "created_at", "updated_at");
+
+    public static <T> BatchUpsert<T> of(BatchInsert<T> insert, String keyColumn, Function<T, String> key) {
+        Matcher matcher = INSERT_SQL.matcher(insert.sql());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported INSERT statement: " + insert.sql());
+        }
+        String table = matcher.group(1);
+        String stagingTable = "upsert_" + table;
+        List<String> columns = Arrays.stream(matcher.group(2).split(",")).map(String::trim).toList();
+        String columnList = String.join(", ", columns);
+
+        List<String> compared = columns.stream()
+                .filter(column -> !column.equals(keyColumn) && !AUDIT_COLUMNS.contains(column))
+                .toList();
+        String assignments = columns.stream()
+                .filter(column -> !column.equals(keyColumn) && !column.equals("created_at"))
+                .map(column -> column + " = EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+
+        String createStagingSql = "CREATE TEMP TABLE IF NOT EXISTS " + stagingTable + " ON COMMIT DELETE ROWS AS "
+                + "SELECT " + columnList + " FROM " + table + " WITH NO DATA";
+        String upsertSql = "INSERT INTO " + table + " AS t (" + columnList + ") "
+                + "SELECT " + columnList + " FROM " + stagingTable + " "
+                + "ON CONFLICT (" + keyColumn + ") DO UPDATE SET " + assignments + " "
+                + "WHERE (" + prefixed("t.", compared) + ") IS DISTINCT FROM (" + prefixed("EXCLUDED.", compared) + ") "
+                + "RETURNING " + keyColumn + ", (xmax = 0) AS inserted";
+        BatchInsert<T> stagingInsert = new BatchInsert<>(
+                insert.sql().replaceFirst("INSERT INTO " + table + " ", "INSERT INTO " + stagingTable + " "),
+                insert.setter());
+        return new BatchUpsert<>(stagingInsert, createStagingSql, upsertSql, key);
+    }
+
+    private static String prefixed(String prefix, List<String> columns) {
+        return columns.stream().map(column -> prefix + column).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,29 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Crée les writers JDBC par lots avec la taille de lot configurée
+ */
+@Component
+public class BatchWriterFactory {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${maestror.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    public BatchWriterFactory(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> JdbcBatchWriter<T> create(BatchInsert<T> insert, RowFailureListener failureListener) {
+        return new JdbcBatchWriter<>(jdbcTemplate, transactionTemplate, insert, batchSize, failureListener);
+    }
+}
@@ -0,0 +1,103 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+import com.creditagricole.maestror.entity.TestData;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+/**
+ * Requêtes INSERT JDBC des entités alimentées par fichier.
+ * Les colonnes suivent la stratégie de nommage JPA (camelCase → snake_case) et les horodatages
+ * gérés par Hibernate (@CreationTimestamp / @UpdateTimestamp) sont renseignés explicitement.
+ */
+public final class EntityInserts {
+
+    public static final BatchInsert<OperationalRiskReferential> REFERENTIAL = new BatchInsert<>(
+            "INSERT INTO operational_risk_referential (risk_code, risk_name, risk_description, risk_category, risk_type, "
+                    + "business_line, impact_level, probability_level, active, row_hash, file_storage_id, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            (ps, risk) -> {
+                ps.setString(1, risk.getRiskCode());
+                ps.setString(2, risk.getRiskName());
+                ps.setString(3, risk.getRiskDescription());
+                ps.setString(4, risk.getRiskCategory());
+                ps.setString(5, risk.getRiskType());
+                ps.setString(6, risk.getBusinessLine());
+                ps.setString(7, risk.getImpactLevel());
+                ps.setString(8, risk.getProbabilityLevel());
+                ps.setBoolean(9, !Boolean.FALSE.equals(risk.getActive()));
+                ps.setString(10, RowHash.of(risk));
+                setFileStorageAndTimestamps(ps, 11, risk.getFileStorage() != null ? risk.getFileStorage().getId() : null);
+            });
+
+    public static final BatchInsert<Incident> INCIDENT = new BatchInsert<>(
+            "INSERT INTO incident (incident_code, incident_title, incident_description, incident_date, severity, status, "
+                    + "entity_code, business_unit, financial_impact, currency, detected_by, risk_referential_id, file_storage_id, "
+                    + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            (ps, incident) -> {
+                ps.setString(1, incident.getIncidentCode());
+                ps.setString(2, incident.getIncidentTitle());
+                ps.setString(3, incident.getIncidentDescription());
+                ps.setDate(4, incident.getIncidentDate() != null ? Date.valueOf(incident.getIncidentDate()) : null);
+                ps.setString(5, incident.getSeverity());
+                ps.setString(6, incident.getStatus());
+                ps.setString(7, incident.getEntityCode());
+                ps.setString(8, incident.getBusinessUnit());
+                ps.setBigDecimal(9, incident.getFinancialImpact());
+                ps.setString(10, incident.getCurrency());
+                ps.setString(11, incident.getDetectedBy());
+                setNullableLong(ps, 12, incident.getRiskReferential() != null ? incident.getRiskReferential().getId() : null);
+                setFileStorageAndTimestamps(ps, 13, incident.getFileStorage() != null ? incident.getFileStorage().getId() : null);
+            });
+
+    public static final BatchInsert<Control> CONTROL = new BatchInsert<>(
+            "INSERT INTO control (control_code, control_name, control_description, control_type, frequency, entity_code, "
+                    + "responsible_person, status, effectiveness, risk_referential_id, file_storage_id, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            (ps, control) -> {
+                ps.setString(1, control.getControlCode());
+                ps.setString(2, control.getControlName());
+                ps.setString(3, control.getControlDescription());
+                ps.setString(4, control.getControlType());
+                ps.setString(5, control.getFrequency());
+                ps.setString(6, control.getEntityCode());
+                ps.setString(7, control.getResponsiblePerson());
+                ps.setString(8, control.getStatus());
+                ps.setString(9, control.getEffectiveness());
+                setNullableLong(ps, 10, control.getRiskReferential() != null ? control.getRiskReferential().getId() : null);
+                setFileStorageAndTimestamps(ps, 11, control.getFileStorage() != null ? control.getFileStorage().getId() : null);
+            });
+
+    public static final BatchInsert<TestData> TEST_DATA = new BatchInsert<>(
+            "INSERT INTO test_data (text_data, file_storage_id, created_at) VALUES (?, ?, ?)",
+            (ps, testData) -> {
+                ps.setString(1, testData.getTextData());
+                setNullableLong(ps, 2, testData.getFileStorage() != null ? testData.getFileStorage().getId() : null);
+                ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            });
+
+    private EntityInserts() {
+    }
+
+    private static void setFileStorageAndTimestamps(PreparedStatement ps, int index, Long fileStorageId) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        setNullableLong(ps, index, fileStorageId);
+        ps.setTimestamp(index + 1, now);
+        ps.setTimestamp(index + 2, now);
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+
+/**
+ * Upserts des entités dont le code métier est unique, dérivés de {@link EntityInserts}
+ */
+public final class EntityUpserts {
+
+    public static final BatchUpsert<OperationalRiskReferential> REFERENTIAL =
+            BatchUpsert.of(EntityInserts.REFERENTIAL, "risk_code", OperationalRiskReferential::getRiskCode);
+
+    public static final BatchUpsert<Incident> INCIDENT =
+            BatchUpsert.of(EntityInserts.INCIDENT, "incident_code", Incident::getIncidentCode);
+
+    public static final BatchUpsert<Control> CONTROL =
+            BatchUpsert.of(EntityInserts.CONTROL, "control_code", Control::getControlCode);
+
+    private EntityUpserts() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Écriture JDBC par lots, sans contexte de persistance JPA.
+ * <p>
+ * Chaque lot est envoyé dans sa propre transaction. Si un lot échoue, ses lignes sont rejouées
+ * une à une pour isoler les lignes fautives, qui sont remontées avec leur numéro de ligne.
+ */
+@Slf4j
+public class JdbcBatchWriter<T> implements AutoCloseable {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchInsert<T> insert;
+    private final int batchSize;
+    private final RowFailureListener failureListener;
+
+    private final List<T> items;
+    private final List<Long> rowNumbers;
+    private long writtenCount;
+    private long failedCount;
+
+    public JdbcBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           BatchInsert<T> insert, int batchSize, RowFailureListener failureListener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.insert = insert;
+        this.batchSize = batchSize;
+        this.failureListener = failureListener;
+        this.items = new ArrayList<>(batchSize);
+        this.rowNumbers = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Ajoute un élément au lot courant, le lot est envoyé dès qu'il est plein
+     */
+    public void write(long rowNumber, T item) {
+        items.add(item);
+        rowNumbers.add(rowNumber);
+        if (items.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Envoie le lot courant
+     */
+    public void flush() {
+        if (items.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(insert.sql(), items, items.size(), insert.setter()));
+            writtenCount += items.size();
+        } catch (DataAccessException e) {
+            log.warn("Batch of {} rows starting at row {} failed, retrying row by row: {}",
+                    items.size(), rowNumbers.get(0), e.getMostSpecificCause().getMessage());
+            writeOneByOne();
+        } finally {
+            items.clear();
+            rowNumbers.clear();
+        }
+    }
+
+    private void writeOneByOne() {
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.update(insert.sql(), ps -> insert.setter().setValues(ps, item)));
+                writtenCount++;
+            } catch (DataAccessException e) {
+                failedCount++;
+                failureListener.onRowFailure(rowNumbers.get(i), item instanceof Object[] values ? values : new Object[]{item}, e);
+            }
+        }
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
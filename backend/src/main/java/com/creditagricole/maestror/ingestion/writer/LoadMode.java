@@ -0,0 +1,33 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+/**
+ * Mode d'écriture des lignes d'un fichier
+ */
+public enum LoadMode {
+
+    /** INSERT simple : une ligne dont le code existe déjà est rejetée */
+    INSERT,
+
+    /** INSERT ... ON CONFLICT DO UPDATE sur le code métier : un fichier corrigé met à jour les lignes existantes */
+    UPSERT,
+
+    /**
+     * Différentiel du référentiel complet : seules les lignes nouvelles ou modifiées sont écrites,
+     * les risques absents du fichier sont désactivés
+     */
+    DELTA;
+
+    /**
+     * @throws IllegalArgumentException si le mode est inconnu
+     */
+    public static LoadMode of(String value) {
+        if (value == null || value.isBlank()) {
+            return INSERT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown load mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+/**
+ * Notifié pour chaque ligne rejetée, avec son numéro dans le fichier source
+ */
+@FunctionalInterface
+public interface RowFailureListener {
+
+    /**
+     * @param values valeurs de la ligne : brutes si le rejet précède la conversion, converties sinon
+     */
+    void onRowFailure(long rowNumber, Object[] values, Exception cause);
+}
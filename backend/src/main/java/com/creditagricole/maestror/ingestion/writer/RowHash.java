@@ -0,0 +1,46 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Empreinte SHA-256 des colonnes métier d'une ligne, enregistrée avec la ligne à chaque écriture.
+ * Le code, qui identifie la ligne, et les colonnes de traçabilité n'en font pas partie :
+ * deux lignes de même code et de même empreinte ont le même contenu.
+ */
+public final class RowHash {
+
+    // Séparateurs absents des données : "a|b" + "c" et "a" + "b|c" ne se confondent pas, null diffère de ""
+    private static final char SEPARATOR = '\u001F';
+    private static final char NULL = '\u0000';
+
+    private RowHash() {
+    }
+
+    public static String of(OperationalRiskReferential risk) {
+        return of(risk.getRiskName(), risk.getRiskDescription(), risk.getRiskCategory(), risk.getRiskType(),
+                risk.getBusinessLine(), risk.getImpactLevel(), risk.getProbabilityLevel());
+    }
+
+    public static String of(String... values) {
+        StringBuilder content = new StringBuilder();
+        for (String value : values) {
+            if (value != null) {
+                content.append(value);
+            } else {
+                content.append(NULL);
+            }
+            content.append(SEPARATOR);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+/**
+ * Bilan d'une écriture en mode UPSERT, par code distinct du fichier : un code répété compte une seule fois,
+ * comme inséré ou mis à jour si l'une de ses lignes a modifié la table, comme inchangé sinon.
+ */
+public record UpsertCounts(long inserted, long updated, long unchanged) {
+
+    public static final UpsertCounts NONE = new UpsertCounts(0, 0, 0);
+
+    public UpsertCounts plus(UpsertCounts other) {
+        return new UpsertCounts(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+}
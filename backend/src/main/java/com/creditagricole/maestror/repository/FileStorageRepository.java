@@ -1,11 +1,19 @@
 package com.creditagricole.maestror.repository;
 
 import com.creditagricole.maestror.entity.FileStorage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FileStorageRepository extends JpaRepository<FileStorage, Long> {
@@ -19,4 +27,49 @@ public interface FileStorageRepository extends JpaRepository<FileStorage, Long>
     List<FileStorage> findByUploadedAtBetween(LocalDateTime start, LocalDateTime end);
     
     List<FileStorage> findByCategoryAndStatus(String category, String status);
+
+    List<FileStorage> findByParentFileIdOrderById(Long parentFileId);
+
+    Optional<FileStorageSummary> findSummaryById(Long id);
+
+    /**
+     * Dernier upload d'un contenu identique pour la même cible (targetTable null = IS NULL) et le même mode de chargement,
+     * hors feuilles de classeur qui ne couvrent qu'une partie du fichier
+     */
+    Optional<FileStorageSummary> findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(
+            String contentHash, String category, String targetTable, String loadMode, Collection<String> statuses);
+
+    /**
+     * Un chargement de la même cible (fichier ou feuille de classeur) a-t-il été déposé après la date donnée
+     */
+    boolean existsByCategoryAndTargetTableAndUploadedAtAfter(String category, String targetTable, LocalDateTime uploadedAt);
+
+    /**
+     * Historique des fichiers, filtres optionnels (null = pas de filtre)
+     */
+    @Query("SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.category AS category, "
+            + "f.targetTable AS targetTable, f.parentFileId AS parentFileId, f.sheetName AS sheetName, "
+            + "f.fileSize AS fileSize, f.uploadedBy AS uploadedBy, f.status AS status, "
+            + "f.loadMode AS loadMode, f.errorMessage AS errorMessage, f.totalRecords AS totalRecords, "
+            + "f.processedRecords AS processedRecords, f.failedRecords AS failedRecords, "
+            + "f.insertedRecords AS insertedRecords, f.updatedRecords AS updatedRecords, "
+            + "f.unchangedRecords AS unchangedRecords, f.deactivatedRecords AS deactivatedRecords, "
+            + "f.uploadedAt AS uploadedAt, f.processedAt AS processedAt "
+            + "FROM FileStorage f "
+            + "WHERE (:category IS NULL OR f.category = :category) "
+            + "AND (:status IS NULL OR f.status = :status) "
+            + "AND (:uploadedBy IS NULL OR f.uploadedBy = :uploadedBy)")
+    Page<FileStorageSummary> findHistory(@Param("category") String category,
+                                         @Param("status") String status,
+                                         @Param("uploadedBy") String uploadedBy,
+                                         Pageable pageable);
+
+    /**
+     * Point d'avancement d'un fichier en cours, sans effet une fois le traitement terminé
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileStorage f SET f.processedRecords = :processed, f.failedRecords = :failed "
+            + "WHERE f.id = :id AND f.status = 'PROCESSING'")
+    int updateProgress(@Param("id") Long id, @Param("processed") int processed, @Param("failed") int failed);
 }
@@ -0,0 +1,52 @@
+package com.creditagricole.maestror.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection des métadonnées d'un fichier : seules ces colonnes sont lues,
+ * pour les consultations de statut et d'historique
+ */
+public interface FileStorageSummary {
+
+    Long getId();
+
+    String getFileName();
+
+    String getFileType();
+
+    String getCategory();
+
+    String getTargetTable();
+
+    Long getParentFileId();
+
+    String getSheetName();
+
+    Long getFileSize();
+
+    String getUploadedBy();
+
+    String getStatus();
+
+    String getLoadMode();
+
+    String getErrorMessage();
+
+    Integer getTotalRecords();
+
+    Integer getProcessedRecords();
+
+    Integer getFailedRecords();
+
+    Integer getInsertedRecords();
+
+    Integer getUpdatedRecords();
+
+    Integer getUnchangedRecords();
+
+    Integer getDeactivatedRecords();
+
+    LocalDateTime getUploadedAt();
+
+    LocalDateTime getProcessedAt();
+}
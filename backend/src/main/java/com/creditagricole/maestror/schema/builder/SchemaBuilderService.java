@@ -10,12 +10,14 @@ import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service de construction du schéma STAGING
@@ -34,6 +36,8 @@ public class SchemaBuilderService {
     @Value("${maestror.schema.auto-build:true}")
     private boolean autoBuild;
     
+    private volatile Map<String, SchemaTable> stagingTables = Map.of();
+    
     public SchemaBuilderService(JdbcTemplate jdbcTemplate, ExcelSchemaReader excelSchemaReader) {
         this.jdbcTemplate = jdbcTemplate;
         this.excelSchemaReader = excelSchemaReader;
@@ -59,6 +63,7 @@ public class SchemaBuilderService {
     public void buildSchema() {
         try {
             List<SchemaTable> tables = readExcelFile();
+            stagingTables = indexByName(tables);
             
             for (SchemaTable table : tables) {
                 if (tableExists(table.getNomTable())) {
@@ -80,6 +85,32 @@ public class SchemaBuilderService {
         }
     }
     
+    /**
+     * Retourne la définition d'une table STAGING (nom insensible à la casse).
+     * Le fichier Excel est relu si le schéma n'a pas été construit au démarrage.
+     */
+    public Optional<SchemaTable> findTable(String nomTable) {
+        if (nomTable == null) {
+            return Optional.empty();
+        }
+        if (stagingTables.isEmpty()) {
+            try {
+                stagingTables = indexByName(readExcelFile());
+            } catch (IOException e) {
+                throw new IllegalStateException("Impossible de lire le fichier Excel: " + excelPath, e);
+            }
+        }
+        return Optional.ofNullable(stagingTables.get(nomTable.toUpperCase()));
+    }
+    
+    private Map<String, SchemaTable> indexByName(List<SchemaTable> tables) {
+        Map<String, SchemaTable> index = new LinkedHashMap<>();
+        for (SchemaTable table : tables) {
+            index.put(table.getNomTable().toUpperCase(), table);
+        }
+        return index;
+    }
+    
     /**
      * Lit le fichier Excel
      */
@@ -98,9 +129,7 @@ public class SchemaBuilderService {
         
         log.info("Lecture du fichier Excel: {}", path.toAbsolutePath());
         
-        try (FileInputStream fis = new FileInputStream(path.toFile())) {
-            return excelSchemaReader.readModeleStagingSheet(fis);
-        }
+        return excelSchemaReader.readModeleStagingSheet(path);
     }
     
     /**
@@ -60,6 +60,21 @@ public class SchemaColumn {
         return ddl.toString();
     }
     
+    /**
+     * Type PostgreSQL de la colonne (sans taille)
+     */
+    public String sqlType() {
+        return mapType(typeChamps);
+    }
+    
+    /**
+     * Vrai si la valeur est générée par la base (SERIAL/BIGSERIAL) et ne doit pas être chargée
+     */
+    public boolean isGenerated() {
+        String mappedType = mapType(typeChamps);
+        return TYPE_SERIAL.equalsIgnoreCase(mappedType) || TYPE_BIGSERIAL.equalsIgnoreCase(mappedType);
+    }
+    
     /**
      * Mappe les types du fichier Excel vers les types PostgreSQL
      */
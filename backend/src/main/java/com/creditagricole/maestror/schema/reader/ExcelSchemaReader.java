@@ -2,14 +2,20 @@ package com.creditagricole.maestror.schema.reader;
 
 import com.creditagricole.maestror.schema.model.SchemaColumn;
 import com.creditagricole.maestror.schema.model.SchemaTable;
+import com.creditagricole.maestror.ingestion.reader.SharedStringsPolicy;
+import com.creditagricole.maestror.ingestion.reader.XlsxStreamingReader;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Service de lecture du fichier Excel Modeles_Mappings.xlsx
@@ -26,35 +32,56 @@ public class ExcelSchemaReader {
     private static final int COL_CLE_PRIMAIRE = 4;
     private static final int COL_CLE_ETRANGERE = 5;
     private static final int COL_DESCRIPTION = 6;
+    private static final Pattern INTEGRAL_NUMBER = Pattern.compile("-?\\d+\\.0");
+    
+    @Value("${maestror.ingestion.excel.shared-strings.disk-threshold:16MB}")
+    private DataSize sharedStringsDiskThreshold;
+
+    @Value("${maestror.ingestion.excel.shared-strings.cache-size:10000}")
+    private int sharedStringsCacheSize;
     
     /**
-     * Lit l'onglet MODELE_STAGING et retourne les tables
+     * Lit l'onglet MODELE_STAGING et retourne les tables (le flux est recopié dans un fichier temporaire)
      */
     public List<SchemaTable> readModeleStagingSheet(InputStream inputStream) throws IOException {
+        Path tmp = Files.createTempFile("maestror-schema-", ".xlsx");
+        try {
+            Files.copy(inputStream, tmp, StandardCopyOption.REPLACE_EXISTING);
+            return readModeleStagingSheet(tmp);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+    
+    /**
+     * Lit l'onglet MODELE_STAGING en flux (XSSFReader + SAX), sans charger le classeur en mémoire
+     */
+    public List<SchemaTable> readModeleStagingSheet(Path xlsx) throws IOException {
         Map<String, SchemaTable> tables = new LinkedHashMap<>();
         
-        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
-            Sheet sheet = workbook.getSheet(MODELE_STAGING_SHEET);
-            
-            if (sheet == null) {
-                log.warn("Onglet {} non trouvé dans le fichier Excel", MODELE_STAGING_SHEET);
-                return new ArrayList<>();
-            }
+        if (!XlsxStreamingReader.sheetNames(xlsx).contains(MODELE_STAGING_SHEET)) {
+            log.warn("Onglet {} non trouvé dans le fichier Excel", MODELE_STAGING_SHEET);
+            return new ArrayList<>();
+        }
+        
+        SharedStringsPolicy policy = new SharedStringsPolicy(sharedStringsDiskThreshold.toBytes(), sharedStringsCacheSize);
+        try (XlsxStreamingReader reader = XlsxStreamingReader.open(xlsx, MODELE_STAGING_SHEET, policy)) {
+            // Ignorer l'en-tête
+            reader.nextRow();
             
-            // Parcourir les lignes (en ignorant l'en-tête)
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null || isRowEmpty(row)) {
+            String[] row;
+            while ((row = reader.nextRow()) != null) {
+                if (isRowEmpty(row)) {
                     continue;
                 }
                 
-                String nomTable = getCellValue(row.getCell(COL_NOM_TABLE));
-                String nomChamp = getCellValue(row.getCell(COL_NOM_CHAMP));
-                String typeChamps = getCellValue(row.getCell(COL_TYPE_CHAMPS));
-                String tailleChamps = getCellValue(row.getCell(COL_TAILLE_CHAMPS));
-                String clePrimaire = getCellValue(row.getCell(COL_CLE_PRIMAIRE));
-                String cleEtrangere = getCellValue(row.getCell(COL_CLE_ETRANGERE));
-                String description = getCellValue(row.getCell(COL_DESCRIPTION));
+                String nomTable = getCellValue(row, COL_NOM_TABLE);
+                String nomChamp = getCellValue(row, COL_NOM_CHAMP);
+                String typeChamps = getCellValue(row, COL_TYPE_CHAMPS);
+                String tailleChamps = getCellValue(row, COL_TAILLE_CHAMPS);
+                String clePrimaire = getCellValue(row, COL_CLE_PRIMAIRE);
+                String cleEtrangere = getCellValue(row, COL_CLE_ETRANGERE);
+                String description = getCellValue(row, COL_DESCRIPTION);
                 
                 // Créer ou récupérer la table
                 SchemaTable table = tables.computeIfAbsent(nomTable, k -> 
@@ -82,28 +109,24 @@ public class ExcelSchemaReader {
     }
     
     /**
-     * Récupère la valeur d'une cellule en tant que String
+     * Récupère la valeur d'une cellule en tant que String ; les nombres entiers
+     * (rendus "255.0" par la lecture en flux) sont restitués sans décimale
      */
-    private String getCellValue(Cell cell) {
-        if (cell == null) {
+    private String getCellValue(String[] row, int column) {
+        if (column >= row.length || row[column] == null) {
             return "";
         }
         
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue().trim();
-            case NUMERIC -> String.valueOf((int) cell.getNumericCellValue());
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            default -> "";
-        };
+        String value = row[column].trim();
+        return INTEGRAL_NUMBER.matcher(value).matches() ? value.substring(0, value.length() - 2) : value;
     }
     
     /**
      * Vérifie si une ligne est vide
      */
-    private boolean isRowEmpty(Row row) {
+    private boolean isRowEmpty(String[] row) {
         for (int i = 0; i < 7; i++) {
-            Cell cell = row.getCell(i);
-            if (cell != null && !getCellValue(cell).isEmpty()) {
+            if (!getCellValue(row, i).isEmpty()) {
                 return false;
             }
         }
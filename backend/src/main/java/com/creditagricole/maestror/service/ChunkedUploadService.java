@@ -0,0 +1,311 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.dto.ChunkedUploadResponse;
+import com.creditagricole.maestror.dto.FileUploadResponse;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.storage.ContentStore;
+import com.creditagricole.maestror.storage.StoredContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Upload par morceaux pour les fichiers volumineux : ouverture d'une session, envoi des morceaux
+ * numérotés (dans n'importe quel ordre, renvoi possible), puis finalisation.
+ * <p>
+ * Les morceaux sont écrits sur disque au fil de la réception, jamais en mémoire. Une session survit
+ * à une coupure réseau comme à un redémarrage : le client interroge la session pour savoir quels
+ * morceaux renvoyer. À la finalisation, les morceaux sont concaténés par transferTo (copie noyau)
+ * puis enregistrés dans le ContentStore.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final String SESSION_FILE = "upload.properties";
+    private static final String COMPLETING_MARKER = "completing";
+    private static final Pattern CHUNK_FILE = Pattern.compile("chunk-(\\d{6})\\.part");
+    private static final int MAX_CHUNKS = 100_000;
+
+    private final FileUploadService fileUploadService;
+    private final ContentStore contentStore;
+    private final Path spoolDir;
+    private final long maxFileSize;
+    private final long maxChunkSize;
+    private final Duration sessionTtl;
+
+    public ChunkedUploadService(FileUploadService fileUploadService,
+                                ContentStore contentStore,
+                                @Value("${maestror.upload.spool-dir:./data/uploads}") String spoolDir,
+                                @Value("${maestror.upload.max-size:10GB}") DataSize maxFileSize,
+                                @Value("${maestror.upload.chunk-max-size:64MB}") DataSize maxChunkSize,
+                                @Value("${maestror.upload.session-ttl:24h}") Duration sessionTtl) throws IOException {
+        this.fileUploadService = fileUploadService;
+        this.contentStore = contentStore;
+        this.spoolDir = Paths.get(spoolDir).toAbsolutePath().normalize();
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxChunkSize = maxChunkSize.toBytes();
+        this.sessionTtl = sessionTtl;
+        Files.createDirectories(this.spoolDir);
+    }
+
+    /**
+     * Ouvre une session d'upload ; les contrôles de l'upload direct (extension, table cible) s'appliquent
+     *
+     * @param totalSize taille annoncée du fichier, vérifiée à la finalisation (facultative)
+     */
+    public ChunkedUploadResponse initiate(String fileName, String category, String uploadedBy, String targetTable,
+                                          String loadMode, Long totalSize) throws IOException {
+        fileUploadService.validateFileName(fileName);
+        fileUploadService.validateTarget(category, targetTable);
+        fileUploadService.validateCategory(category, fileName);
+        LoadMode mode = fileUploadService.resolveLoadMode(category, loadMode);
+        if (totalSize != null && (totalSize <= 0 || totalSize > maxFileSize)) {
+            throw new IllegalArgumentException("File size must be between 1 byte and " + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path dir = Files.createDirectory(spoolDir.resolve(uploadId));
+        Properties session = new Properties();
+        session.setProperty("fileName", fileName);
+        session.setProperty("category", category.toUpperCase());
+        session.setProperty("uploadedBy", uploadedBy);
+        session.setProperty("loadMode", mode.name());
+        if (targetTable != null) {
+            session.setProperty("targetTable", targetTable);
+        }
+        if (totalSize != null) {
+            session.setProperty("totalSize", totalSize.toString());
+        }
+        try (Writer out = Files.newBufferedWriter(dir.resolve(SESSION_FILE))) {
+            session.store(out, null);
+        }
+        log.info("Chunked upload {} initiated for {}", uploadId, fileName);
+        return buildResponse(uploadId, session, "Upload session created");
+    }
+
+    /**
+     * Écrit un morceau. Un morceau renvoyé remplace atomiquement la version précédente :
+     * un renvoi après coupure est sans effet de bord.
+     */
+    public ChunkedUploadResponse writeChunk(String uploadId, int index, InputStream body) throws IOException {
+        Path dir = sessionDir(uploadId);
+        Properties session = loadSession(dir);
+        if (index < 0 || index >= MAX_CHUNKS) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (MAX_CHUNKS - 1));
+        }
+
+        Path tmp = Files.createTempFile(dir, "chunk-", ".tmp");
+        try {
+            long written = copyLimited(body, tmp);
+            if (written == 0) {
+                throw new IllegalArgumentException("Chunk is empty");
+            }
+            if (receivedBytes(dir, index) + written > maxFileSize) {
+                throw new IllegalArgumentException("File size exceeds maximum limit of " + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB");
+            }
+            Files.move(tmp, dir.resolve(chunkName(index)), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return buildResponse(uploadId, session, "Chunk " + index + " received");
+    }
+
+    public ChunkedUploadResponse getStatus(String uploadId) throws IOException {
+        Path dir = sessionDir(uploadId);
+        return buildResponse(uploadId, loadSession(dir), "Upload session in progress");
+    }
+
+    /**
+     * Assemble les morceaux 0..chunkCount-1 et enregistre le fichier comme un upload direct
+     */
+    public FileUploadResponse complete(String uploadId, int chunkCount, boolean reprocess) throws IOException {
+        Path dir = sessionDir(uploadId);
+        Properties session = loadSession(dir);
+        List<Integer> received = receivedChunks(dir);
+        if (chunkCount <= 0 || received.size() != chunkCount || received.get(chunkCount - 1) != chunkCount - 1) {
+            throw new IllegalArgumentException("Expected chunks 0 to " + (chunkCount - 1) + ", received " + received);
+        }
+        try {
+            Files.createFile(dir.resolve(COMPLETING_MARKER));
+        } catch (FileAlreadyExistsException e) {
+            throw new IllegalStateException("Upload " + uploadId + " is already being completed");
+        }
+
+        try {
+            Path assembled = dir.resolve("assembled.bin");
+            long size = assemble(dir, chunkCount, assembled);
+            String totalSize = session.getProperty("totalSize");
+            if (totalSize != null && Long.parseLong(totalSize) != size) {
+                throw new IllegalArgumentException("Received " + size + " bytes, expected " + totalSize);
+            }
+            log.info("Chunked upload {} assembled: {} chunks, {} bytes", uploadId, chunkCount, size);
+
+            String fileName = session.getProperty("fileName");
+            FileUploadResponse response;
+            if (UploadCompression.of(fileName) == UploadCompression.NONE) {
+                StoredContent content = contentStore.storeFile(assembled);
+                response = fileUploadService.registerUpload(fileName, session.getProperty("category"),
+                        session.getProperty("uploadedBy"), session.getProperty("targetTable"),
+                        LoadMode.of(session.getProperty("loadMode")), reprocess, content);
+            } else {
+                // Fichier compressé : décompressé en flux vers le ContentStore
+                try (InputStream in = Files.newInputStream(assembled)) {
+                    response = fileUploadService.storeAndRegister(fileName, session.getProperty("category"),
+                            session.getProperty("uploadedBy"), session.getProperty("targetTable"),
+                            LoadMode.of(session.getProperty("loadMode")), reprocess, in);
+                }
+            }
+            FileSystemUtils.deleteRecursively(dir);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(dir.resolve(COMPLETING_MARKER));
+            throw e;
+        }
+    }
+
+    public void abort(String uploadId) throws IOException {
+        FileSystemUtils.deleteRecursively(sessionDir(uploadId));
+        log.info("Chunked upload {} aborted", uploadId);
+    }
+
+    /**
+     * Supprime les sessions sans activité depuis plus que la durée de vie configurée
+     */
+    @Scheduled(fixedDelayString = "${maestror.upload.cleanup-interval:PT1H}")
+    public void purgeExpiredSessions() throws IOException {
+        Instant limit = Instant.now().minus(sessionTtl);
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(spoolDir, Files::isDirectory)) {
+            for (Path dir : sessions) {
+                if (Files.getLastModifiedTime(dir).toInstant().isBefore(limit)) {
+                    log.info("Purging expired upload session {}", dir.getFileName());
+                    FileSystemUtils.deleteRecursively(dir);
+                }
+            }
+        }
+    }
+
+    private long copyLimited(InputStream body, Path target) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int n;
+            while ((n = body.read(buffer)) > 0) {
+                written += n;
+                if (written > maxChunkSize) {
+                    throw new IllegalArgumentException("Chunk size exceeds maximum limit of " + DataSize.ofBytes(maxChunkSize).toMegabytes() + "MB");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return written;
+    }
+
+    private long assemble(Path dir, int chunkCount, Path assembled) throws IOException {
+        try (FileChannel out = FileChannel.open(assembled, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < chunkCount; i++) {
+                try (FileChannel in = FileChannel.open(dir.resolve(chunkName(i)), StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            return out.size();
+        }
+    }
+
+    private Path sessionDir(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchElementException("Upload session not found: " + uploadId);
+        }
+        Path dir = spoolDir.resolve(uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new NoSuchElementException("Upload session not found: " + uploadId);
+        }
+        return dir;
+    }
+
+    private static Properties loadSession(Path dir) throws IOException {
+        Properties session = new Properties();
+        try (Reader in = Files.newBufferedReader(dir.resolve(SESSION_FILE))) {
+            session.load(in);
+        }
+        return session;
+    }
+
+    private static List<Integer> receivedChunks(Path dir) throws IOException {
+        List<Integer> chunks = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "chunk-*.part")) {
+            for (Path file : files) {
+                Matcher matcher = CHUNK_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    chunks.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        chunks.sort(null);
+        return chunks;
+    }
+
+    /**
+     * Octets déjà reçus, hors morceau en cours de (re)transmission
+     */
+    private static long receivedBytes(Path dir, int excludedIndex) throws IOException {
+        long total = 0;
+        for (int index : receivedChunks(dir)) {
+            if (index != excludedIndex) {
+                total += Files.size(dir.resolve(chunkName(index)));
+            }
+        }
+        return total;
+    }
+
+    private static String chunkName(int index) {
+        return String.format("chunk-%06d.part", index);
+    }
+
+    private ChunkedUploadResponse buildResponse(String uploadId, Properties session, String message) throws IOException {
+        Path dir = spoolDir.resolve(uploadId);
+        String totalSize = session.getProperty("totalSize");
+        return ChunkedUploadResponse.builder()
+                .uploadId(uploadId)
+                .fileName(session.getProperty("fileName"))
+                .category(session.getProperty("category"))
+                .totalSize(totalSize != null ? Long.valueOf(totalSize) : null)
+                .receivedChunks(receivedChunks(dir))
+                .receivedBytes(receivedBytes(dir, -1))
+                .message(message)
+                .build();
+    }
+}
@@ -1,281 +1,213 @@
 package com.creditagricole.maestror.service;
 
 import com.creditagricole.maestror.entity.*;
+import com.creditagricole.maestror.ingestion.batch.FileIngestionJobLauncher;
+import com.creditagricole.maestror.ingestion.batch.FileIngestionResult;
+import com.creditagricole.maestror.ingestion.delta.DeltaSummary;
+import com.creditagricole.maestror.ingestion.delta.ReferentialDeltaLoader;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgress;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeCache;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowBuffer;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowStore;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.staging.StagingLoadResult;
+import com.creditagricole.maestror.ingestion.staging.StagingTableLoader;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
 import com.creditagricole.maestror.repository.*;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
+import com.creditagricole.maestror.schema.builder.SchemaBuilderService;
+import com.creditagricole.maestror.schema.model.SchemaTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileProcessingService {
 
-    // Issue #5 et #6 - Constantes pour litteraux dupliques
-    private static final String RISK_LEVEL_MEDIUM = "MEDIUM";
-    private static final String ERROR_LOG_MESSAGE = "Error processing row {}: {}";
-
     private final FileStorageRepository fileStorageRepository;
-    private final OperationalRiskReferentialRepository riskReferentialRepository;
-    private final IncidentRepository incidentRepository;
-    private final ControlRepository controlRepository;
-    private final TestDataRepository testDataRepository;
-    private final ParamFichierService paramFichierService;
+    private final RowSourceFactory rowSourceFactory;
+    private final FileIngestionJobLauncher fileIngestionJobLauncher;
+    private final StagingTableLoader stagingTableLoader;
+    private final SchemaBuilderService schemaBuilderService;
+    private final IngestionProgressTracker ingestionProgressTracker;
+    private final RejectedRowStore rejectedRowStore;
+    private final ReferentialDeltaLoader referentialDeltaLoader;
+    private final RiskCodeCache riskCodeCache;
+
+    @Value("${maestror.ingestion.copy-categories:}")
+    private Set<String> copyCategories;
 
-    @Transactional
+    /**
+     * Pas de transaction englobante : chaque lot JDBC est validé indépendamment,
+     * les lignes déjà écrites sont conservées même si une ligne ultérieure échoue.
+     * Les catégories REFERENTIAL, INCIDENT, CONTROL et TEST sont traitées par un job Spring Batch :
+     * retraiter un fichier en échec reprend le chargement après le dernier chunk validé.
+     * Un référentiel en mode DELTA est comparé à l'existant et appliqué en une transaction.
+     * Tout chargement de référentiel, même en échec, invalide le cache des codes risque.
+     * L'avancement est suivi en mémoire pendant le traitement (voir {@link IngestionProgressTracker}).
+     */
     public void processFile(FileStorage fileStorage) {
         log.info("Starting to process file: {} (ID: {})", fileStorage.getFileName(), fileStorage.getId());
         
         fileStorage.setStatus("PROCESSING");
         fileStorageRepository.save(fileStorage);
+        IngestionProgress progress = ingestionProgressTracker.start(fileStorage);
         
         try {
-            List<String[]> records;
-            
-            if ("CSV".equals(fileStorage.getFileType())) {
-                records = parseCSV(fileStorage.getFileContent());
-            } else if ("EXCEL".equals(fileStorage.getFileType())) {
-                records = parseExcel(fileStorage.getFileContent());
-            } else {
-                throw new IllegalArgumentException("Unsupported file type: " + fileStorage.getFileType());
-            }
-            
-            // Pour TEST, pas d'en-tête - compter toutes les lignes
-            if ("TEST".equals(fileStorage.getCategory())) {
-                fileStorage.setTotalRecords(records.size());
+            if (LoadMode.of(fileStorage.getLoadMode()) == LoadMode.DELTA) {
+                try (RowSource records = rowSourceFactory.open(fileStorage)) {
+                    processReferentialDelta(records, fileStorage, progress);
+                }
+            } else if (fileIngestionJobLauncher.supports(fileStorage.getCategory())) {
+                runIngestionJob(fileStorage);
             } else {
-                fileStorage.setTotalRecords(records.size() - 1); // Exclude header pour les autres
-            }
-            
-            // Process based on category
-            switch (fileStorage.getCategory()) {
-                case "REFERENTIAL" -> processReferentialData(records, fileStorage);
-                case "INCIDENT" -> processIncidentData(records, fileStorage);
-                case "CONTROL" -> processControlData(records, fileStorage);
-                case "TEST" -> processTestData(records, fileStorage);
-                default -> throw new IllegalArgumentException("Unknown category: " + fileStorage.getCategory());
+                try (RowSource records = rowSourceFactory.open(fileStorage)) {
+                    processRecords(records, fileStorage, progress);
+                }
             }
             
             fileStorage.setStatus("COMPLETED");
             fileStorage.setProcessedAt(LocalDateTime.now());
             log.info("File processing completed: {} (ID: {})", fileStorage.getFileName(), fileStorage.getId());
+            if (fileStorage.getFailedRecords() != null && fileStorage.getFailedRecords() > 0) {
+                log.warn("File {} (ID: {}): {} rows rejected, see /api/files/{}/rejected-rows", fileStorage.getFileName(),
+                        fileStorage.getId(), fileStorage.getFailedRecords(), fileStorage.getId());
+            }
             
         } catch (Exception e) {
             log.error("Error processing file: {}", e.getMessage(), e);
             fileStorage.setStatus("FAILED");
             fileStorage.setErrorMessage(e.getMessage());
         } finally {
+            if ("REFERENTIAL".equals(fileStorage.getCategory())) {
+                riskCodeCache.invalidate();
+            }
             fileStorageRepository.save(fileStorage);
+            ingestionProgressTracker.finish(fileStorage.getId());
         }
     }
 
-    private List<String[]> parseCSV(byte[] content) throws IOException, CsvException {
-        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(content)))) {
-            return reader.readAll();
+    private void runIngestionJob(FileStorage fileStorage) throws JobExecutionException {
+        FileIngestionResult result = fileIngestionJobLauncher.run(fileStorage);
+        updateCounters(fileStorage, result.writtenCount(), result.failedCount());
+        if (result.upsertCounts() != null) {
+            fileStorage.setInsertedRecords((int) result.upsertCounts().inserted());
+            fileStorage.setUpdatedRecords((int) result.upsertCounts().updated());
+            fileStorage.setUnchangedRecords((int) result.upsertCounts().unchanged());
         }
-    }
-
-    private List<String[]> parseExcel(byte[] content) throws IOException {
-        List<String[]> records = new ArrayList<>();
-        
-        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            for (Row row : sheet) {
-                List<String> values = new ArrayList<>();
-                for (Cell cell : row) {
-                    values.add(getCellValueAsString(cell));
-                }
-                records.add(values.toArray(new String[0]));
-            }
+        if (!result.isCompleted()) {
+            throw new IllegalStateException("Ingestion job " + result.status() + ": " + result.failureMessage());
         }
-        
-        return records;
     }
 
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
+    /**
+     * Les compteurs du fichier reprennent le différentiel : insérés, mis à jour, inchangés et désactivés
+     */
+    private void processReferentialDelta(RowSource records, FileStorage fileStorage, IngestionProgress progress)
+            throws IOException {
+        if (!"REFERENTIAL".equals(fileStorage.getCategory())) {
+            throw new IllegalArgumentException("Load mode DELTA is not supported for " + fileStorage.getCategory());
         }
-        
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> {
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    yield cell.getLocalDateTimeCellValue().toLocalDate().toString();
-                } else {
-                    yield String.valueOf(cell.getNumericCellValue());
-                }
-            }
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            case FORMULA -> cell.getCellFormula();
-            default -> "";
-        };
+        records.nextRow();
+        RejectedRowBuffer rejectedRows = rejectedRowStore.open(fileStorage.getId());
+        DeltaSummary summary;
+        try {
+            summary = referentialDeltaLoader.load(countingRows(records, progress), fileStorage, (rowNumber, values, e) -> {
+                progress.addProcessed(-1);
+                progress.addFailed(1);
+                rejectedRows.add(rowNumber, values, e);
+            });
+        } finally {
+            rejectedRows.flush();
+        }
+        updateCounters(fileStorage, summary.acceptedCount(), summary.rejected());
+        fileStorage.setInsertedRecords((int) summary.inserted());
+        fileStorage.setUpdatedRecords((int) summary.updated());
+        fileStorage.setUnchangedRecords((int) summary.unchanged());
+        fileStorage.setDeactivatedRecords((int) summary.deactivated());
     }
 
-    private void processReferentialData(List<String[]> records, FileStorage fileStorage) {
-        int processed = 0;
-        int failed = 0;
-        
-        // Skip header row
-        for (int i = 1; i < records.size(); i++) {
-            try {
-                String[] row = records.get(i);
-                
-                OperationalRiskReferential risk = OperationalRiskReferential.builder()
-                        .riskCode(row[0])
-                        .riskName(row[1])
-                        .riskDescription(row.length > 2 ? row[2] : "")
-                        .riskCategory(row.length > 3 ? row[3] : "")
-                        .riskType(row.length > 4 ? row[4] : "")
-                        .businessLine(row.length > 5 ? row[5] : "")
-                        .impactLevel(row.length > 6 ? row[6] : RISK_LEVEL_MEDIUM)
-                        .probabilityLevel(row.length > 7 ? row[7] : RISK_LEVEL_MEDIUM)
-                        .active(true)
-                        .fileStorage(fileStorage)
-                        .build();
-                
-                riskReferentialRepository.save(risk);
-                processed++;
-                
-            } catch (Exception e) {
-                // Issue #5 - Utiliser constante
-                log.error(ERROR_LOG_MESSAGE, i, e.getMessage());
-                failed++;
-            }
+    private void processRecords(RowSource records, FileStorage fileStorage, IngestionProgress progress) throws IOException {
+        if ("STAGING".equals(fileStorage.getCategory())) {
+            processStagingData(records, fileStorage, progress);
+        } else {
+            throw new IllegalArgumentException("Unknown category: " + fileStorage.getCategory());
         }
-        
-        fileStorage.setProcessedRecords(processed);
-        fileStorage.setFailedRecords(failed);
     }
 
-    // Issue #7 - Extraire methode pour reduire complexite cognitive
-    private void processIncidentData(List<String[]> records, FileStorage fileStorage) {
-        int processed = 0;
-        int failed = 0;
+    /**
+     * Chargement générique d'une table déclarée dans MODELE_STAGING, colonnes retrouvées par l'en-tête du fichier.
+     * Le moteur COPY est activé par catégorie via maestror.ingestion.copy-categories.
+     * L'avancement compte les lignes lues, corrigé à chaque ligne rejetée ;
+     * les lignes rejetées sont enregistrées dans FILE_REJECTED_ROW.
+     */
+    private void processStagingData(RowSource records, FileStorage fileStorage, IngestionProgress progress) throws IOException {
+        SchemaTable table = schemaBuilderService.findTable(fileStorage.getTargetTable())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown STAGING table: " + fileStorage.getTargetTable()));
         
-        for (int i = 1; i < records.size(); i++) {
-            try {
-                Incident incident = buildIncidentFromRow(records.get(i), fileStorage);
-                incidentRepository.save(incident);
-                processed++;
-            } catch (Exception e) {
-                log.error(ERROR_LOG_MESSAGE, i, e.getMessage());
-                failed++;
-            }
+        String[] header = records.nextRow();
+        RejectedRowBuffer rejectedRows = rejectedRowStore.open(fileStorage.getId());
+        StagingLoadResult result;
+        try {
+            result = stagingTableLoader.load(table, header, countingRows(records, progress),
+                    copyCategories.contains(fileStorage.getCategory()), (rowNumber, values, e) -> {
+                        progress.addProcessed(-1);
+                        progress.addFailed(1);
+                        rejectedRows.add(rowNumber, values, e);
+                    });
+        } finally {
+            rejectedRows.flush();
         }
-        
-        fileStorage.setProcessedRecords(processed);
-        fileStorage.setFailedRecords(failed);
-    }
-    
-    private Incident buildIncidentFromRow(String[] row, FileStorage fileStorage) {
-        return Incident.builder()
-                .incidentCode(row[0])
-                .incidentTitle(row[1])
-                .incidentDescription(row.length > 2 ? row[2] : "")
-                .incidentDate(row.length > 3 ? LocalDate.parse(row[3]) : LocalDate.now())
-                .severity(row.length > 4 ? row[4] : RISK_LEVEL_MEDIUM)
-                .status(row.length > 5 ? row[5] : "OPEN")
-                .entityCode(row.length > 6 ? row[6] : "")
-                .businessUnit(row.length > 7 ? row[7] : "")
-                .financialImpact(row.length > 8 && !row[8].isEmpty() ? new BigDecimal(row[8]) : BigDecimal.ZERO)
-                .currency(row.length > 9 ? row[9] : "EUR")
-                .detectedBy(row.length > 10 ? row[10] : "")
-                .fileStorage(fileStorage)
-                .build();
+        updateCounters(fileStorage, result.writtenCount(), result.failedCount());
     }
 
-    // Issue #8 - Extraire methode pour reduire complexite cognitive
-    private void processControlData(List<String[]> records, FileStorage fileStorage) {
-        int processed = 0;
-        int failed = 0;
-        
-        for (int i = 1; i < records.size(); i++) {
-            try {
-                Control control = buildControlFromRow(records.get(i), fileStorage);
-                controlRepository.save(control);
-                processed++;
-            } catch (Exception e) {
-                log.error(ERROR_LOG_MESSAGE, i, e.getMessage());
-                failed++;
+    private static RowSource countingRows(RowSource records, IngestionProgress progress) {
+        return new RowSource() {
+            @Override
+            public String[] nextRow() throws IOException {
+                String[] row = records.nextRow();
+                if (row != null) {
+                    progress.addProcessed(1);
+                }
+                return row;
             }
-        }
-        
-        fileStorage.setProcessedRecords(processed);
-        fileStorage.setFailedRecords(failed);
-    }
-    
-    private Control buildControlFromRow(String[] row, FileStorage fileStorage) {
-        return Control.builder()
-                .controlCode(row[0])
-                .controlName(row[1])
-                .controlDescription(row.length > 2 ? row[2] : "")
-                .controlType(row.length > 3 ? row[3] : "DETECTIVE")
-                .frequency(row.length > 4 ? row[4] : "MONTHLY")
-                .entityCode(row.length > 5 ? row[5] : "")
-                .responsiblePerson(row.length > 6 ? row[6] : "")
-                .status(row.length > 7 ? row[7] : "ACTIVE")
-                .effectiveness(row.length > 8 ? row[8] : "EFFECTIVE")
-                .fileStorage(fileStorage)
-                .build();
-    }
 
-    private void processTestData(List<String[]> records, FileStorage fileStorage) {
-        int processed = 0;
-        int failed = 0;
-        
-        // 1. Créer une entrée dans PARAM_FICHIER pour tracer ce fichier
-        ParamFichier paramFichier = paramFichierService.enregistrerReceptionFichier(fileStorage.getFileName());
-        log.info("Fichier {} enregistré dans PARAM_FICHIER avec ID: {}", 
-                 fileStorage.getFileName(), paramFichier.getIdFichier());
-        
-        // 2. Pour TEST, pas d'en-tête - traiter toutes les lignes depuis i=0
-        for (int i = 0; i < records.size(); i++) {
-            try {
-                String[] row = records.get(i);
-                
-                // Prendre le premier champ comme données texte
-                String textData = row.length > 0 ? row[0] : "";
-                
-                // Limiter à 500 caractères
-                if (textData.length() > 500) {
-                    textData = textData.substring(0, 500);
+            @Override
+            public RowView nextView() throws IOException {
+                RowView row = records.nextView();
+                if (row != null) {
+                    progress.addProcessed(1);
                 }
-                
-                TestData testData = TestData.builder()
-                        .textData(textData)
-                        .fileStorage(fileStorage)
-                        .build();
-                
-                testDataRepository.save(testData);
-                processed++;
-                
-            } catch (Exception e) {
-                log.error(ERROR_LOG_MESSAGE, i, e.getMessage());
-                failed++;
+                return row;
             }
-        }
-        
+
+            @Override
+            public long getRowNumber() {
+                return records.getRowNumber();
+            }
+
+            @Override
+            public void close() throws IOException {
+                records.close();
+            }
+        };
+    }
+
+    private void updateCounters(FileStorage fileStorage, long written, long rejected) {
+        int processed = (int) written;
+        int failed = (int) rejected;
+        fileStorage.setTotalRecords(processed + failed);
         fileStorage.setProcessedRecords(processed);
         fileStorage.setFailedRecords(failed);
-        
-        // 3. Mettre à jour la date d'intégration STAGING après traitement réussi
-        paramFichierService.mettreAJourDateIntegration(paramFichier.getIdFichier());
-        log.info("Intégration STAGING terminée pour fichier ID: {}", paramFichier.getIdFichier());
     }
 }
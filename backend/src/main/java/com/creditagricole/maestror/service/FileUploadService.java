@@ -2,69 +2,240 @@ package com.creditagricole.maestror.service;
 
 import com.creditagricole.maestror.dto.FileUploadResponse;
 import com.creditagricole.maestror.entity.*;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
 import com.creditagricole.maestror.repository.*;
+import com.creditagricole.maestror.storage.ContentStore;
+import com.creditagricole.maestror.storage.StoredContent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileUploadService {
 
+    // Catégories dont le code métier est unique, chargeables en mode UPSERT
+    static final List<String> UPSERT_CATEGORIES = List.of("REFERENTIAL", "INCIDENT", "CONTROL");
+
+    // Catégories envoyées en totalité à chaque livraison, chargeables en mode DELTA
+    static final List<String> DELTA_CATEGORIES = List.of("REFERENTIAL");
+
+    // Uploads dont le résultat peut être réutilisé pour un contenu identique
+    private static final List<String> REUSABLE_STATUSES = List.of(IngestionQueueService.STATUS_QUEUED, "PROCESSING", "COMPLETED");
+
     private final FileStorageRepository fileStorageRepository;
-    private final FileProcessingService fileProcessingService;
+    private final IngestionQueueService ingestionQueueService;
+    private final ContentStore contentStore;
+
+    // Taille maximale d'un fichier une fois décompressé (protection contre les archives piégées)
+    @Value("${maestror.upload.max-expanded-size:10GB}")
+    private DataSize maxExpandedSize;
 
-    @Transactional
     public FileUploadResponse uploadFile(MultipartFile file, String category, String uploadedBy) {
+        return uploadFile(file, category, uploadedBy, null, null, false);
+    }
+
+    /**
+     * Enregistre le fichier et le place en file d'attente de traitement.
+     * La réponse est renvoyée sans attendre le traitement : son avancement se suit via {@link #getFileStatus(Long)}.
+     *
+     * Un contenu identique (même SHA-256, même catégorie et même table cible) déjà traité ou en cours
+     * n'est pas retraité : la réponse pointe vers le fichier existant, sauf si reprocess est demandé.
+     * Les fichiers .gz et .zip sont décompressés à la réception (voir {@link #storeAndRegister}).
+     *
+     * @param targetTable table MODELE_STAGING à alimenter (obligatoire pour la catégorie STAGING)
+     * @param loadMode    INSERT (défaut) ou UPSERT sur le code métier
+     * @param reprocess   force le traitement même si un contenu identique a déjà été chargé
+     * @throws TaskRejectedException si la file d'attente de traitement est pleine
+     */
+    public FileUploadResponse uploadFile(MultipartFile file, String category, String uploadedBy,
+                                         String targetTable, String loadMode, boolean reprocess) {
         try {
             // Validate file
             validateFile(file);
+            validateTarget(category, targetTable);
+            validateCategory(category, file.getOriginalFilename());
+            LoadMode mode = resolveLoadMode(category, loadMode);
             
-            // Determine file type
-            String fileType = determineFileType(file.getOriginalFilename());
-            
-            // Save file to database
-            FileStorage fileStorage = FileStorage.builder()
-                    .fileName(file.getOriginalFilename())
-                    .fileType(fileType)
-                    .category(category.toUpperCase())
-                    .fileSize(file.getSize())
-                    .fileContent(file.getBytes())
-                    .uploadedBy(uploadedBy)
-                    .status("UPLOADED")
-                    .totalRecords(0)
-                    .processedRecords(0)
-                    .failedRecords(0)
-                    .build();
-            
-            fileStorage = fileStorageRepository.save(fileStorage);
-            log.info("File uploaded successfully: {} (ID: {})", file.getOriginalFilename(), fileStorage.getId());
-            
-            // Issue #9 - Extraire le traitement dans une methode separee
-            processFileWithErrorHandling(fileStorage);
-            
-            return buildResponse(fileStorage, "File uploaded successfully");
+            // Le contenu est écrit en flux dans le ContentStore, la base ne garde que sa référence
+            try (InputStream in = file.getInputStream()) {
+                return storeAndRegister(file.getOriginalFilename(), category, uploadedBy, targetTable, mode, reprocess, in);
+            }
             
         } catch (IOException e) {
             log.error("Error uploading file: {}", e.getMessage(), e);
             throw new IllegalStateException("Failed to upload file: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Écrit un contenu reçu en flux dans le ContentStore puis l'enregistre.
+     * Un .gz est décompressé au fil de l'écriture, sans être chargé en mémoire ; une archive .zip
+     * donne un fichier et un traitement par entrée CSV, Excel ou TXT (les autres entrées sont ignorées).
+     */
+    public FileUploadResponse storeAndRegister(String fileName, String category, String uploadedBy, String targetTable,
+                                               LoadMode loadMode, boolean reprocess, InputStream in) throws IOException {
+        UploadCompression compression = UploadCompression.of(fileName);
+        return switch (compression) {
+            case GZIP -> registerUpload(compression.contentName(fileName), category, uploadedBy, targetTable, loadMode,
+                    reprocess, contentStore.store(new ExpandedInputStream(new GZIPInputStream(in, 65536), fileName, true)));
+            case ZIP -> registerArchive(fileName, category, uploadedBy, targetTable, loadMode, reprocess, in);
+            case NONE -> registerUpload(fileName, category, uploadedBy, targetTable, loadMode, reprocess, contentStore.store(in));
+        };
+    }
+
+    /**
+     * Toutes les entrées sont d'abord contrôlées et écrites dans le ContentStore : une entrée invalide ou trop
+     * volumineuse rejette l'archive entière sans qu'aucun fichier n'ait été enregistré ni mis en file.
+     * Les entrées sont ensuite enregistrées une à une ; si la file d'attente se remplit en cours de route,
+     * les entrées refusées sont renvoyées en échec (relançables via /api/files/{id}/retry) à côté des
+     * entrées acceptées. L'archive n'est refusée en bloc que si aucune entrée n'a pu être mise en file.
+     */
+    private FileUploadResponse registerArchive(String archiveName, String category, String uploadedBy, String targetTable,
+                                               LoadMode loadMode, boolean reprocess, InputStream in) throws IOException {
+        List<Map.Entry<String, StoredContent>> contents = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String entryName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (entry.isDirectory() || !isSupportedFileName(entryName)) {
+                    log.info("Skipping archive entry {} of {}", entry.getName(), archiveName);
+                    continue;
+                }
+                validateCategory(category, entryName);
+                // Le flux de l'archive reste ouvert pour les entrées suivantes
+                contents.add(Map.entry(entryName, contentStore.store(new ExpandedInputStream(zip, entry.getName(), false))));
+            }
+        }
+        if (contents.isEmpty()) {
+            throw new IllegalArgumentException("Archive contains no CSV, Excel or TXT file");
+        }
+
+        List<FileUploadResponse> entries = new ArrayList<>();
+        int rejected = 0;
+        for (Map.Entry<String, StoredContent> content : contents) {
+            try {
+                entries.add(registerUpload(content.getKey(), category, uploadedBy, targetTable, loadMode, reprocess,
+                        content.getValue()));
+            } catch (QueueFullException e) {
+                entries.add(buildResponse(e.fileStorage, "Ingestion queue is full, retry this file later"));
+                rejected++;
+            }
+        }
+        if (rejected == entries.size()) {
+            throw new TaskRejectedException("Ingestion queue is full, no file of archive " + archiveName + " queued");
+        }
+        log.info("Archive {} expanded into {} file(s), {} rejected by the ingestion queue", archiveName, entries.size(),
+                rejected);
+        return FileUploadResponse.builder()
+                .fileName(archiveName)
+                .fileType("ZIP")
+                .category(category.toUpperCase())
+                .fileSize(entries.stream().mapToLong(e -> e.getFileSize() != null ? e.getFileSize() : 0).sum())
+                .status(rejected == 0 ? IngestionQueueService.STATUS_QUEUED : "PARTIAL")
+                .loadMode(loadMode.name())
+                .uploadedBy(uploadedBy)
+                .entries(entries)
+                .message(rejected == 0
+                        ? entries.size() + " file(s) extracted from archive, processing queued"
+                        : (entries.size() - rejected) + " of " + entries.size() + " file(s) extracted from archive queued, "
+                                + rejected + " rejected because the ingestion queue is full")
+                .build();
+    }
+
+    /**
+     * Enregistre un contenu déjà écrit dans le ContentStore (upload direct ou par morceaux)
+     * et le place en file d'attente, ou renvoie le résultat d'un upload identique chargé dans le même mode.
+     * Un résultat UPSERT ou DELTA n'est réutilisé que si aucun chargement de la même cible n'a suivi :
+     * sinon l'état qu'il avait produit a pu être modifié et le fichier est rechargé.
+     */
+    public FileUploadResponse registerUpload(String fileName, String category, String uploadedBy, String targetTable,
+                                             LoadMode loadMode, boolean reprocess, StoredContent content) {
+        validateCategory(category, fileName);
+        if (!reprocess) {
+            Optional<FileStorageSummary> existing = fileStorageRepository
+                    .findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(
+                            content.sha256(), category.toUpperCase(), targetTable, loadMode.name(), REUSABLE_STATUSES)
+                    .filter(summary -> loadMode == LoadMode.INSERT || !isSuperseded(summary));
+            if (existing.isPresent()) {
+                log.info("File {} is identical to file {}, reusing its result", fileName, existing.get().getId());
+                FileUploadResponse response = buildResponse(existing.get(), "Identical file already uploaded, returning existing result");
+                response.setDuplicate(true);
+                return response;
+            }
+        }
+        
+        // Save file to database
+        FileStorage fileStorage = FileStorage.builder()
+                .fileName(fileName)
+                .fileType(determineFileType(fileName))
+                .category(category.toUpperCase())
+                .targetTable(targetTable)
+                .loadMode(loadMode.name())
+                .fileSize(content.size())
+                .contentRef(content.contentRef())
+                .contentHash(content.sha256())
+                .uploadedBy(uploadedBy)
+                .status(IngestionQueueService.STATUS_QUEUED)
+                .totalRecords(0)
+                .processedRecords(0)
+                .failedRecords(0)
+                .build();
+        
+        fileStorage = fileStorageRepository.save(fileStorage);
+        log.info("File uploaded successfully: {} (ID: {})", fileName, fileStorage.getId());
+        
+        submitForProcessing(fileStorage);
+        
+        return buildResponse(fileStorage, "File uploaded successfully, processing queued");
+    }
     
-    private void processFileWithErrorHandling(FileStorage fileStorage) {
+    private boolean isSuperseded(FileStorageSummary summary) {
+        return summary.getUploadedAt() == null || fileStorageRepository.existsByCategoryAndTargetTableAndUploadedAtAfter(
+                summary.getCategory(), summary.getTargetTable(), summary.getUploadedAt());
+    }
+
+    private void submitForProcessing(FileStorage fileStorage) {
         try {
-            fileProcessingService.processFile(fileStorage);
-        } catch (Exception e) {
-            log.error("Error processing file: {}", e.getMessage(), e);
+            ingestionQueueService.submit(fileStorage);
+        } catch (TaskRejectedException e) {
+            log.warn("Ingestion queue is full, rejecting file {}", fileStorage.getId());
             fileStorage.setStatus("FAILED");
-            fileStorage.setErrorMessage(e.getMessage());
+            fileStorage.setErrorMessage("Ingestion queue is full, please retry later");
             fileStorageRepository.save(fileStorage);
+            throw new QueueFullException(fileStorage, e);
+        }
+    }
+
+    /**
+     * Refus de la file d'attente, avec le fichier enregistré en échec (relançable)
+     */
+    private static final class QueueFullException extends TaskRejectedException {
+
+        private final transient FileStorage fileStorage;
+
+        private QueueFullException(FileStorage fileStorage, TaskRejectedException cause) {
+            super(cause.getMessage(), cause);
+            this.fileStorage = fileStorage;
         }
     }
 
@@ -73,22 +244,72 @@ public class FileUploadService {
             throw new IllegalArgumentException("File is empty");
         }
         
-        String filename = file.getOriginalFilename();
+        validateFileName(file.getOriginalFilename());
+        
+        // Max 50MB
+        if (file.getSize() > 50 * 1024 * 1024) {
+            throw new IllegalArgumentException("File size exceeds maximum limit of 50MB");
+        }
+    }
+
+    /**
+     * Contrôle du nom et de l'extension, commun à l'upload direct et à l'upload par morceaux
+     */
+    public void validateFileName(String filename) {
         if (filename == null || filename.isEmpty()) {
             throw new IllegalArgumentException("Invalid filename");
         }
         
-        String extension = getFileExtension(filename);
-        if (!extension.equals("csv") && !extension.equals("xlsx") && !extension.equals("xls") && !extension.equals("txt")) {
+        // Le contenu d'une archive .zip est contrôlé entrée par entrée
+        UploadCompression compression = UploadCompression.of(filename);
+        if (compression != UploadCompression.ZIP && !isSupportedFileName(compression.contentName(filename))) {
             throw new IllegalArgumentException("Only CSV, Excel and TXT files are supported");
         }
-        
-        // Max 50MB
-        if (file.getSize() > 50 * 1024 * 1024) {
-            throw new IllegalArgumentException("File size exceeds maximum limit of 50MB");
+    }
+
+    private boolean isSupportedFileName(String filename) {
+        String extension = getFileExtension(filename);
+        return extension.equals("csv") || extension.equals("xlsx") || extension.equals("xls") || extension.equals("txt");
+    }
+
+    public void validateTarget(String category, String targetTable) {
+        if ("STAGING".equalsIgnoreCase(category) && (targetTable == null || targetTable.isBlank())) {
+            throw new IllegalArgumentException("Target table is required for STAGING files");
         }
     }
 
+    /**
+     * Un classeur WORKBOOK doit être un fichier Excel (une archive .zip est contrôlée entrée par entrée)
+     */
+    public void validateCategory(String category, String fileName) {
+        if (WorkbookIngestionService.CATEGORY.equalsIgnoreCase(category)
+                && UploadCompression.of(fileName) != UploadCompression.ZIP
+                && !"EXCEL".equals(determineFileType(UploadCompression.of(fileName).contentName(fileName)))) {
+            throw new IllegalArgumentException("WORKBOOK files must be Excel workbooks");
+        }
+    }
+
+    /**
+     * Mode de chargement demandé ; UPSERT n'est possible que pour les catégories à code métier unique,
+     * DELTA que pour le référentiel (pour un classeur WORKBOOK, le mode s'applique à ses feuilles de ces catégories)
+     */
+    public LoadMode resolveLoadMode(String category, String loadMode) {
+        LoadMode mode = LoadMode.of(loadMode);
+        if (!supportsLoadMode(category, mode) && !WorkbookIngestionService.CATEGORY.equalsIgnoreCase(category)) {
+            throw new IllegalArgumentException("Load mode " + mode + " is only supported for "
+                    + (mode == LoadMode.DELTA ? DELTA_CATEGORIES : UPSERT_CATEGORIES));
+        }
+        return mode;
+    }
+
+    static boolean supportsLoadMode(String category, LoadMode mode) {
+        return switch (mode) {
+            case INSERT -> true;
+            case UPSERT -> UPSERT_CATEGORIES.contains(category.toUpperCase());
+            case DELTA -> DELTA_CATEGORIES.contains(category.toUpperCase());
+        };
+    }
+
     private String determineFileType(String filename) {
         String extension = getFileExtension(filename);
         return switch (extension.toLowerCase()) {
@@ -112,20 +333,124 @@ public class FileUploadService {
                 .fileName(fileStorage.getFileName())
                 .fileType(fileStorage.getFileType())
                 .category(fileStorage.getCategory())
+                .parentFileId(fileStorage.getParentFileId())
+                .sheetName(fileStorage.getSheetName())
                 .fileSize(fileStorage.getFileSize())
                 .status(fileStorage.getStatus())
+                .loadMode(fileStorage.getLoadMode())
                 .totalRecords(fileStorage.getTotalRecords())
                 .processedRecords(fileStorage.getProcessedRecords())
                 .failedRecords(fileStorage.getFailedRecords())
+                .insertedRecords(fileStorage.getInsertedRecords())
+                .updatedRecords(fileStorage.getUpdatedRecords())
+                .unchangedRecords(fileStorage.getUnchangedRecords())
+                .deactivatedRecords(fileStorage.getDeactivatedRecords())
+                .uploadedBy(fileStorage.getUploadedBy())
+                .errorMessage(fileStorage.getErrorMessage())
                 .message(message)
                 .uploadedAt(fileStorage.getUploadedAt())
+                .processedAt(fileStorage.getProcessedAt())
+                .build();
+    }
+
+    /**
+     * Relance le traitement d'un fichier en échec, à partir du dernier chunk validé
+     */
+    public FileUploadResponse retryFile(Long fileId) {
+        FileStorage fileStorage = ingestionQueueService.retry(fileId);
+        return buildResponse(fileStorage, "File processing resumed");
+    }
+
+    private FileUploadResponse buildResponse(FileStorageSummary summary, String message) {
+        return FileUploadResponse.builder()
+                .fileId(summary.getId())
+                .fileName(summary.getFileName())
+                .fileType(summary.getFileType())
+                .category(summary.getCategory())
+                .parentFileId(summary.getParentFileId())
+                .sheetName(summary.getSheetName())
+                .fileSize(summary.getFileSize())
+                .status(summary.getStatus())
+                .loadMode(summary.getLoadMode())
+                .totalRecords(summary.getTotalRecords())
+                .processedRecords(summary.getProcessedRecords())
+                .failedRecords(summary.getFailedRecords())
+                .insertedRecords(summary.getInsertedRecords())
+                .updatedRecords(summary.getUpdatedRecords())
+                .unchangedRecords(summary.getUnchangedRecords())
+                .deactivatedRecords(summary.getDeactivatedRecords())
+                .uploadedBy(summary.getUploadedBy())
+                .errorMessage(summary.getErrorMessage())
+                .message(message)
+                .uploadedAt(summary.getUploadedAt())
+                .processedAt(summary.getProcessedAt())
                 .build();
     }
 
     public FileUploadResponse getFileStatus(Long fileId) {
-        FileStorage fileStorage = fileStorageRepository.findById(fileId)
+        FileStorageSummary summary = fileStorageRepository.findSummaryById(fileId)
                 .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
         
-        return buildResponse(fileStorage, "File status retrieved successfully");
+        return buildResponse(summary, "File status retrieved successfully");
+    }
+
+    /**
+     * Historique paginé des fichiers uploadés, sans lecture des entités complètes
+     */
+    public Page<FileUploadResponse> getFileHistory(String category, String status, String uploadedBy, Pageable pageable) {
+        return fileStorageRepository.findHistory(
+                        category != null ? category.toUpperCase() : null,
+                        status != null ? status.toUpperCase() : null,
+                        uploadedBy,
+                        pageable)
+                .map(summary -> buildResponse(summary, null));
+    }
+
+    /**
+     * Contenu décompressé, borné par maestror.upload.max-expanded-size
+     */
+    private class ExpandedInputStream extends FilterInputStream {
+
+        private final String name;
+        private final boolean closeSource;
+        private long count;
+
+        ExpandedInputStream(InputStream in, String name, boolean closeSource) {
+            super(in);
+            this.name = name;
+            this.closeSource = closeSource;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (maxExpandedSize != null && count > maxExpandedSize.toBytes()) {
+                throw new IllegalArgumentException("Decompressed size of " + name + " exceeds maximum limit of " + maxExpandedSize);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeSource) {
+                super.close();
+            }
+        }
     }
 }
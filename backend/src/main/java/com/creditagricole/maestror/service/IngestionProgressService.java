@@ -0,0 +1,140 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.dto.IngestionProgressResponse;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgress;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.repository.FileStorageSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffusion de l'avancement des fichiers en Server-Sent Events.
+ * Un seul calcul par fichier et par intervalle, quel que soit le nombre d'abonnés ;
+ * le flux se termine sur un dernier événement lorsque le traitement est terminé.
+ */
+@Service
+@Slf4j
+public class IngestionProgressService {
+
+    private static final String EVENT_NAME = "progress";
+    private static final List<String> FINAL_STATUSES = List.of("COMPLETED", "FAILED");
+
+    private final FileStorageRepository fileStorageRepository;
+    private final IngestionProgressTracker ingestionProgressTracker;
+    private final long emitterTimeout;
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public IngestionProgressService(FileStorageRepository fileStorageRepository,
+                                    IngestionProgressTracker ingestionProgressTracker,
+                                    @Value("${maestror.ingestion.progress.sse-timeout:30m}") Duration emitterTimeout) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.ingestionProgressTracker = ingestionProgressTracker;
+        this.emitterTimeout = emitterTimeout.toMillis();
+    }
+
+    /**
+     * Avancement courant : compteurs en mémoire pendant le traitement, FILE_STORAGE sinon
+     */
+    public IngestionProgressResponse getProgress(Long fileId) {
+        return ingestionProgressTracker.get(fileId)
+                .map(IngestionProgressService::buildResponse)
+                .orElseGet(() -> buildResponse(fileStorageRepository.findSummaryById(fileId)
+                        .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId))));
+    }
+
+    /**
+     * Ouvre un flux d'avancement ; le premier événement est envoyé immédiatement
+     */
+    public SseEmitter subscribe(Long fileId) throws IOException {
+        IngestionProgressResponse progress = getProgress(fileId);
+        SseEmitter emitter = newEmitter();
+        emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress));
+        if (FINAL_STATUSES.contains(progress.getStatus())) {
+            emitter.complete();
+            return emitter;
+        }
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(fileId, id -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeout);
+    }
+
+    @Scheduled(fixedRateString = "${maestror.ingestion.progress.push-interval:PT1S}")
+    public void pushProgress() {
+        subscribers.forEach((fileId, emitters) -> {
+            if (emitters.isEmpty()) {
+                subscribers.remove(fileId, emitters);
+                return;
+            }
+            IngestionProgressResponse progress;
+            try {
+                progress = getProgress(fileId);
+            } catch (RuntimeException e) {
+                log.warn("Unable to read progress of file {}: {}", fileId, e.getMessage());
+                return;
+            }
+            boolean done = FINAL_STATUSES.contains(progress.getStatus());
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress));
+                    if (done) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client déconnecté
+                    emitters.remove(emitter);
+                }
+            }
+            if (done) {
+                subscribers.remove(fileId);
+            }
+        });
+    }
+
+    private static IngestionProgressResponse buildResponse(IngestionProgress progress) {
+        long estimated = progress.getEstimatedRows();
+        return IngestionProgressResponse.builder()
+                .fileId(progress.getFileId())
+                .status("PROCESSING")
+                .processedRecords(progress.getProcessed())
+                .failedRecords(progress.getFailed())
+                .estimatedTotalRecords(estimated >= 0 ? estimated : null)
+                .percentComplete(progress.getPercentComplete())
+                .rowsPerSecond(progress.getRowsPerSecond())
+                .etaSeconds(progress.getEtaSeconds())
+                .build();
+    }
+
+    private static IngestionProgressResponse buildResponse(FileStorageSummary summary) {
+        long processed = summary.getProcessedRecords() != null ? summary.getProcessedRecords() : 0;
+        long failed = summary.getFailedRecords() != null ? summary.getFailedRecords() : 0;
+        boolean completed = "COMPLETED".equals(summary.getStatus());
+        return IngestionProgressResponse.builder()
+                .fileId(summary.getId())
+                .status(summary.getStatus())
+                .processedRecords(processed)
+                .failedRecords(failed)
+                .estimatedTotalRecords(completed ? processed + failed : null)
+                .percentComplete(completed ? 100.0 : null)
+                .etaSeconds(completed ? 0L : null)
+                .errorMessage(summary.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.batch.FileIngestionJobLauncher;
+import com.creditagricole.maestror.ingestion.scheduling.FairShareScheduler;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * File d'attente des traitements de fichiers : l'upload rend la main immédiatement,
+ * le fichier est traité en arrière-plan sur l'exécuteur d'ingestion, dans l'ordre équitable
+ * entre déposants et catégories établi par le {@link FairShareScheduler}
+ */
+@Service
+@Slf4j
+public class IngestionQueueService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+
+    private final FairShareScheduler fairShareScheduler;
+    private final FileStorageRepository fileStorageRepository;
+    private final FileProcessingService fileProcessingService;
+    private final FileIngestionJobLauncher fileIngestionJobLauncher;
+    private final WorkbookIngestionService workbookIngestionService;
+
+    public IngestionQueueService(FairShareScheduler fairShareScheduler,
+                                 FileStorageRepository fileStorageRepository,
+                                 FileProcessingService fileProcessingService,
+                                 FileIngestionJobLauncher fileIngestionJobLauncher,
+                                 WorkbookIngestionService workbookIngestionService) {
+        this.fairShareScheduler = fairShareScheduler;
+        this.fileStorageRepository = fileStorageRepository;
+        this.fileProcessingService = fileProcessingService;
+        this.fileIngestionJobLauncher = fileIngestionJobLauncher;
+        this.workbookIngestionService = workbookIngestionService;
+    }
+
+    /**
+     * Place un fichier en file d'attente
+     *
+     * @throws TaskRejectedException si la file d'attente est pleine
+     */
+    public void submit(FileStorage fileStorage) {
+        Long fileId = fileStorage.getId();
+        fairShareScheduler.submit(fileStorage.getUploadedBy(), fileStorage.getCategory(), () -> process(fileId));
+        log.info("File {} queued for processing ({} pending)", fileId, fairShareScheduler.getPendingCount());
+    }
+
+    /**
+     * Remet en file d'attente un fichier en échec : son job reprend après le dernier chunk validé
+     *
+     * @throws IllegalArgumentException si le fichier n'est pas en échec ou si sa catégorie ne permet pas la reprise
+     * @throws TaskRejectedException si la file d'attente est pleine
+     */
+    public FileStorage retry(Long fileId) {
+        FileStorage fileStorage = fileStorageRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalArgumentException("File not found with ID: " + fileId));
+        if (!"FAILED".equals(fileStorage.getStatus())) {
+            throw new IllegalArgumentException("Only failed files can be retried, current status: " + fileStorage.getStatus());
+        }
+        if (!isResumable(fileStorage)) {
+            throw new IllegalArgumentException("Files of category " + fileStorage.getCategory() + " cannot be resumed");
+        }
+        fileStorage.setStatus(STATUS_QUEUED);
+        fileStorage.setErrorMessage(null);
+        fileStorage = fileStorageRepository.save(fileStorage);
+        submit(fileStorage);
+        return fileStorage;
+    }
+
+    // Issue #9 - Extraire le traitement dans une methode separee
+    private void process(Long fileId) {
+        FileStorage fileStorage = fileStorageRepository.findById(fileId).orElse(null);
+        if (fileStorage == null) {
+            log.warn("Queued file {} no longer exists", fileId);
+            return;
+        }
+        try {
+            if (WorkbookIngestionService.CATEGORY.equals(fileStorage.getCategory())) {
+                workbookIngestionService.processWorkbook(fileStorage);
+            } else {
+                fileProcessingService.processFile(fileStorage);
+            }
+        } catch (Exception e) {
+            log.error("Error processing file: {}", e.getMessage(), e);
+            fileStorage.setStatus("FAILED");
+            fileStorage.setErrorMessage(e.getMessage());
+            fileStorageRepository.save(fileStorage);
+        }
+    }
+
+    /**
+     * Reprend les fichiers restés en attente ou en cours lors d'un arrêt de l'application.
+     * Les jobs interrompus redémarrent après leur dernier chunk validé ; les autres traitements
+     * en cours (STAGING) ne peuvent pas être repris et sont marqués en échec.
+     * Les feuilles d'un classeur sont reprises par le retraitement de leur classeur.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingFiles() {
+        fileIngestionJobLauncher.failInterruptedExecutions();
+        for (FileStorage fileStorage : fileStorageRepository.findByStatus("PROCESSING")) {
+            if (isResumable(fileStorage)) {
+                fileStorage.setStatus(STATUS_QUEUED);
+            } else {
+                fileStorage.setStatus("FAILED");
+                fileStorage.setErrorMessage("Processing interrupted by application shutdown");
+            }
+            fileStorageRepository.save(fileStorage);
+        }
+        for (FileStorage fileStorage : fileStorageRepository.findByStatus(STATUS_QUEUED)) {
+            if (fileStorage.getParentFileId() != null) {
+                continue;
+            }
+            try {
+                submit(fileStorage);
+            } catch (TaskRejectedException e) {
+                log.warn("Unable to requeue file {}: {}", fileStorage.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isResumable(FileStorage fileStorage) {
+        return fileIngestionJobLauncher.supports(fileStorage.getCategory())
+                || WorkbookIngestionService.CATEGORY.equals(fileStorage.getCategory());
+    }
+}
@@ -0,0 +1,109 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowStore;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+
+/**
+ * Export CSV des lignes écartées d'un fichier, pour correction et ré-upload.
+ * Chaque ligne reprend son numéro (base 1) et le motif du rejet, suivis des valeurs d'origine
+ * sous l'en-tête du fichier source. Les lignes sont lues par curseur et écrites au fil de l'eau.
+ */
+@Service
+@Slf4j
+public class RejectedRowService {
+
+    private static final String SELECT_SQL = "SELECT row_number, reason, raw_values FROM file_rejected_row "
+            + "WHERE file_storage_id = ? ORDER BY row_number NULLS FIRST, id";
+    private static final int FETCH_SIZE = 1000;
+
+    private final FileStorageRepository fileStorageRepository;
+    private final RowSourceFactory rowSourceFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RejectedRowService(FileStorageRepository fileStorageRepository, RowSourceFactory rowSourceFactory,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.rowSourceFactory = rowSourceFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public FileStorage getFile(Long fileId) {
+        return fileStorageRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+    }
+
+    public void writeCsv(FileStorage fileStorage, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder("line,reason");
+        String[] header = readHeader(fileStorage);
+        if (header != null) {
+            line.append(',').append(RejectedRowStore.toCsv(header));
+        }
+        writer.write(line.append('\n').toString());
+
+        try {
+            // Curseur côté serveur : PostgreSQL ne l'utilise qu'en transaction
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SQL);
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setLong(1, fileStorage.getId());
+                return ps;
+            }, rs -> {
+                line.setLength(0);
+                long rowNumber = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    line.append(rowNumber + 1);
+                }
+                line.append(',');
+                RejectedRowStore.appendCsvField(line, rs.getString(2));
+                String rawValues = rs.getString(3);
+                if (rawValues != null) {
+                    line.append(',').append(rawValues);
+                }
+                try {
+                    writer.write(line.append('\n').toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * En-tête du fichier source, null pour les fichiers sans en-tête (TEST) ou illisibles
+     */
+    private String[] readHeader(FileStorage fileStorage) {
+        if ("TEST".equals(fileStorage.getCategory())) {
+            return null;
+        }
+        try (RowSource rows = rowSourceFactory.open(fileStorage)) {
+            return rows.nextRow();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read header of file {}: {}", fileStorage.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
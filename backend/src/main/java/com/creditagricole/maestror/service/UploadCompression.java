@@ -0,0 +1,44 @@
+package com.creditagricole.maestror.service;
+
+import java.util.Locale;
+
+/**
+ * Compression d'un fichier uploadé, déduite de son extension
+ */
+public enum UploadCompression {
+
+    NONE,
+
+    /**
+     * Un seul fichier compressé (.gz, .csv.gz...), décompressé à l'écriture dans le ContentStore
+     */
+    GZIP,
+
+    /**
+     * Archive contenant un ou plusieurs fichiers, chacun enregistré comme un upload distinct
+     */
+    ZIP;
+
+    public static UploadCompression of(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            return GZIP;
+        }
+        if (name.endsWith(".zip")) {
+            return ZIP;
+        }
+        return NONE;
+    }
+
+    /**
+     * Nom du fichier décompressé : extrait.csv.gz → extrait.csv, un .gz sans autre extension est lu comme un CSV
+     */
+    public String contentName(String fileName) {
+        if (this != GZIP) {
+            return fileName;
+        }
+        String name = fileName.substring(0, fileName.length() - ".gz".length());
+        int lastDot = name.lastIndexOf('.');
+        return lastDot > 0 && lastDot < name.length() - 1 ? name : name + ".csv";
+    }
+}
@@ -0,0 +1,229 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.ingestion.reader.XlsxStreamingReader;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.storage.ContentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Traitement d'un classeur WORKBOOK : chaque feuille dont le nom correspond à une catégorie
+ * devient un fichier à part entière (FileStorage rattaché au classeur) traité par le job de sa catégorie.
+ * <p>
+ * Les feuilles de référentiel sont chargées en premier ; les feuilles d'incidents, de contrôles et de tests,
+ * qui s'y rattachent, sont ensuite traitées en parallèle sur l'exécuteur des feuilles.
+ * Retraiter un classeur en échec reprend uniquement les feuilles non terminées.
+ * L'avancement du classeur, suivi en mémoire pendant le traitement, est la somme de celui de ses feuilles.
+ */
+@Service
+@Slf4j
+public class WorkbookIngestionService {
+
+    public static final String CATEGORY = "WORKBOOK";
+
+    private static final String REFERENTIAL = "REFERENTIAL";
+
+    private final FileStorageRepository fileStorageRepository;
+    private final FileProcessingService fileProcessingService;
+    private final ContentStore contentStore;
+    private final IngestionProgressTracker ingestionProgressTracker;
+    private final AsyncTaskExecutor sheetExecutor;
+    private final Map<String, List<String>> sheetCategories;
+
+    public WorkbookIngestionService(FileStorageRepository fileStorageRepository,
+                                    FileProcessingService fileProcessingService,
+                                    ContentStore contentStore,
+                                    IngestionProgressTracker ingestionProgressTracker,
+                                    @Qualifier("ingestionSheetExecutor") AsyncTaskExecutor sheetExecutor,
+                                    @Value("${maestror.ingestion.workbook.sheet-categories:"
+                                            + "REFERENTIAL:referentiel|referential,INCIDENT:incident,"
+                                            + "CONTROL:controle|control,TEST:test}") String sheetCategories) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.fileProcessingService = fileProcessingService;
+        this.contentStore = contentStore;
+        this.ingestionProgressTracker = ingestionProgressTracker;
+        this.sheetExecutor = sheetExecutor;
+        this.sheetCategories = parseSheetCategories(sheetCategories);
+    }
+
+    /**
+     * Correspondances CATEGORIE:motclé|motclé,... ; l'ordre de déclaration départage les feuilles
+     * dont le nom contient les mots-clés de plusieurs catégories
+     */
+    static Map<String, List<String>> parseSheetCategories(String mapping) {
+        Map<String, List<String>> categories = new LinkedHashMap<>();
+        for (String entry : mapping.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Invalid sheet category mapping: " + entry);
+            }
+            List<String> keywords = new ArrayList<>();
+            for (String keyword : parts[1].split("\\|")) {
+                keywords.add(normalize(keyword));
+            }
+            categories.put(parts[0].trim().toUpperCase(Locale.ROOT), keywords);
+        }
+        return categories;
+    }
+
+    /**
+     * Catégorie d'une feuille d'après son nom (sans tenir compte de la casse ni des accents), null si aucune
+     */
+    String categoryOf(String sheetName) {
+        String name = normalize(sheetName);
+        for (Map.Entry<String, List<String>> category : sheetCategories.entrySet()) {
+            if (category.getValue().stream().anyMatch(name::contains)) {
+                return category.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String value) {
+        return Normalizer.normalize(value.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public void processWorkbook(FileStorage workbook) {
+        log.info("Starting to process workbook: {} (ID: {})", workbook.getFileName(), workbook.getId());
+        workbook.setStatus("PROCESSING");
+        workbook.setErrorMessage(null);
+        fileStorageRepository.save(workbook);
+
+        try {
+            List<FileStorage> sheets = sheetFiles(workbook);
+            if (sheets.isEmpty()) {
+                throw new IllegalArgumentException("No sheet name matches a category " + sheetCategories.keySet());
+            }
+            ingestionProgressTracker.startWorkbook(workbook, sheets);
+            Map<Boolean, List<FileStorage>> byPhase = sheets.stream()
+                    .collect(Collectors.partitioningBy(sheet -> REFERENTIAL.equals(sheet.getCategory())));
+
+            run(byPhase.get(true));
+            List<String> failedReferentials = failedSheetNames(byPhase.get(true));
+            if (failedReferentials.isEmpty()) {
+                run(byPhase.get(false));
+            } else {
+                for (FileStorage sheet : byPhase.get(false)) {
+                    if (!"COMPLETED".equals(sheet.getStatus())) {
+                        sheet.setStatus("FAILED");
+                        sheet.setErrorMessage("Not processed, referential sheet(s) failed: " + failedReferentials);
+                        fileStorageRepository.save(sheet);
+                    }
+                }
+            }
+
+            workbook.setTotalRecords(sum(sheets, FileStorage::getTotalRecords));
+            workbook.setProcessedRecords(sum(sheets, FileStorage::getProcessedRecords));
+            workbook.setFailedRecords(sum(sheets, FileStorage::getFailedRecords));
+            List<String> failed = failedSheetNames(sheets);
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("Sheet(s) failed: " + failed);
+            }
+            workbook.setStatus("COMPLETED");
+            workbook.setProcessedAt(LocalDateTime.now());
+            log.info("Workbook processing completed: {} (ID: {}), {} sheet(s)", workbook.getFileName(),
+                    workbook.getId(), sheets.size());
+        } catch (Exception e) {
+            log.error("Error processing workbook {}: {}", workbook.getId(), e.getMessage(), e);
+            workbook.setStatus("FAILED");
+            workbook.setErrorMessage(e.getMessage());
+        } finally {
+            fileStorageRepository.save(workbook);
+            ingestionProgressTracker.finish(workbook.getId());
+        }
+    }
+
+    /**
+     * Fichiers des feuilles reconnues, créés au premier traitement et réutilisés lors d'un retraitement
+     */
+    private List<FileStorage> sheetFiles(FileStorage workbook) throws IOException {
+        Map<String, FileStorage> existing = fileStorageRepository.findByParentFileIdOrderById(workbook.getId()).stream()
+                .collect(Collectors.toMap(FileStorage::getSheetName, Function.identity()));
+
+        List<FileStorage> sheets = new ArrayList<>();
+        for (String sheetName : XlsxStreamingReader.sheetNames(contentStore.localFile(workbook.getContentRef()))) {
+            String category = categoryOf(sheetName);
+            if (category == null) {
+                log.info("Sheet '{}' of workbook {} matches no category, skipped", sheetName, workbook.getId());
+                continue;
+            }
+            FileStorage sheet = existing.get(sheetName);
+            if (sheet == null) {
+                sheet = fileStorageRepository.save(FileStorage.builder()
+                        .parentFileId(workbook.getId())
+                        .sheetName(sheetName)
+                        .fileName(workbook.getFileName() + " [" + sheetName + "]")
+                        .fileType(workbook.getFileType())
+                        .category(category)
+                        .loadMode(FileUploadService.supportsLoadMode(category, LoadMode.of(workbook.getLoadMode()))
+                                ? workbook.getLoadMode() : LoadMode.INSERT.name())
+                        .fileSize(workbook.getFileSize())
+                        .contentRef(workbook.getContentRef())
+                        .contentHash(workbook.getContentHash())
+                        .uploadedBy(workbook.getUploadedBy())
+                        .status(IngestionQueueService.STATUS_QUEUED)
+                        .totalRecords(0)
+                        .processedRecords(0)
+                        .failedRecords(0)
+                        .build());
+            }
+            sheets.add(sheet);
+        }
+        return sheets;
+    }
+
+    /**
+     * Traite les feuilles en parallèle et attend la fin de toutes ; les feuilles déjà chargées sont ignorées
+     */
+    private void run(List<FileStorage> sheets) {
+        List<Future<?>> running = new ArrayList<>();
+        for (FileStorage sheet : sheets) {
+            if (!"COMPLETED".equals(sheet.getStatus())) {
+                sheet.setErrorMessage(null);
+                running.add(sheetExecutor.submit(() -> fileProcessingService.processFile(sheet)));
+            }
+        }
+        for (Future<?> sheet : running) {
+            try {
+                sheet.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for workbook sheets", e);
+            } catch (ExecutionException e) {
+                log.error("Sheet processing failed: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private static List<String> failedSheetNames(List<FileStorage> sheets) {
+        return sheets.stream()
+                .filter(sheet -> !"COMPLETED".equals(sheet.getStatus()))
+                .map(FileStorage::getSheetName)
+                .toList();
+    }
+
+    private static int sum(List<FileStorage> sheets, Function<FileStorage, Integer> counter) {
+        return sheets.stream().map(counter).mapToInt(value -> value != null ? value : 0).sum();
+    }
+}
@@ -0,0 +1,77 @@
+package com.creditagricole.maestror.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Stockage du contenu des fichiers uploadés, hors base de données.
+ * Le contenu est adressé par son empreinte SHA-256 : deux fichiers identiques partagent le même contenu.
+ */
+public interface ContentStore {
+
+    /**
+     * Enregistre un contenu en le lisant en flux, sans le charger en mémoire
+     *
+     * @return la référence, l'empreinte SHA-256 et la taille du contenu
+     */
+    StoredContent store(InputStream content) throws IOException;
+
+    /**
+     * Enregistre un fichier déjà présent sur disque (upload par morceaux) ; le fichier source
+     * est déplacé ou supprimé une fois enregistré
+     */
+    StoredContent storeFile(Path file) throws IOException;
+
+    /**
+     * Canal de lecture positionnable sur un contenu stocké
+     */
+    SeekableByteChannel openChannel(String contentRef) throws IOException;
+
+    /**
+     * Fichier local contenant le contenu, pour les lecteurs qui exigent un accès fichier (XLSX)
+     */
+    Path localFile(String contentRef) throws IOException;
+
+    default InputStream openStream(String contentRef) throws IOException {
+        return Channels.newInputStream(openChannel(contentRef));
+    }
+
+    /**
+     * Flux limité à la plage d'octets [offset, offset + length[
+     */
+    default InputStream openRange(String contentRef, long offset, long length) throws IOException {
+        SeekableByteChannel channel = openChannel(contentRef);
+        channel.position(offset);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b >= 0) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int n = super.read(buffer, off, (int) Math.min(len, remaining));
+                if (n > 0) {
+                    remaining -= n;
+                }
+                return n;
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.creditagricole.maestror.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage sur le système de fichiers local : &lt;root&gt;/ab/cd/abcd…(SHA-256).
+ * <p>
+ * Le contenu est écrit dans un fichier temporaire pendant le calcul de l'empreinte,
+ * puis déplacé atomiquement vers son chemin définitif. Un contenu déjà présent n'est pas réécrit.
+ */
+@Component
+@ConditionalOnProperty(name = "maestror.storage.type", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalContentStore implements ContentStore {
+
+    private static final Pattern CONTENT_REF = Pattern.compile("[0-9a-f]{64}");
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public LocalContentStore(@Value("${maestror.storage.local.root:./data/content}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+    }
+
+    @Override
+    public StoredContent store(InputStream content) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(tmp, StandardOpenOption.TRUNCATE_EXISTING)) {
+                size = in.transferTo(out);
+            }
+            String contentRef = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(contentRef);
+            if (Files.exists(target)) {
+                log.debug("Content {} already stored", contentRef);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    log.debug("Content {} stored concurrently", contentRef);
+                }
+            }
+            return new StoredContent(contentRef, contentRef, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * L'empreinte est calculée en lisant le fichier par canal ; il est ensuite renommé vers son chemin
+     * définitif (copie uniquement s'il se trouve sur un autre système de fichiers)
+     */
+    @Override
+    public StoredContent storeFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            while (channel.read(block) > 0) {
+                block.flip();
+                digest.update(block);
+                block.clear();
+            }
+        }
+        String contentRef = HexFormat.of().formatHex(digest.digest());
+        Path target = pathOf(contentRef);
+        if (Files.exists(target)) {
+            Files.delete(file);
+        } else {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (FileAlreadyExistsException e) {
+                Files.delete(file);
+            }
+        }
+        return new StoredContent(contentRef, contentRef, size);
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(String contentRef) throws IOException {
+        return FileChannel.open(localFile(contentRef), StandardOpenOption.READ);
+    }
+
+    @Override
+    public Path localFile(String contentRef) throws IOException {
+        Path path = pathOf(contentRef);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString(), null, "Content not found: " + contentRef);
+        }
+        return path;
+    }
+
+    private Path pathOf(String contentRef) {
+        if (contentRef == null || !CONTENT_REF.matcher(contentRef).matches()) {
+            throw new IllegalArgumentException("Invalid content reference: " + contentRef);
+        }
+        return root.resolve(contentRef.substring(0, 2)).resolve(contentRef.substring(2, 4)).resolve(contentRef);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.creditagricole.maestror.storage;
+
+/**
+ * Contenu enregistré dans le {@link ContentStore} : référence, empreinte SHA-256 (hexadécimale)
+ * calculée pendant l'écriture, et taille en octets
+ */
+public record StoredContent(String contentRef, String sha256, long size) {
+}
@@ -14,6 +14,7 @@ import org.springframework.mock.web.MockMultipartFile;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,20 +40,21 @@ class FileUploadControllerTest {
             .fileName("test.csv")
             .fileType("CSV")
             .category("TEST")
-            .status("COMPLETED")
+            .status("QUEUED")
             .message("Upload successful")
             .build();
 
-        when(fileUploadService.uploadFile(any(), eq("TEST"), eq("admin")))
+        when(fileUploadService.uploadFile(any(), eq("TEST"), eq("admin"), isNull(), eq("INSERT"), eq(false)))
             .thenReturn(response);
 
-        ResponseEntity<FileUploadResponse> result = fileUploadController.uploadFile(file, "TEST", "admin");
+        ResponseEntity<FileUploadResponse> result = fileUploadController.uploadFile(file, "TEST", "admin", null, "INSERT", false);
 
-        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        assertEquals("/api/files/1/status", result.getHeaders().getLocation().toString());
         assertNotNull(result.getBody());
         assertEquals("test.csv", result.getBody().getFileName());
         assertEquals("CSV", result.getBody().getFileType());
-        assertEquals("COMPLETED", result.getBody().getStatus());
+        assertEquals("QUEUED", result.getBody().getStatus());
     }
 
     @Test
@@ -64,10 +66,10 @@ class FileUploadControllerTest {
             "".getBytes()
         );
 
-        when(fileUploadService.uploadFile(any(), eq("TEST"), eq("admin")))
+        when(fileUploadService.uploadFile(any(), eq("TEST"), eq("admin"), isNull(), eq("INSERT"), eq(false)))
             .thenThrow(new IllegalArgumentException("File is empty"));
 
-        ResponseEntity<FileUploadResponse> result = fileUploadController.uploadFile(file, "TEST", "admin");
+        ResponseEntity<FileUploadResponse> result = fileUploadController.uploadFile(file, "TEST", "admin", null, "INSERT", false);
 
         assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
         assertNotNull(result.getBody());
@@ -0,0 +1,167 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.writer.BatchInsert;
+import com.creditagricole.maestror.ingestion.writer.BatchUpsert;
+import com.creditagricole.maestror.ingestion.writer.UpsertCounts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUpsertItemWriterTest {
+
+    private record Risk(String code, String name) {
+    }
+
+    private static final BatchInsert<Risk> INSERT = new BatchInsert<>("INSERT INTO risk (code, name) VALUES (?, ?)",
+            (ps, risk) -> {
+                ps.setString(1, risk.code());
+                ps.setString(2, risk.name());
+            });
+    private static final BatchUpsert<Risk> UPSERT = BatchUpsert.of(INSERT, "code", Risk::code);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BatchUpsertItemWriter<Risk> writer;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    void setUp() {
+        writer = new BatchUpsertItemWriter<>(jdbcTemplate, INSERT, UPSERT);
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "riskIngestionJob"), 1L,
+                new JobParametersBuilder().addString(FileIngestionJobConfig.LOAD_MODE_PARAM, "UPSERT").toJobParameters());
+        stepExecution = jobExecution.createStepExecution("riskIngestionStep:partition0");
+        StepSynchronizationManager.register(stepExecution);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StepSynchronizationManager.close();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWrite_KeepsLastRowOfEachCodeInChunk() {
+        List<Risk> staged = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(UPSERT.stagingInsert().sql()), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    staged.addAll(invocation.getArgument(1));
+                    return new int[0][];
+                });
+        returning("R1", true);
+
+        writer.write(Chunk.of(new Risk("R1", "old"), new Risk("R2", "same"), new Risk("R1", "new")));
+
+        assertEquals(List.of(new Risk("R2", "same"), new Risk("R1", "new")), staged);
+        assertEquals(new UpsertCounts(1, 0, 1), counts());
+    }
+
+    @Test
+    void testWrite_CountsCodeRepeatedAcrossChunksOnce() {
+        returning("R1", true, "R2", true);
+        writer.write(Chunk.of(new Risk("R1", "a"), new Risk("R2", "b")));
+        // R1 réécrit par le chunk suivant, R3 identique à l'existant
+        returning("R1", false);
+        writer.write(Chunk.of(new Risk("R1", "c"), new Risk("R3", "d")));
+        assertEquals(new UpsertCounts(2, 0, 1), counts());
+
+        // R3, d'abord inchangé, est finalement modifié : il n'est compté qu'une fois
+        returning("R3", false);
+        writer.write(Chunk.of(new Risk("R3", "e")));
+        assertEquals(new UpsertCounts(2, 1, 0), counts());
+    }
+
+    @Test
+    void testWrite_CountsOnlyCommittedChunks() {
+        TransactionSynchronizationManager.initSynchronization();
+        returning("R1", true, "R2", true);
+        writer.write(Chunk.of(new Risk("R1", "a"), new Risk("R2", "b")));
+        assertEquals(UpsertCounts.NONE, counts());
+
+        // Chunk annulé puis rejoué ligne à ligne, chaque ligne dans sa propre transaction
+        TransactionSynchronizationManager.clearSynchronization();
+        for (Risk risk : List.of(new Risk("R1", "a"), new Risk("R2", "b"))) {
+            TransactionSynchronizationManager.initSynchronization();
+            returning(risk.code(), true);
+            writer.write(Chunk.of(risk));
+            commit();
+        }
+
+        assertEquals(new UpsertCounts(2, 0, 0), counts());
+    }
+
+    @Test
+    void testAfterStep_ForgetsCodesOfFinishedExecution() {
+        returning("R1", true);
+        writer.write(Chunk.of(new Risk("R1", "a")));
+        writer.afterStep(stepExecution);
+
+        returning("R1", false);
+        writer.write(Chunk.of(new Risk("R1", "b")));
+
+        assertEquals(new UpsertCounts(1, 1, 0), counts());
+    }
+
+    @Test
+    void testWrite_InsertModeUsesPlainInsert() {
+        StepSynchronizationManager.close();
+        StepSynchronizationManager.register(new JobExecution(1L).createStepExecution("riskIngestionStep"));
+
+        writer.write(Chunk.of(new Risk("R1", "a")));
+
+        verify(jdbcTemplate).batchUpdate(eq(INSERT.sql()), anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private UpsertCounts counts() {
+        return BatchUpsertItemWriter.countsOf(stepExecution.getExecutionContext());
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    /**
+     * Lignes renvoyées par l'upsert : couples code, inséré
+     */
+    private void returning(Object... codesAndInserted) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < codesAndInserted.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn((String) codesAndInserted[i]);
+                when(rs.getBoolean(2)).thenReturn((Boolean) codesAndInserted[i + 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(UPSERT.upsertSql()), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,126 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.writer.UpsertCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileIngestionJobLauncherTest {
+
+    @Mock
+    private JobLauncher jobLauncher;
+
+    @Mock
+    private JobExplorer jobExplorer;
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @Mock
+    private Job incidentJob;
+
+    @Mock
+    private Job referentialJob;
+
+    private FileIngestionJobLauncher launcher;
+    private final JobInstance instance = new JobInstance(1L, "incidentIngestionJob");
+
+    @BeforeEach
+    void setUp() {
+        launcher = new FileIngestionJobLauncher(jobLauncher, jobExplorer, jobRepository,
+                Map.of("incidentIngestionJob", incidentJob, "referentialIngestionJob", referentialJob));
+    }
+
+    @Test
+    void testRun_SumsCountsOfAllExecutionsAndPartitions() throws Exception {
+        // Première exécution : la partition 0 échoue après 6 lignes, la partition 1 termine
+        JobExecution failed = new JobExecution(instance, 1L, new JobParameters());
+        failed.setStatus(BatchStatus.FAILED);
+        step(failed, "incidentIngestionPartitionStep", 1L, 16, 1);
+        step(failed, "incidentIngestionStep:partition0", 2L, 6, 1);
+        step(failed, "incidentIngestionStep:partition1", 3L, 10, 0);
+        // Reprise : seule la partition 0 est rejouée
+        JobExecution restarted = new JobExecution(instance, 2L, new JobParameters());
+        restarted.setStatus(BatchStatus.COMPLETED);
+        step(restarted, "incidentIngestionPartitionStep", 4L, 4, 1);
+        step(restarted, "incidentIngestionStep:partition0", 5L, 4, 1);
+        when(jobLauncher.run(eq(incidentJob), any(JobParameters.class))).thenReturn(restarted);
+        when(jobExplorer.getJobExecutions(instance)).thenReturn(List.of(restarted, failed));
+
+        FileIngestionResult result = launcher.run(file("INCIDENT", null));
+
+        assertEquals(BatchStatus.COMPLETED, result.status());
+        // Le step maître, qui reprend les compteurs de ses partitions, n'est pas compté
+        assertEquals(20, result.writtenCount());
+        assertEquals(2, result.failedCount());
+        assertNull(result.upsertCounts());
+    }
+
+    @Test
+    void testRun_ReadsUpsertCountsOnLatestExecutionOfEachStep() throws Exception {
+        JobInstance referential = new JobInstance(2L, "referentialIngestionJob");
+        JobExecution failed = new JobExecution(referential, 1L, new JobParameters());
+        failed.setStatus(BatchStatus.FAILED);
+        upsertCounts(step(failed, "referentialIngestionStep:partition0", 1L, 3, 0), new UpsertCounts(2, 1, 0));
+        JobExecution restarted = new JobExecution(referential, 2L, new JobParameters());
+        restarted.setStatus(BatchStatus.COMPLETED);
+        // Compteurs repris de l'exécution précédente puis complétés
+        upsertCounts(step(restarted, "referentialIngestionStep:partition0", 2L, 4, 0), new UpsertCounts(5, 1, 1));
+        when(jobLauncher.run(eq(referentialJob), any(JobParameters.class)))
+                .thenThrow(new JobInstanceAlreadyCompleteException("already complete"));
+        when(jobExplorer.getJobInstance(eq("referentialIngestionJob"), any(JobParameters.class))).thenReturn(referential);
+        when(jobExplorer.getLastJobExecution(referential)).thenReturn(restarted);
+        when(jobExplorer.getJobExecutions(referential)).thenReturn(List.of(restarted, failed));
+        when(referentialJob.getName()).thenReturn("referentialIngestionJob");
+
+        FileIngestionResult result = launcher.run(file("REFERENTIAL", "UPSERT"));
+
+        assertTrue(result.isCompleted());
+        assertEquals(7, result.writtenCount());
+        assertEquals(new UpsertCounts(5, 1, 1), result.upsertCounts());
+    }
+
+    private static StepExecution step(JobExecution execution, String name, Long id, long written, long skipped) {
+        StepExecution step = new StepExecution(name, execution, id);
+        step.setWriteCount(written);
+        step.setProcessSkipCount(skipped);
+        execution.addStepExecutions(List.of(step));
+        return step;
+    }
+
+    private static void upsertCounts(StepExecution step, UpsertCounts counts) {
+        step.getExecutionContext().putLong(BatchUpsertItemWriter.INSERTED_KEY, counts.inserted());
+        step.getExecutionContext().putLong(BatchUpsertItemWriter.UPDATED_KEY, counts.updated());
+        step.getExecutionContext().putLong(BatchUpsertItemWriter.UNCHANGED_KEY, counts.unchanged());
+    }
+
+    private static FileStorage file(String category, String loadMode) {
+        FileStorage file = new FileStorage();
+        file.setId(9L);
+        file.setFileName("file.csv");
+        file.setCategory(category);
+        file.setLoadMode(loadMode);
+        return file;
+    }
+}
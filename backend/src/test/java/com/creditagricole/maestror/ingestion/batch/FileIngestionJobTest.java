@@ -0,0 +1,316 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.pipeline.IngestionPipeline;
+import com.creditagricole.maestror.ingestion.pipeline.PipelineMetrics;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeCache;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeIndex;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowBuffer;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowStore;
+import com.creditagricole.maestror.ingestion.scheduling.IngestionThrottle;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.service.ParamFichierService;
+import com.creditagricole.maestror.storage.ContentStore;
+import com.creditagricole.maestror.storage.LocalContentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Job d'ingestion INCIDENT exécuté de bout en bout sur une base H2 : lecture du CSV, mapping,
+ * écriture JDBC par chunk, lignes écartées et reprise après échec.
+ */
+@SpringJUnitConfig(FileIngestionJobTest.TestConfig.class)
+@TestPropertySource(properties = {
+        "maestror.ingestion.batch-size=3",
+        "maestror.ingestion.skip-limit=3",
+        "maestror.ingestion.partition.min-size=1"
+})
+class FileIngestionJobTest {
+
+    private static final String HEADER = "incident_code,incident_title,incident_description,incident_date\n";
+
+    @Configuration
+    @EnableBatchProcessing
+    @Import({FileIngestionJobConfig.class, RowSourceFactory.class, IngestionPipeline.class, PipelineMetrics.class,
+            IngestionThrottle.class})
+    static class TestConfig {
+
+        @Bean
+        DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .setName("ingestion-job-test;MODE=PostgreSQL")
+                    .addScript("org/springframework/batch/core/schema-h2.sql")
+                    .addScript("db/ingestion-job-test.sql")
+                    .build();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        /**
+         * Conversions des propriétés (tailles, listes) comme dans l'application Spring Boot
+         */
+        @Bean
+        static ConversionService conversionService() {
+            return new ApplicationConversionService();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ContentStore contentStore() throws IOException {
+            return new LocalContentStore(Files.createTempDirectory("ingestion-job-test").toString());
+        }
+
+        /**
+         * Deux partitions par fichier, exécutées l'une après l'autre (un seul thread, file non bornée) :
+         * les lignes écartées par la première sont connues de la seconde
+         */
+        @Bean
+        ThreadPoolTaskExecutor ingestionPartitionExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.setMaxPoolSize(2);
+            return executor;
+        }
+    }
+
+    @MockBean
+    private FileStorageRepository fileStorageRepository;
+
+    @MockBean
+    private ParamFichierService paramFichierService;
+
+    @MockBean
+    private IngestionProgressTracker progressTracker;
+
+    @MockBean
+    private RiskCodeCache riskCodeCache;
+
+    // Écriture des rejets en INSERT ... ON CONFLICT, propre à PostgreSQL
+    @MockBean
+    private RejectedRowStore rejectedRowStore;
+
+    private final RejectedRowBuffer rejectedRows = mock(RejectedRowBuffer.class);
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    @Qualifier("incidentIngestionJob")
+    private Job incidentIngestionJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @BeforeEach
+    void setUp() {
+        jobLauncherTestUtils = new JobLauncherTestUtils();
+        jobLauncherTestUtils.setJobLauncher(jobLauncher);
+        jobLauncherTestUtils.setJobRepository(jobRepository);
+        jobLauncherTestUtils.setJob(incidentIngestionJob);
+        when(riskCodeCache.snapshot()).thenReturn(RiskCodeIndex.EMPTY);
+        when(rejectedRowStore.open(anyLong())).thenReturn(rejectedRows);
+    }
+
+    @Test
+    void testIncidentJob_CommitsEachChunk() throws Exception {
+        FileStorage file = csvFile(1L, rows(8), false);
+
+        JobExecution execution = jobLauncherTestUtils.launchJob(parameters(file));
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        StepExecution step = workerSteps(execution).get(0);
+        assertEquals(8, step.getWriteCount());
+        // Une transaction par chunk de 3 lignes : 3 + 3 + 2
+        assertEquals(3, step.getCommitCount());
+        assertEquals(codes(1, 8), loadedCodes(file));
+    }
+
+    @Test
+    void testIncidentJob_SkipsBadRowsAcrossPartitions() throws Exception {
+        List<String> lines = rows(20);
+        lines.set(1, "INC02,Incident 2,Date invalide,2024-13-45");
+        lines.set(18, "INC19,Incident 19,Date invalide,19/01/2024");
+        FileStorage file = csvFile(2L, lines, true);
+
+        JobExecution execution = jobLauncherTestUtils.launchJob(parameters(file));
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        List<StepExecution> partitions = workerSteps(execution);
+        assertEquals(2, partitions.size());
+        assertEquals(2, partitions.stream().mapToLong(StepExecution::getSkipCount).sum());
+        assertEquals(18, loadedCodes(file).size());
+        ArgumentCaptor<Long> rowNumbers = ArgumentCaptor.forClass(Long.class);
+        verify(rejectedRows, times(2)).add(rowNumbers.capture(), any(), any(DateTimeException.class));
+        assertEquals(List.of(2L, 19L), rowNumbers.getAllValues().stream().sorted().toList());
+    }
+
+    @Test
+    void testIncidentJob_SkipLimitAppliesToWholeFile() throws Exception {
+        List<String> lines = rows(20);
+        for (int index : new int[]{1, 2, 17, 18}) {
+            lines.set(index, "INC" + (index + 1) + ",Incident,Date invalide,2024-02-30");
+        }
+        FileStorage file = csvFile(3L, lines, true);
+
+        JobExecution execution = jobLauncherTestUtils.launchJob(parameters(file));
+
+        // Deux lignes écartées par partition, sous la limite de 3 de chacune mais au-delà de celle du fichier
+        assertEquals(BatchStatus.FAILED, execution.getStatus());
+        assertEquals(2, workerSteps(execution).size());
+    }
+
+    @Test
+    void testIncidentJob_RestartsAfterLastCommittedChunk() throws Exception {
+        FileStorage file = csvFile(4L, rows(10), false);
+        // Les chunks 1-3 et 4-6 sont validés, le chunk 7-9 est annulé
+        FailingInsertTrigger.failingCode = "INC08";
+
+        JobExecution failed;
+        try {
+            failed = jobLauncherTestUtils.launchJob(parameters(file));
+        } finally {
+            FailingInsertTrigger.failingCode = null;
+        }
+
+        assertEquals(BatchStatus.FAILED, failed.getStatus());
+        assertEquals(6, workerSteps(failed).get(0).getWriteCount());
+        assertEquals(codes(1, 6), loadedCodes(file));
+
+        JobExecution restarted = jobLauncherTestUtils.launchJob(parameters(file));
+
+        assertEquals(BatchStatus.COMPLETED, restarted.getStatus());
+        assertEquals(failed.getJobInstance().getId(), restarted.getJobInstance().getId());
+        assertEquals(4, workerSteps(restarted).get(0).getWriteCount());
+        // Ni doublon ni ligne perdue
+        assertEquals(codes(1, 10), loadedCodes(file));
+    }
+
+    private FileStorage csvFile(Long id, List<String> lines, boolean partitioned) throws IOException {
+        byte[] content = (HEADER + String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        FileStorage file = new FileStorage();
+        file.setId(id);
+        file.setFileName("incidents-" + id + ".csv");
+        file.setFileType("CSV");
+        file.setCategory("INCIDENT");
+        // En dessous de partition.min-size, le fichier est lu d'un seul tenant
+        file.setFileSize(partitioned ? (long) content.length : 0L);
+        file.setContentRef(contentStore.store(new ByteArrayInputStream(content)).contentRef());
+        when(fileStorageRepository.findById(id)).thenReturn(Optional.of(file));
+        return file;
+    }
+
+    private static JobParameters parameters(FileStorage file) {
+        return new JobParametersBuilder()
+                .addLong(FileIngestionJobConfig.FILE_ID_PARAM, file.getId())
+                .addString(FileIngestionJobConfig.FILE_NAME_PARAM, file.getFileName(), false)
+                .addString(FileIngestionJobConfig.LOAD_MODE_PARAM, "INSERT", false)
+                .toJobParameters();
+    }
+
+    private static List<String> rows(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> String.format("INC%02d,Incident %d,Description %d,2024-01-%02d", i, i, i, i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> codes(int first, int last) {
+        return IntStream.rangeClosed(first, last).mapToObj(i -> String.format("INC%02d", i)).toList();
+    }
+
+    private List<String> loadedCodes(FileStorage file) {
+        return jdbcTemplate.queryForList("SELECT incident_code FROM incident WHERE file_storage_id = ? ORDER BY incident_code",
+                String.class, file.getId());
+    }
+
+    private static List<StepExecution> workerSteps(JobExecution execution) {
+        return execution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().startsWith("incident" + FileIngestionJobConfig.STEP_NAME_SUFFIX + ":"))
+                .toList();
+    }
+
+    /**
+     * Trigger H2 sur INCIDENT : l'insertion du code configuré échoue comme une perte de connexion,
+     * erreur qui n'écarte pas la ligne mais fait échouer le job
+     */
+    public static class FailingInsertTrigger implements Trigger {
+
+        static volatile String failingCode;
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+            if (newRow[1].equals(failingCode)) {
+                throw new SQLException("Simulated connection failure", "08006");
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSkipPolicyTest {
+
+    private final FileSkipPolicy policy = new FileSkipPolicy(10, List.of(IllegalArgumentException.class));
+
+    @AfterEach
+    void tearDown() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    void testShouldSkip_CountsSkipsOfOtherPartitions() {
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "incidentIngestionJob"), 1L, new JobParameters());
+        StepExecution current = jobExecution.createStepExecution("incidentIngestionStep:partition0");
+        jobExecution.createStepExecution("incidentIngestionStep:partition1").setProcessSkipCount(4);
+        jobExecution.createStepExecution("incidentIngestionStep:partition2").setProcessSkipCount(3);
+        jobExecution.createStepExecution("incidentIngestionPartitionStep").setProcessSkipCount(7);
+        StepSynchronizationManager.register(current);
+
+        assertTrue(policy.shouldSkip(new IllegalArgumentException("bad row"), 2));
+        assertThrows(SkipLimitExceededException.class,
+                () -> policy.shouldSkip(new IllegalArgumentException("bad row"), 3));
+    }
+
+    @Test
+    void testShouldSkip_OutsideStepUsesOwnCount() {
+        assertTrue(policy.shouldSkip(new IllegalArgumentException("bad row"), 9));
+        assertFalse(policy.shouldSkip(new IllegalStateException("fatal"), 0));
+        assertThrows(SkipLimitExceededException.class,
+                () -> policy.shouldSkip(new IllegalArgumentException("bad row"), 10));
+    }
+}
@@ -0,0 +1,92 @@
+package com.creditagricole.maestror.ingestion.batch;
+
+import com.creditagricole.maestror.ingestion.rejection.RejectedRow;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowBuffer;
+import com.creditagricole.maestror.ingestion.rejection.RejectedRowStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RejectedRowListenerTest {
+
+    private record Incident(String code) {
+    }
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<RejectedRow> inserted = new ArrayList<>();
+    private RejectedRowBuffer buffer;
+    private RejectedRowListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    inserted.addAll(invocation.getArgument(1));
+                    return new int[0][];
+                });
+        RejectedRowStore store = new RejectedRowStore(jdbcTemplate);
+        ReflectionTestUtils.setField(store, "batchSize", 100);
+        ReflectionTestUtils.setField(store, "logLimit", 10);
+        buffer = store.open(1L);
+        listener = new RejectedRowListener(buffer);
+    }
+
+    @Test
+    void testOnSkipInWrite_TracesEntityToItsSourceRow() {
+        Incident first = new Incident("INC1");
+        Incident second = new Incident("INC2");
+        listener.afterProcess(new SourceRow(4, new String[]{"INC1", "Panne, réseau"}), first);
+        listener.afterProcess(new SourceRow(5, new String[]{"INC2", "Doublon"}), second);
+
+        listener.onSkipInWrite(second, new DataIntegrityViolationException("duplicate key"));
+        listener.afterChunk(null);
+
+        assertEquals(List.of(new RejectedRow(5L, "INC2,Doublon", "duplicate key")), inserted);
+    }
+
+    @Test
+    void testAfterChunkError_DropsPendingRowsAndKeepsSourcesForReplay() {
+        Incident incident = new Incident("INC1");
+        listener.afterProcess(new SourceRow(4, new String[]{"INC1", "a"}), incident);
+        listener.onSkipInProcess(new SourceRow(6, new String[]{"INC3", "b"}), new IllegalArgumentException("Date invalide"));
+
+        // Chunk annulé : le rejet de la ligne 6, à nouveau levé lors du rejeu, n'est pas enregistré deux fois
+        listener.afterChunkError(null);
+        assertEquals(0, buffer.getRejectedCount());
+
+        // Rejeu élément par élément : l'entité déjà produite est encore rattachée à sa ligne
+        listener.onSkipInProcess(new SourceRow(6, new String[]{"INC3", "b"}), new IllegalArgumentException("Date invalide"));
+        listener.onSkipInWrite(incident, new DataIntegrityViolationException("duplicate key"));
+        listener.afterChunk(null);
+
+        assertEquals(List.of(
+                new RejectedRow(6L, "INC3,b", "Date invalide"),
+                new RejectedRow(4L, "INC1,a", "duplicate key")), inserted);
+        assertEquals(2, buffer.getRejectedCount());
+    }
+
+    @Test
+    void testOnSkipInRead_RecordsRowWithoutNumberOrValues() {
+        listener.onSkipInRead(new IllegalStateException("Ligne illisible"));
+        listener.afterChunk(null);
+
+        assertEquals(List.of(new RejectedRow(null, null, "Ligne illisible")), inserted);
+    }
+}
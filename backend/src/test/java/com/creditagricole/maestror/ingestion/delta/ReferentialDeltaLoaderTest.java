@@ -0,0 +1,159 @@
+package com.creditagricole.maestror.ingestion.delta;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.OperationalRiskReferential;
+import com.creditagricole.maestror.ingestion.batch.FileRowMappers;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.writer.EntityInserts;
+import com.creditagricole.maestror.ingestion.writer.RowHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferentialDeltaLoaderTest {
+
+    private static final FileStorage FILE = FileStorage.builder().id(3L).build();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static OperationalRiskReferential risk(String code, String name) {
+        OperationalRiskReferential risk = FileRowMappers.buildReferentialFromRow(
+                new String[]{code, name, "desc", "FRAUD", "INTERNAL", "Retail", "HIGH", "LOW"}, FILE);
+        risk.setRowHash(RowHash.of(risk));
+        return risk;
+    }
+
+    @Test
+    void testDiff_InsertsUpdatesAndDeactivatesOnlyWhatChanged() {
+        Map<String, ReferentialDeltaLoader.CurrentRisk> current = Map.of(
+                "R1", new ReferentialDeltaLoader.CurrentRisk(1, risk("R1", "Fraude").getRowHash(), true),
+                "R2", new ReferentialDeltaLoader.CurrentRisk(2, risk("R2", "Panne").getRowHash(), true),
+                "R3", new ReferentialDeltaLoader.CurrentRisk(3, risk("R3", "Erreur").getRowHash(), false),
+                "R4", new ReferentialDeltaLoader.CurrentRisk(4, null, true),
+                "R5", new ReferentialDeltaLoader.CurrentRisk(5, "x", true),
+                "R6", new ReferentialDeltaLoader.CurrentRisk(6, "x", true),
+                "R7", new ReferentialDeltaLoader.CurrentRisk(7, "x", false));
+        Map<String, OperationalRiskReferential> incoming = new LinkedHashMap<>();
+        for (OperationalRiskReferential risk : List.of(risk("R1", "Fraude"), risk("R2", "Panne majeure"),
+                risk("R3", "Erreur"), risk("R4", "Sans empreinte"), risk("R8", "Nouveau"))) {
+            incoming.put(risk.getRiskCode(), risk);
+        }
+
+        ReferentialDeltaLoader.Changes changes = ReferentialDeltaLoader.diff(current, incoming, Set.of("R6"));
+
+        assertEquals(List.of("R8"), changes.inserts().stream().map(OperationalRiskReferential::getRiskCode).toList());
+        // R2 modifié, R3 réactivé, R4 chargé sans empreinte
+        assertEquals(List.of(2L, 3L, 4L), changes.updates().stream().map(OperationalRiskReferential::getId).toList());
+        // R6 est absent des lignes valides mais rejeté, R7 déjà inactif
+        assertEquals(List.of(5L), changes.deactivations());
+        assertEquals(1, changes.unchanged());
+    }
+
+    @Test
+    void testRowHash_IgnoresCodeAndTraceabilityButNotContent() {
+        OperationalRiskReferential risk = risk("R1", "Fraude");
+        OperationalRiskReferential other = risk("R2", "Fraude");
+        other.setFileStorage(FileStorage.builder().id(99L).build());
+
+        assertEquals(64, risk.getRowHash().length());
+        assertEquals(risk.getRowHash(), other.getRowHash());
+        assertNotEquals(risk.getRowHash(), risk("R1", "Fraude interne").getRowHash());
+        assertNotEquals(RowHash.of("a|", "b"), RowHash.of("a", "|b"));
+        assertNotEquals(RowHash.of((String) null), RowHash.of(""));
+    }
+
+    @Test
+    void testLoad_AppliesDiffInOneTransactionAndReportsRejectedRows() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            // R1 identique, R9 absent du fichier
+            ResultSet rs = mock(ResultSet.class);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            when(rs.getString("row_hash")).thenReturn(risk("R1", "Fraude").getRowHash(), "x");
+            when(rs.getString("risk_code")).thenReturn("R1", "R9");
+            when(rs.getLong("id")).thenReturn(1L, 9L);
+            when(rs.getBoolean("active")).thenReturn(true);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(ReferentialDeltaLoader.CURRENT_SQL), any(RowCallbackHandler.class));
+        ReferentialDeltaLoader loader = new ReferentialDeltaLoader(jdbcTemplate, transactionManager);
+        List<Long> rejectedRows = new ArrayList<>();
+
+        DeltaSummary summary = loader.load(rows(
+                new String[]{"R1", "Fraude", "desc", "FRAUD", "INTERNAL", "Retail", "HIGH", "LOW"},
+                new String[]{"R2"},
+                new String[]{"R3", "Nouveau"},
+                new String[]{"R3", "Nouveau risque"}), FILE, (rowNumber, values, e) -> rejectedRows.add(rowNumber));
+
+        assertEquals(new DeltaSummary(1, 0, 1, 2, 1), summary);
+        assertEquals(3, summary.acceptedCount());
+        assertEquals(List.of(3L), rejectedRows);
+        verify(jdbcTemplate).execute(ReferentialDeltaLoader.LOCK_SQL);
+        verify(jdbcTemplate).batchUpdate(eq(EntityInserts.REFERENTIAL.sql()),
+                argThat((List<OperationalRiskReferential> inserts) -> inserts.size() == 1
+                        && "Nouveau risque".equals(inserts.get(0).getRiskName())),
+                anyInt(), any());
+        verify(jdbcTemplate).batchUpdate(eq(ReferentialDeltaLoader.DEACTIVATE_SQL), eq(List.of(9L)), anyInt(), any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testLoad_FileWithoutValidRowLeavesReferentialUntouched() {
+        ReferentialDeltaLoader loader = new ReferentialDeltaLoader(jdbcTemplate, transactionManager);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> loader.load(rows(new String[]{"R1"}), FILE, (rowNumber, values, e) -> { }));
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    /**
+     * Source de lignes numérotées à partir de 2, comme après lecture de l'en-tête
+     */
+    private static RowSource rows(String[]... rows) {
+        Iterator<String[]> iterator = List.of(rows).iterator();
+        return new RowSource() {
+            private long rowNumber = 1;
+
+            @Override
+            public String[] nextRow() {
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                rowNumber++;
+                return iterator.next();
+            }
+
+            @Override
+            public long getRowNumber() {
+                return rowNumber;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
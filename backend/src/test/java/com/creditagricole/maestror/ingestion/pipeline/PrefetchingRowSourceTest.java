@@ -0,0 +1,115 @@
+package com.creditagricole.maestror.ingestion.pipeline;
+
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchingRowSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry);
+
+    @Test
+    void testNextRow_KeepsOrderAndRowNumbersAcrossBlocks() throws Exception {
+        try (RowSource source = prefetch(RowSource.of(rows(1000)), 2, 7)) {
+            for (int i = 0; i < 1000; i++) {
+                String[] row = source.nextRow();
+                assertEquals("R" + i, row[0]);
+                assertEquals(i, source.getRowNumber());
+            }
+            assertNull(source.nextRow());
+            assertNull(source.nextRow());
+        }
+
+        Timer parse = registry.find("maestror.ingestion.stage").tag("stage", PipelineMetrics.PARSE).timer();
+        assertNotNull(parse);
+        assertTrue(parse.count() > 0);
+    }
+
+    @Test
+    void testNextRow_PropagatesParseFailureAfterPrecedingRows() throws Exception {
+        RowSource failing = new RowSource() {
+            private long rowNumber = -1;
+
+            @Override
+            public String[] nextRow() throws IOException {
+                if (rowNumber == 2) {
+                    throw new IOException("Invalid CSV line 4");
+                }
+                rowNumber++;
+                return new String[]{"R" + rowNumber};
+            }
+
+            @Override
+            public long getRowNumber() {
+                return rowNumber;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (RowSource source = prefetch(failing, 4, 2)) {
+            assertEquals("R0", source.nextRow()[0]);
+            assertEquals("R1", source.nextRow()[0]);
+            assertEquals("R2", source.nextRow()[0]);
+            IOException e = assertThrows(IOException.class, source::nextRow);
+            assertEquals("Invalid CSV line 4", e.getMessage());
+        }
+    }
+
+    @Test
+    void testClose_StopsBlockedProducerAndClosesDelegate() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        RowSource endless = new RowSource() {
+            private long rowNumber = -1;
+
+            @Override
+            public String[] nextRow() {
+                rowNumber++;
+                return new String[]{"R" + rowNumber};
+            }
+
+            @Override
+            public long getRowNumber() {
+                return rowNumber;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        // Le producteur est bloqué sur la file pleine : la fermeture doit l'interrompre
+        RowSource source = prefetch(endless, 1, 10);
+        assertEquals("R0", source.nextRow()[0]);
+        source.close();
+
+        assertTrue(closed.get());
+    }
+
+    private RowSource prefetch(RowSource delegate, int capacity, int blockSize) {
+        return new PrefetchingRowSource(delegate, capacity, blockSize,
+                metrics.timer(PipelineMetrics.PARSE, "TEST"),
+                metrics.timer(PipelineMetrics.PARSE_BLOCKED, "TEST"),
+                metrics.timer(PipelineMetrics.READ_STARVED, "TEST"));
+    }
+
+    private static List<String[]> rows(int count) {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new String[]{"R" + i, "value " + i});
+        }
+        return rows;
+    }
+}
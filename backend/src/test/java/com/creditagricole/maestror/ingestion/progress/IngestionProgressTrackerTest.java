@@ -0,0 +1,101 @@
+package com.creditagricole.maestror.ingestion.progress;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.storage.LocalContentStore;
+import com.creditagricole.maestror.storage.StoredContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IngestionProgressTrackerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testStart_EstimatesCsvRowsAndResumesCounters() throws Exception {
+        LocalContentStore store = new LocalContentStore(root.toString());
+        FileStorageRepository repository = mock(FileStorageRepository.class);
+        IngestionProgressTracker tracker = new IngestionProgressTracker(repository, store);
+
+        StringBuilder csv = new StringBuilder("code,label\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(String.format("C%05d,Risque%05d\n", i, i));
+        }
+        byte[] content = csv.toString().getBytes(StandardCharsets.UTF_8);
+        StoredContent stored = store.store(new ByteArrayInputStream(content));
+        FileStorage fileStorage = FileStorage.builder()
+                .id(7L).fileType("CSV").category("REFERENTIAL").fileSize((long) content.length)
+                .contentRef(stored.contentRef()).processedRecords(5_000).failedRecords(10)
+                .build();
+
+        IngestionProgress progress = tracker.start(fileStorage);
+        // Extrapolation depuis les premiers 64 Ko
+        assertEquals(20_000, progress.getEstimatedRows(), 100);
+        assertEquals(5_000, progress.getProcessed());
+        assertEquals(0.0, progress.getRowsPerSecond());
+
+        progress.addProcessed(4_990);
+        assertEquals(50.0, progress.getPercentComplete(), 0.1);
+        assertNotNull(progress.getEtaSeconds());
+
+        tracker.checkpoint();
+        verify(repository).updateProgress(7L, 9_990, 10);
+
+        tracker.finish(7L);
+        assertTrue(tracker.get(7L).isEmpty());
+    }
+
+    @Test
+    void testEstimateRows_UnknownWithoutContent() throws Exception {
+        IngestionProgressTracker tracker = new IngestionProgressTracker(mock(FileStorageRepository.class),
+                new LocalContentStore(root.toString()));
+        FileStorage fileStorage = FileStorage.builder()
+                .id(8L).fileType("EXCEL").category("INCIDENT").fileSize(10L).contentRef("0".repeat(64))
+                .build();
+
+        IngestionProgress progress = tracker.start(fileStorage);
+
+        assertEquals(-1, progress.getEstimatedRows());
+        assertNull(progress.getPercentComplete());
+        assertNull(progress.getEtaSeconds());
+    }
+
+    @Test
+    void testStartWorkbook_SumsCompletedAndRunningSheets() throws Exception {
+        FileStorageRepository repository = mock(FileStorageRepository.class);
+        IngestionProgressTracker tracker = new IngestionProgressTracker(repository, new LocalContentStore(root.toString()));
+        FileStorage workbook = FileStorage.builder().id(1L).category("WORKBOOK").build();
+        // Feuille terminée lors d'un traitement précédent, puis feuille à traiter
+        FileStorage referential = sheet(2L, "REFERENTIAL").status("COMPLETED").processedRecords(40).failedRecords(2).build();
+        FileStorage incidents = sheet(3L, "INCIDENT").status("PENDING").build();
+
+        tracker.startWorkbook(workbook, List.of(referential, incidents));
+        IngestionProgress sheet = tracker.start(incidents);
+        sheet.addProcessed(8);
+        sheet.addFailed(1);
+
+        IngestionProgress progress = tracker.get(1L).orElseThrow();
+        assertEquals(48, progress.getProcessed());
+        assertEquals(3, progress.getFailed());
+
+        // La feuille terminée reste comptée jusqu'à la fin du classeur
+        tracker.finish(3L);
+        tracker.checkpoint();
+        verify(repository).updateProgress(1L, 48, 3);
+        verify(repository, never()).updateProgress(eq(3L), anyInt(), anyInt());
+    }
+
+    private static FileStorage.FileStorageBuilder sheet(Long id, String category) {
+        return FileStorage.builder()
+                .id(id).parentFileId(1L).fileType("EXCEL").category(category).fileSize(10L).contentRef("0".repeat(64));
+    }
+}
@@ -0,0 +1,62 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvSplitterTest {
+
+    @Test
+    void testSplit_CutsOnLineBoundariesOutsideQuotes() throws Exception {
+        StringBuilder csv = new StringBuilder("code,label\n");
+        for (int i = 1; i <= 40; i++) {
+            csv.append("C").append(i).append(",\"ligne ").append(i).append("\nsuite\"\n");
+        }
+        byte[] content = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<FileSlice> slices = CsvSplitter.split(content, 4);
+
+        assertEquals(4, slices.size());
+        assertEquals(0, slices.get(0).startOffset());
+        assertEquals(content.length, slices.get(3).endOffset());
+
+        List<String> codes = new ArrayList<>();
+        List<Long> rowNumbers = new ArrayList<>();
+        for (int i = 0; i < slices.size(); i++) {
+            FileSlice slice = slices.get(i);
+            if (i > 0) {
+                assertEquals(slices.get(i - 1).endOffset(), slice.startOffset());
+            }
+            int length = (int) (slice.endOffset() - slice.startOffset());
+            try (RowSource rows = new RangeRowSource(new CsvRowSource(
+                    new ByteArrayInputStream(content, (int) slice.startOffset(), length)), slice.firstRow(), 0, slice.lastRow())) {
+                String[] row;
+                while ((row = rows.nextRow()) != null) {
+                    assertEquals(2, row.length);
+                    codes.add(row[0]);
+                    rowNumbers.add(rows.getRowNumber());
+                }
+            }
+        }
+
+        assertEquals(41, codes.size());
+        assertEquals("code", codes.get(0));
+        assertEquals("C40", codes.get(40));
+        assertEquals(40L, rowNumbers.get(40));
+    }
+
+    @Test
+    void testSplit_SmallContentStaysInOneSlice() throws Exception {
+        byte[] content = "a,b\n1,2\n".getBytes(StandardCharsets.UTF_8);
+
+        List<FileSlice> slices = CsvSplitter.split(content, 1);
+
+        assertEquals(1, slices.size());
+        assertTrue(slices.get(0).includesHeader());
+    }
+}
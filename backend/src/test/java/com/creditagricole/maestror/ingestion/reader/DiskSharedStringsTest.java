@@ -0,0 +1,100 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskSharedStringsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoad_MatchesInMemoryTable() throws Exception {
+        Path xlsx = workbook();
+
+        try (OPCPackage opcPackage = OPCPackage.open(xlsx.toFile(), PackageAccess.READ)) {
+            SharedStrings expected = new ReadOnlySharedStringsTable(opcPackage);
+            SharedStrings loaded = new SharedStringsPolicy(0, 1).load(opcPackage);
+            assertInstanceOf(DiskSharedStrings.class, loaded);
+
+            try (DiskSharedStrings disk = (DiskSharedStrings) loaded) {
+                assertEquals(expected.getUniqueCount(), disk.getUniqueCount());
+                assertEquals(expected.getCount(), disk.getCount());
+                // Deux passes : la seconde relit les chaînes évincées du cache (une seule entrée)
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int i = 0; i < expected.getUniqueCount(); i++) {
+                        assertEquals(expected.getItemAt(i).getString(), disk.getItemAt(i).getString());
+                    }
+                }
+                assertThrows(IndexOutOfBoundsException.class, () -> disk.getItemAt(expected.getUniqueCount()));
+            }
+            opcPackage.revert();
+        }
+    }
+
+    @Test
+    void testLoad_BelowThresholdStaysInMemory() throws Exception {
+        Path xlsx = workbook();
+
+        try (OPCPackage opcPackage = OPCPackage.open(xlsx.toFile(), PackageAccess.READ)) {
+            assertInstanceOf(ReadOnlySharedStringsTable.class, SharedStringsPolicy.IN_MEMORY.load(opcPackage));
+            opcPackage.revert();
+        }
+    }
+
+    @Test
+    void testStreamingReader_WithDiskSharedStrings() throws Exception {
+        Path xlsx = workbook();
+
+        try (XlsxStreamingReader reader = XlsxStreamingReader.open(xlsx, null, new SharedStringsPolicy(0, 10))) {
+            assertArrayEquals(new String[]{"code", "description"}, reader.nextRow());
+            assertArrayEquals(new String[]{"INC-001", "Défaillance du contrôle d'accès"}, reader.nextRow());
+            assertArrayEquals(new String[]{"INC-002", "Texte enrichi"}, reader.nextRow());
+            assertArrayEquals(new String[]{"INC-001", "Défaillance du contrôle d'accès"}, reader.nextRow());
+            assertNull(reader.nextRow());
+        }
+    }
+
+    private Path workbook() throws Exception {
+        Path xlsx = tempDir.resolve("incidents.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(xlsx)) {
+            XSSFSheet sheet = workbook.createSheet("Incidents");
+            row(sheet, 0, "code", "description");
+            row(sheet, 1, "INC-001", "Défaillance du contrôle d'accès");
+
+            XSSFFont bold = workbook.createFont();
+            bold.setBold(true);
+            XSSFRichTextString rich = new XSSFRichTextString("Texte enrichi");
+            rich.applyFont(0, 5, bold);
+            XSSFRow richRow = sheet.createRow(2);
+            richRow.createCell(0).setCellValue("INC-002");
+            richRow.createCell(1).setCellValue(rich);
+
+            row(sheet, 3, "INC-001", "Défaillance du contrôle d'accès");
+            workbook.write(out);
+        }
+        return xlsx;
+    }
+
+    private static void row(XSSFSheet sheet, int index, String... values) {
+        XSSFRow row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvRowSourceTest {
+
+    private static final String CSV = "\uFEFFcode,libellé,montant\r\n"
+            + "C1,\"Virement \"\"urgent\"\"\",12.50\r\n"
+            + "C2,,\n"
+            + "C3,\"sur\ndeux lignes, avec virgule\",-3\n"
+            + "\n"
+            + "C5,Écart été,0";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNextRow_MatchesOpenCsvOnQuotedMultilineContent() throws Exception {
+        Path file = write(CSV);
+
+        List<String[]> expected = readAll(new CsvRowSource(new ByteArrayInputStream(
+                CSV.substring(1).getBytes(StandardCharsets.UTF_8))));
+        List<String[]> actual = readAll(new MappedCsvRowSource(file));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "row " + i);
+        }
+        assertArrayEquals(new String[]{"C1", "Virement \"urgent\"", "12.50"}, actual.get(1));
+        assertArrayEquals(new String[]{""}, actual.get(4));
+        assertArrayEquals(new String[]{"C5", "Écart été", "0"}, actual.get(5));
+    }
+
+    @Test
+    void testNextRow_RowsSpanningMappedWindows() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append("R").append(i).append(",\"valeur ").append(i).append("\"\n");
+        }
+        Path file = write(csv.toString());
+
+        try (RowSource source = new MappedCsvRowSource(file, 0, Long.MAX_VALUE, 40)) {
+            for (int i = 0; i < 200; i++) {
+                assertArrayEquals(new String[]{"R" + i, "valeur " + i}, source.nextRow());
+                assertEquals(i, source.getRowNumber());
+            }
+            assertNull(source.nextRow());
+        }
+
+        try (RowSource source = new MappedCsvRowSource(file, 0, Long.MAX_VALUE, 8)) {
+            IOException e = assertThrows(IOException.class, source::nextRow);
+            assertTrue(e.getMessage().contains("exceeds"));
+        }
+    }
+
+    @Test
+    void testNextRow_ByteRangesFromSplitter() throws Exception {
+        StringBuilder csv = new StringBuilder("code,label\n");
+        for (int i = 1; i <= 40; i++) {
+            csv.append("C").append(i).append(",\"C:\\dossier\\").append(i).append("\nsuite\"\n");
+        }
+        Path file = write(csv.toString());
+
+        List<String> codes = new ArrayList<>();
+        try (var channel = Files.newByteChannel(file)) {
+            for (FileSlice slice : CsvSplitter.split(channel, channel.size(), 4, false)) {
+                try (RowSource rows = new MappedCsvRowSource(file, slice.startOffset(), slice.endOffset() - slice.startOffset())) {
+                    String[] row;
+                    while ((row = rows.nextRow()) != null) {
+                        assertEquals(2, row.length);
+                        codes.add(row[0]);
+                    }
+                }
+            }
+        }
+
+        assertEquals(41, codes.size());
+        assertEquals("C40", codes.get(40));
+    }
+
+    @Test
+    void testNextRow_UnterminatedQuoteFails() throws Exception {
+        try (RowSource source = new MappedCsvRowSource(write("a,b\nc,\"ouvert\n"))) {
+            assertArrayEquals(new String[]{"a", "b"}, source.nextRow());
+            assertThrows(IOException.class, source::nextRow);
+        }
+    }
+
+    @Test
+    void testNextView_TypedFieldsMatchStringParsers() throws Exception {
+        String csv = "2024-03-15,12.50,-42,\"7\",1E3,,  ,+0.5\n"
+                + "2024-02-30,12,5,999999999999999999999,\"2024-01-02\",-0.00,été, \n";
+        try (RowSource source = new MappedCsvRowSource(write(csv))) {
+            RowView first = source.nextView();
+            assertEquals(8, first.fieldCount());
+            assertEquals(LocalDate.of(2024, 3, 15), first.parseIsoDate(0));
+            assertEquals(new BigDecimal("12.50"), first.parseDecimal(1));
+            assertEquals(-42L, first.parseLong(2));
+            assertEquals(7L, first.parseLong(3));
+            assertEquals(new BigDecimal("1E3"), first.parseDecimal(4));
+            assertTrue(first.isEmpty(5));
+            assertFalse(first.isEmpty(6));
+            assertTrue(first.isBlank(6));
+            assertEquals(new BigDecimal("+0.5"), first.parseDecimal(7));
+            RowView detached = first.detach();
+            assertSame(detached, detached.detach());
+
+            RowView second = source.nextView();
+            assertThrows(DateTimeParseException.class, () -> second.parseIsoDate(0));
+            assertThrows(NumberFormatException.class, () -> second.parseLong(3));
+            assertEquals(new BigDecimal("999999999999999999999"), second.parseDecimal(3));
+            assertEquals(LocalDate.of(2024, 1, 2), second.parseIsoDate(4));
+            assertEquals(new BigDecimal("-0.00"), second.parseDecimal(5));
+            assertFalse(second.isBlank(6));
+            assertTrue(second.isBlank(7));
+            assertThrows(IndexOutOfBoundsException.class, () -> second.string(8));
+
+            assertArrayEquals(new String[]{"2024-03-15", "12.50", "-42", "7", "1E3", "", "  ", "+0.5"},
+                    detached.toArray());
+            assertNull(source.nextView());
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("data.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String[]> readAll(RowSource source) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (source) {
+            String[] row;
+            while ((row = source.nextRow()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
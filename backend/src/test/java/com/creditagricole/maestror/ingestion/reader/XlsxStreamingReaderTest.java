@@ -0,0 +1,74 @@
+package com.creditagricole.maestror.ingestion.reader;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxStreamingReaderTest {
+
+    @Test
+    void testReadRows_StringsDatesAndFormulas() throws Exception {
+        byte[] content;
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("Incidents");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("code");
+            header.createCell(1).setCellValue("date");
+            header.createCell(2).setCellValue("amount");
+
+            Row data = sheet.createRow(1);
+            data.createCell(0).setCellValue("INC-001");
+            data.createCell(1).setCellValue(LocalDate.of(2024, 3, 15));
+            data.getCell(1).setCellStyle(dateStyle);
+            data.createCell(2).setCellFormula("1000+500");
+
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            workbook.write(out);
+            content = out.toByteArray();
+        }
+
+        List<String[]> rows = new ArrayList<>();
+        try (XlsxStreamingReader reader = XlsxStreamingReader.open(content)) {
+            String[] row;
+            while ((row = reader.nextRow()) != null) {
+                rows.add(row);
+            }
+        }
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"code", "date", "amount"}, rows.get(0));
+        assertEquals("INC-001", rows.get(1)[0]);
+        assertEquals("2024-03-15", rows.get(1)[1]);
+        assertEquals("1500.0", rows.get(1)[2]);
+    }
+
+    @Test
+    void testReadRows_MissingCellsArePaddedWithEmptyStrings() throws Exception {
+        byte[] content;
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue("A");
+            row.createCell(3).setCellValue("D");
+            workbook.write(out);
+            content = out.toByteArray();
+        }
+
+        try (XlsxStreamingReader reader = XlsxStreamingReader.open(content)) {
+            assertArrayEquals(new String[]{"A", "", "", "D"}, reader.nextRow());
+            assertEquals(0, reader.getRowNumber());
+            assertNull(reader.nextRow());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.creditagricole.maestror.ingestion.referential;
+
+import com.creditagricole.maestror.entity.Control;
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.ingestion.batch.FileRowMappers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RiskCodeCacheTest {
+
+    private static final FileStorage FILE = FileStorage.builder().id(1L).build();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSnapshot_LoadedOnceUntilInvalidated() throws Exception {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString("risk_code")).thenReturn("RISK-001");
+            when(rs.getLong("id")).thenReturn(10L);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(RiskCodeCache.LOAD_SQL), any(RowCallbackHandler.class));
+        RiskCodeCache cache = new RiskCodeCache(jdbcTemplate);
+
+        RiskCodeIndex first = cache.snapshot();
+        assertSame(first, cache.snapshot());
+        assertEquals(10L, first.reference("RISK-001").getId());
+        verify(jdbcTemplate, times(1)).query(eq(RiskCodeCache.LOAD_SQL), any(RowCallbackHandler.class));
+
+        cache.invalidate();
+        assertNotSame(first, cache.snapshot());
+        verify(jdbcTemplate, times(2)).query(eq(RiskCodeCache.LOAD_SQL), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testInvalidate_DuringLoadDiscardsLoadedIndex() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+            return null;
+        }).doNothing().when(jdbcTemplate).query(eq(RiskCodeCache.LOAD_SQL), any(RowCallbackHandler.class));
+        RiskCodeCache cache = new RiskCodeCache(jdbcTemplate);
+
+        CompletableFuture<RiskCodeIndex> inFlight = CompletableFuture.supplyAsync(cache::snapshot);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // Le référentiel est rechargé pendant la requête : l'invalidation n'attend pas sa fin
+        cache.invalidate();
+        invalidated.countDown();
+        RiskCodeIndex stale = inFlight.get(5, TimeUnit.SECONDS);
+
+        assertNotSame(stale, cache.snapshot());
+        verify(jdbcTemplate, times(2)).query(eq(RiskCodeCache.LOAD_SQL), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testRowMappers_LinkIncidentsAndControlsByRiskCode() {
+        RiskCodeIndex riskCodes = new RiskCodeIndex(Map.of("RISK-001", 10L, "RISK-002", 20L));
+
+        Incident incident = FileRowMappers.buildIncidentFromRow(new String[]{"INC-1", "Panne", "", "2024-01-15",
+                "HIGH", "OPEN", "ENTITY1", "IT", "100.00", "EUR", "Audit", " RISK-002 "}, FILE, riskCodes);
+        Control control = FileRowMappers.buildControlFromRow(new String[]{"CTRL-1", "Revue", "", "DETECTIVE",
+                "DAILY", "ENTITY1", "Manager", "ACTIVE", "EFFECTIVE", "RISK-001"}, FILE, riskCodes);
+        Incident unlinked = FileRowMappers.buildIncidentFromRow(new String[]{"INC-2", "Panne", "", "2024-01-15",
+                "HIGH", "OPEN", "ENTITY1", "IT", "100.00", "EUR", "Audit", ""}, FILE, riskCodes);
+
+        assertEquals(20L, incident.getRiskReferential().getId());
+        assertEquals(10L, control.getRiskReferential().getId());
+        assertNull(unlinked.getRiskReferential());
+        // Un code inconnu rejette la ligne (IllegalArgumentException, écartée par le step)
+        assertThrows(IllegalArgumentException.class, () -> FileRowMappers.buildControlFromRow(new String[]{"CTRL-2",
+                "Revue", "", "DETECTIVE", "DAILY", "ENTITY1", "Manager", "ACTIVE", "EFFECTIVE", "RISK-999"}, FILE, riskCodes));
+    }
+}
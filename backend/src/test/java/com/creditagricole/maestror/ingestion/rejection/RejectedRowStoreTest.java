@@ -0,0 +1,68 @@
+package com.creditagricole.maestror.ingestion.rejection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RejectedRowStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RejectedRowStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RejectedRowStore(jdbcTemplate);
+        ReflectionTestUtils.setField(store, "batchSize", 2);
+        ReflectionTestUtils.setField(store, "logLimit", 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBuffer_WritesRejectedRowsInBatches() {
+        List<List<RejectedRow>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    batches.add(new ArrayList<>(invocation.<List<RejectedRow>>getArgument(1)));
+                    return new int[0][];
+                });
+        RejectedRowBuffer buffer = store.open(3L);
+
+        buffer.add(4L, new String[]{"INC1", "31/02/2024"}, new IllegalArgumentException("Date invalide: 31/02/2024"));
+        buffer.add(9L, new String[]{"INC2", "a,\"b\""}, new IllegalArgumentException("Montant invalide"));
+        buffer.add(null, null, new IllegalStateException());
+        buffer.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals(new RejectedRow(4L, "INC1,31/02/2024", "Date invalide: 31/02/2024"), batches.get(0).get(0));
+        assertEquals("INC2,\"a,\"\"b\"\"\"", batches.get(0).get(1).rawValues());
+        assertEquals(new RejectedRow(null, null, "IllegalStateException"), batches.get(1).get(0));
+        assertEquals(3, buffer.getRejectedCount());
+    }
+
+    @Test
+    void testBuffer_DiscardDropsPendingRows() {
+        RejectedRowBuffer buffer = store.open(3L);
+
+        buffer.add(4L, new Object[]{"INC1", null}, new IllegalArgumentException("Code manquant"));
+        buffer.discard();
+        buffer.flush();
+
+        assertEquals(0, buffer.getRejectedCount());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
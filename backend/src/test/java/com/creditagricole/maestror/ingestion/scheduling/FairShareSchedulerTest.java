@@ -0,0 +1,138 @@
+package com.creditagricole.maestror.ingestion.scheduling;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairShareSchedulerTest {
+
+    /**
+     * Exécuteur manuel : les traitements démarrés sont conservés puis terminés un par un par le test
+     */
+    private final List<Runnable> started = new ArrayList<>();
+    private final List<String> order = new ArrayList<>();
+
+    private FairShareScheduler scheduler(int concurrency, int queueCapacity, int userLimit, String weights) {
+        return new FairShareScheduler(started::add, concurrency, queueCapacity, userLimit, "", weights, "REFERENTIAL");
+    }
+
+    private Runnable task(String name) {
+        return () -> order.add(name);
+    }
+
+    private void finishNext() {
+        started.remove(0).run();
+    }
+
+    @Test
+    void testSubmit_OtherUsersAreServedBetweenBulkUploads() {
+        FairShareScheduler scheduler = scheduler(1, 50, 1, "");
+        for (int i = 1; i <= 3; i++) {
+            scheduler.submit("bulk", "INCIDENT", task("bulk-" + i));
+        }
+        scheduler.submit("other", "CONTROL", task("other-1"));
+
+        while (!started.isEmpty()) {
+            finishNext();
+        }
+
+        assertEquals(List.of("bulk-1", "other-1", "bulk-2", "bulk-3"), order);
+    }
+
+    @Test
+    void testSubmit_UserLimitLeavesSlotsToOthers() {
+        FairShareScheduler scheduler = scheduler(2, 50, 1, "");
+        scheduler.submit("bulk", "INCIDENT", task("bulk-1"));
+        scheduler.submit("bulk", "INCIDENT", task("bulk-2"));
+
+        assertEquals(1, started.size());
+        assertEquals(1, scheduler.getPendingCount());
+
+        scheduler.submit("other", "CONTROL", task("other-1"));
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getPendingCount());
+    }
+
+    @Test
+    void testSubmit_UserLimitCoversAllCategories() {
+        FairShareScheduler scheduler = scheduler(2, 50, 1, "");
+        scheduler.submit("bulk", "INCIDENT", task("bulk-incident"));
+        scheduler.submit("bulk", "CONTROL", task("bulk-control"));
+        scheduler.submit("other", "INCIDENT", task("other-1"));
+
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getPendingCount());
+        started.remove(1).run();
+        assertEquals(List.of("other-1"), order);
+    }
+
+    @Test
+    void testSubmit_UserShareDoesNotGrowWithCategories() {
+        FairShareScheduler scheduler = scheduler(1, 50, 1, "");
+        scheduler.submit("blocker", "TEST", task("blocker"));
+        scheduler.submit("a", "INCIDENT", task("a-incident-1"));
+        scheduler.submit("a", "INCIDENT", task("a-incident-2"));
+        scheduler.submit("a", "CONTROL", task("a-control-1"));
+        scheduler.submit("a", "CONTROL", task("a-control-2"));
+        scheduler.submit("b", "INCIDENT", task("b-1"));
+        scheduler.submit("b", "INCIDENT", task("b-2"));
+
+        while (!started.isEmpty()) {
+            finishNext();
+        }
+
+        assertEquals(List.of("blocker", "a-incident-1", "b-1", "a-control-1", "b-2", "a-incident-2", "a-control-2"),
+                order);
+    }
+
+    @Test
+    void testSubmit_ReferentialUpdateNotBlockedBySameUserBulkLoad() {
+        FairShareScheduler scheduler = scheduler(2, 50, 1, "REFERENTIAL:4");
+        scheduler.submit("team", "INCIDENT", task("bulk-1"));
+        scheduler.submit("team", "INCIDENT", task("bulk-2"));
+        scheduler.submit("team", "REFERENTIAL", task("referential-1"));
+
+        assertEquals(2, scheduler.getRunningCount());
+        started.remove(1).run();
+        finishNext();
+
+        assertEquals(List.of("referential-1", "bulk-1"), order);
+    }
+
+    @Test
+    void testSubmit_HeavierCategoryIsServedMoreOften() {
+        FairShareScheduler scheduler = scheduler(1, 50, 1, "REFERENTIAL:3");
+        scheduler.submit("blocker", "TEST", task("blocker"));
+        for (int i = 1; i <= 4; i++) {
+            scheduler.submit("a", "INCIDENT", task("incident-" + i));
+            scheduler.submit("b", "REFERENTIAL", task("referential-" + i));
+        }
+
+        while (!started.isEmpty()) {
+            finishNext();
+        }
+
+        assertEquals(List.of("blocker", "incident-1", "referential-1", "referential-2", "referential-3",
+                "referential-4", "incident-2", "incident-3", "incident-4"), order);
+    }
+
+    @Test
+    void testSubmit_QueueFullIsRejected() {
+        FairShareScheduler scheduler = scheduler(1, 1, 1, "");
+        scheduler.submit("a", "TEST", task("running"));
+        scheduler.submit("a", "TEST", task("pending"));
+
+        assertThrows(TaskRejectedException.class, () -> scheduler.submit("b", "TEST", task("rejected")));
+    }
+
+    @Test
+    void testParseValues_InvalidEntry() {
+        assertEquals(4, FairShareScheduler.parseValues("referential:4", true).get("REFERENTIAL"));
+        assertThrows(IllegalArgumentException.class, () -> FairShareScheduler.parseValues("REFERENTIAL", true));
+        assertThrows(IllegalArgumentException.class, () -> FairShareScheduler.parseValues("alice:0", false));
+    }
+}
@@ -0,0 +1,49 @@
+package com.creditagricole.maestror.ingestion.scheduling;
+
+import com.creditagricole.maestror.ingestion.pipeline.PipelineMetrics;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionThrottleTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void testReserve_BurstOfOneSecondThenWaits() {
+        IngestionThrottle throttle = new IngestionThrottle(1000, Set.of("REFERENTIAL"), metrics);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        assertTrue(throttle.reserve(1000, now) <= 0);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), throttle.reserve(1000, now));
+        // Une seconde plus tard, le débit consommé s'est reconstitué d'autant
+        assertEquals(TimeUnit.SECONDS.toNanos(1), throttle.reserve(1000, now + TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void testIsLimited_ExemptCategoriesAndDisabledCap() {
+        IngestionThrottle throttle = new IngestionThrottle(1000, Set.of("referential"), metrics);
+        assertTrue(throttle.isLimited("INCIDENT"));
+        assertFalse(throttle.isLimited("REFERENTIAL"));
+        assertFalse(new IngestionThrottle(0, Set.of(), metrics).isLimited("INCIDENT"));
+    }
+
+    @Test
+    void testLimit_ExemptSourceIsUnchanged() throws Exception {
+        IngestionThrottle throttle = new IngestionThrottle(1000, Set.of("REFERENTIAL"), metrics);
+        RowSource source = RowSource.of(List.<String[]>of(new String[]{"a"}));
+
+        assertSame(source, throttle.limit(source, "REFERENTIAL"));
+        try (RowSource limited = throttle.limit(source, "STAGING")) {
+            assertArrayEquals(new String[]{"a"}, limited.nextRow());
+            assertEquals(0, limited.getRowNumber());
+            assertNull(limited.nextRow());
+        }
+    }
+}
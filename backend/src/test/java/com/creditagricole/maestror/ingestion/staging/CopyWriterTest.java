@@ -0,0 +1,157 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.writer.JdbcBatchWriter;
+import com.creditagricole.maestror.ingestion.writer.RowFailureListener;
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import com.creditagricole.maestror.schema.model.SchemaTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CopyWriterTest {
+
+    private static final String COPY_SQL = "COPY \"STG_OPERATION\" FROM STDIN WITH (FORMAT csv)";
+
+    private final StagingRowMapper mapper = StagingRowMapper.compile(SchemaTable.builder()
+            .nomTable("STG_OPERATION")
+            .columns(List.of(
+                    column("CODE_OPERATION", "VARCHAR2", "20", null),
+                    column("MONTANT", "DECIMAL", "15,2", null),
+                    // Clé étrangère : colonne non texte pouvant rester vide
+                    column("DATE_VALEUR", "DATE", null, "CALENDRIER.DATE_JOUR"),
+                    column("LIBELLE", "VARCHAR2", "100", null)))
+            .build(), null);
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Mock
+    private JdbcBatchWriter<Object[]> fallback;
+
+    @Mock
+    private RowFailureListener failureListener;
+
+    private final List<String> copiedLines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        lenient().when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        lenient().when(copyManager.copyIn(COPY_SQL)).thenReturn(copyIn);
+        lenient().doAnswer(invocation -> {
+            copiedLines.add(new String(invocation.<byte[]>getArgument(0), 0, invocation.<Integer>getArgument(2),
+                    StandardCharsets.UTF_8));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void testWrite_RoutesRowsNotInCopyFormatToBatchedInserts() throws SQLException {
+        when(copyIn.endCopy()).thenReturn(1L);
+        when(fallback.getWrittenCount()).thenReturn(1L);
+
+        CopyWriter writer = writer(10);
+        writer.write(1, new String[]{"OP-1", "1 234,50", "2024-01-15", "Virement"});
+        writer.write(2, new String[]{"OP-2", "10.5", "2024-01-16", "Retrait"});
+        writer.close();
+
+        assertEquals(2, writer.getWrittenCount());
+        verify(fallback).write(1L, new Object[]{"OP-1", new BigDecimal("1234.50"),
+                LocalDateTime.of(2024, 1, 15, 0, 0), "Virement"});
+        assertEquals(List.of("\"OP-2\",\"10.5\",\"2024-01-16\",\"Retrait\"\n"), copiedLines);
+    }
+
+    @Test
+    void testClose_ReplaysChunkRejectedByServerWithOriginalRowNumbers() throws SQLException {
+        when(copyIn.endCopy()).thenThrow(new SQLException("duplicate key value violates unique constraint"));
+
+        try (CopyWriter writer = writer(10)) {
+            writer.write(5, new String[]{"OP-5", "1", "2024-01-05", "A"});
+            writer.write(7, new String[]{"OP-7", "2", "2024-01-07", "B"});
+        }
+
+        InOrder inOrder = inOrder(fallback);
+        inOrder.verify(fallback).write(eq(5L), argThat(values -> "OP-5".equals(values[0])));
+        inOrder.verify(fallback).write(eq(7L), argThat(values -> "OP-7".equals(values[0])));
+        inOrder.verify(fallback, atLeastOnce()).flush();
+    }
+
+    @Test
+    void testWrite_ChunkAbortedWhileStreamingIsReplayedAndNextChunkUsesCopy() throws SQLException {
+        doNothing()
+                .doThrow(new SQLException("COPY aborted"))
+                .doNothing()
+                .when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.isActive()).thenReturn(true);
+        when(copyIn.endCopy()).thenReturn(1L);
+
+        try (CopyWriter writer = writer(2)) {
+            writer.write(1, new String[]{"OP-1", "1", "2024-01-01", "A"});
+            writer.write(2, new String[]{"OP-2", "2", "2024-01-02", "B"});
+            writer.write(3, new String[]{"OP-3", "3", "2024-01-03", "C"});
+        }
+
+        verify(copyIn).cancelCopy();
+        verify(fallback).write(eq(1L), any());
+        verify(fallback).write(eq(2L), any());
+        verify(fallback, never()).write(eq(3L), any());
+        verify(copyIn, times(1)).endCopy();
+    }
+
+    @Test
+    void testWrite_EncodesEmptyNonTextFieldAsNullAndEscapesQuotes() throws SQLException {
+        when(copyIn.endCopy()).thenReturn(1L);
+
+        try (CopyWriter writer = writer(10)) {
+            writer.write(1, new String[]{"OP-1", "-3.25", "", ""});
+            writer.write(2, new String[]{"OP-2", "4", "2024-02-01", "Dit \"urgent\""});
+        }
+
+        // Date vide non citée = NULL, libellé vide cité = chaîne vide
+        assertEquals(List.of(
+                "\"OP-1\",\"-3.25\",,\"\"\n",
+                "\"OP-2\",\"4\",\"2024-02-01\",\"Dit \"\"urgent\"\"\"\n"), copiedLines);
+        verify(fallback, never()).write(anyLong(), any());
+    }
+
+    private CopyWriter writer(int chunkSize) {
+        return new CopyWriter(dataSource, COPY_SQL, mapper, chunkSize, fallback, failureListener);
+    }
+
+    private static SchemaColumn column(String name, String type, String size, String foreignKey) {
+        return SchemaColumn.builder().nomChamp(name).typeChamps(type).tailleChamps(size).cleEtrangere(foreignKey).build();
+    }
+}
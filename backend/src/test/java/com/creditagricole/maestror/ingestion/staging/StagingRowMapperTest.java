@@ -0,0 +1,104 @@
+package com.creditagricole.maestror.ingestion.staging;
+
+import com.creditagricole.maestror.ingestion.reader.MappedCsvRowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowView;
+import com.creditagricole.maestror.schema.model.SchemaColumn;
+import com.creditagricole.maestror.schema.model.SchemaTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagingRowMapperTest {
+
+    private final SchemaTable table = SchemaTable.builder()
+            .nomTable("STG_OPERATION")
+            .columns(List.of(
+                    column("ID_OPERATION", "ID", null),
+                    column("CODE_OPERATION", "VARCHAR2", "20"),
+                    column("MONTANT", "DECIMAL", "15,2"),
+                    column("DATE_OPERATION", "DATE", "DD/MM/YYYY"),
+                    column("LIBELLE", "VARCHAR2", "100")))
+            .build();
+
+    @Test
+    void testMap_FindsColumnsByHeaderName() {
+        StagingRowMapper mapper = StagingRowMapper.compile(table,
+                new String[]{"\uFEFFlibelle", "DATE_OPERATION", "Code_Operation", "MONTANT", "IGNOREE"});
+
+        Object[] values = mapper.map(new String[]{"Virement", "31/12/2024", "OP-1", "1 234,50", "x"});
+
+        assertEquals(4, values.length);
+        assertEquals("OP-1", values[0]);
+        assertEquals(new BigDecimal("1234.50"), values[1]);
+        assertEquals(LocalDateTime.of(2024, 12, 31, 0, 0), values[2]);
+        assertEquals("Virement", values[3]);
+    }
+
+    @Test
+    void testMap_MissingColumnIsNullAndUnknownHeaderIsPositional() {
+        StagingRowMapper byName = StagingRowMapper.compile(table, new String[]{"CODE_OPERATION", "MONTANT"});
+        assertArrayEquals(new Object[]{"OP-2", new BigDecimal("10"), null, null},
+                byName.map(new String[]{"OP-2", "10"}));
+
+        StagingRowMapper positional = StagingRowMapper.compile(table, new String[]{"A", "B", "C", "D"});
+        String[] row = {"OP-3", "5.5", "2024-01-15", "Retrait"};
+        assertSame(row, positional.align(row));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 0, 0), positional.map(row)[2]);
+    }
+
+    @Test
+    void testMap_RejectsInvalidValues() {
+        StagingRowMapper mapper = StagingRowMapper.compile(table, null);
+
+        assertThrows(IllegalArgumentException.class, () -> mapper.map(new String[]{"OP-4", "abc", "", "x"}));
+        assertThrows(IllegalArgumentException.class, () -> mapper.map(new String[]{"OP-4", "1", "2024/13/45", "x"}));
+    }
+
+    @Test
+    void testMapView_MatchesStringConversion(@TempDir Path tempDir) throws IOException {
+        SchemaTable typed = SchemaTable.builder()
+                .nomTable("STG_MOUVEMENT")
+                .columns(List.of(
+                        column("MONTANT", "DECIMAL", "15,2"),
+                        column("DATE_VALEUR", "DATE", null),
+                        column("LIBELLE", "VARCHAR2", "100")))
+                .build();
+        StagingRowMapper mapper = StagingRowMapper.compile(typed, new String[]{"LIBELLE", "MONTANT", "DATE_VALEUR"});
+        Path file = Files.writeString(tempDir.resolve("mouvements.csv"), """
+                Virement,1234.50,2024-12-31
+                Retrait,"1 234,50", 2024-12-31\s
+                 ,,\s
+                Court
+                """);
+
+        try (RowSource rows = new MappedCsvRowSource(file)) {
+            RowView row;
+            while ((row = rows.nextView()) != null) {
+                assertArrayEquals(mapper.map(row.toArray()), mapper.map(row), "row " + rows.getRowNumber());
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> mapper.map(RowView.of(new String[]{"x", "1", "2024-02-30"})));
+    }
+
+    @Test
+    void testInsert_SkipsGeneratedColumns() {
+        StagingRowMapper mapper = StagingRowMapper.compile(table, null);
+
+        assertEquals("INSERT INTO \"STG_OPERATION\" (\"CODE_OPERATION\", \"MONTANT\", \"DATE_OPERATION\", \"LIBELLE\") "
+                + "VALUES (?, ?, ?, ?)", mapper.insert().sql());
+    }
+
+    private static SchemaColumn column(String name, String type, String size) {
+        return SchemaColumn.builder().nomChamp(name).typeChamps(type).tailleChamps(size).build();
+    }
+}
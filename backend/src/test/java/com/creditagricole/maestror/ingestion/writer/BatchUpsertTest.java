@@ -0,0 +1,37 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchUpsertTest {
+
+    @Test
+    void testOf_DerivesStagingAndUpsertStatementsFromInsert() {
+        BatchUpsert<?> upsert = EntityUpserts.CONTROL;
+
+        assertTrue(upsert.stagingInsert().sql().startsWith("INSERT INTO upsert_control (control_code, control_name,"));
+        assertEquals("CREATE TEMP TABLE IF NOT EXISTS upsert_control ON COMMIT DELETE ROWS AS SELECT control_code, "
+                + "control_name, control_description, control_type, frequency, entity_code, responsible_person, status, "
+                + "effectiveness, risk_referential_id, file_storage_id, created_at, updated_at FROM control WITH NO DATA",
+                upsert.createStagingSql());
+
+        String sql = upsert.upsertSql();
+        assertTrue(sql.contains("ON CONFLICT (control_code) DO UPDATE SET control_name = EXCLUDED.control_name"));
+        assertTrue(sql.contains("updated_at = EXCLUDED.updated_at"));
+        assertFalse(sql.contains("created_at = EXCLUDED"));
+        assertFalse(sql.contains("control_code = EXCLUDED"));
+        // Les colonnes de traçabilité ne comptent pas pour détecter un changement
+        assertTrue(sql.contains("WHERE (t.control_name, t.control_description, t.control_type, t.frequency, "
+                + "t.entity_code, t.responsible_person, t.status, t.effectiveness, t.risk_referential_id) IS DISTINCT FROM (EXCLUDED.control_name"));
+        assertTrue(sql.endsWith("RETURNING control_code, (xmax = 0) AS inserted"));
+    }
+
+    @Test
+    void testLoadMode_DefaultsToInsertAndRejectsUnknown() {
+        assertEquals(LoadMode.INSERT, LoadMode.of(null));
+        assertEquals(LoadMode.UPSERT, LoadMode.of(" upsert "));
+        assertEquals(LoadMode.DELTA, LoadMode.of("delta"));
+        assertThrows(IllegalArgumentException.class, () -> LoadMode.of("MERGE"));
+    }
+}
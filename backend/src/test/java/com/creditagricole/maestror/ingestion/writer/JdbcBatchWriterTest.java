@@ -0,0 +1,80 @@
+package com.creditagricole.maestror.ingestion.writer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcBatchWriterTest {
+
+    private static final BatchInsert<String> INSERT = new BatchInsert<>(
+            "INSERT INTO t (v) VALUES (?)", (ps, value) -> ps.setString(1, value));
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void testWrite_FlushesWhenBatchIsFull() {
+        JdbcBatchWriter<String> writer = new JdbcBatchWriter<>(jdbcTemplate, transactionTemplate, INSERT, 2, (row, values, e) -> fail());
+
+        writer.write(1, "a");
+        writer.write(2, "b");
+        writer.write(3, "c");
+        writer.close();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT.sql()), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+
+    @Test
+    void testFlush_FailedBatchIsRetriedRowByRowAndReportsRowNumber() {
+        when(jdbcTemplate.batchUpdate(eq(INSERT.sql()), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(jdbcTemplate.update(eq(INSERT.sql()), any(PreparedStatementSetter.class)))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(1);
+
+        List<Long> failedRows = new ArrayList<>();
+        JdbcBatchWriter<String> writer = new JdbcBatchWriter<>(jdbcTemplate, transactionTemplate, INSERT, 10,
+                (row, values, e) -> failedRows.add(row));
+
+        writer.write(5, "a");
+        writer.write(6, "b");
+        writer.write(7, "c");
+        writer.flush();
+
+        assertEquals(List.of(6L), failedRows);
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(1, writer.getFailedCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.dto.ChunkedUploadResponse;
+import com.creditagricole.maestror.dto.FileUploadResponse;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
+import com.creditagricole.maestror.storage.LocalContentStore;
+import com.creditagricole.maestror.storage.StoredContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    private LocalContentStore contentStore;
+    private ChunkedUploadService chunkedUploadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        contentStore = new LocalContentStore(dataDir.resolve("content").toString());
+        chunkedUploadService = new ChunkedUploadService(fileUploadService, contentStore,
+                dataDir.resolve("uploads").toString(), DataSize.ofMegabytes(1), DataSize.ofBytes(16), Duration.ofHours(1));
+    }
+
+    @Test
+    void testComplete_ChunksOutOfOrderAndResent() throws Exception {
+        when(fileUploadService.resolveLoadMode("referential", "UPSERT")).thenReturn(LoadMode.UPSERT);
+        String uploadId = chunkedUploadService.initiate("risques.csv", "referential", "user1", null, "UPSERT", 26L).getUploadId();
+
+        chunkedUploadService.writeChunk(uploadId, 1, stream("C1,Fraude\n"));
+        chunkedUploadService.writeChunk(uploadId, 0, stream("xxx"));
+        // Renvoi du morceau 0 après une coupure : il remplace la version précédente
+        chunkedUploadService.writeChunk(uploadId, 0, stream("code,label\n"));
+        ChunkedUploadResponse status = chunkedUploadService.writeChunk(uploadId, 2, stream("C2,Vol\n"));
+        assertEquals(List.of(0, 1, 2), status.getReceivedChunks());
+        assertEquals(28L, status.getReceivedBytes());
+
+        // La taille annoncée ne correspond pas : la session reste ouverte
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadService.complete(uploadId, 3, false));
+
+        chunkedUploadService.writeChunk(uploadId, 2, stream("C2,V\n"));
+        when(fileUploadService.registerUpload(eq("risques.csv"), eq("REFERENTIAL"), eq("user1"), isNull(), eq(LoadMode.UPSERT), eq(false), any()))
+                .thenReturn(FileUploadResponse.builder().fileId(1L).build());
+
+        chunkedUploadService.complete(uploadId, 3, false);
+
+        ArgumentCaptor<StoredContent> content = ArgumentCaptor.forClass(StoredContent.class);
+        verify(fileUploadService).registerUpload(any(), any(), any(), any(), any(), anyBoolean(), content.capture());
+        assertEquals("code,label\nC1,Fraude\nC2,V\n",
+                Files.readString(contentStore.localFile(content.getValue().contentRef())));
+        assertFalse(Files.exists(dataDir.resolve("uploads").resolve(uploadId)));
+    }
+
+    @Test
+    void testWriteChunk_RejectsOversizedChunkAndMissingChunks() throws Exception {
+        when(fileUploadService.resolveLoadMode("REFERENTIAL", null)).thenReturn(LoadMode.INSERT);
+        String uploadId = chunkedUploadService.initiate("risques.csv", "REFERENTIAL", "user1", null, null, null).getUploadId();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.writeChunk(uploadId, 0, stream("more than sixteen bytes")));
+        chunkedUploadService.writeChunk(uploadId, 1, stream("C1,Fraude\n"));
+
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadService.complete(uploadId, 2, false));
+        assertEquals(List.of(1), chunkedUploadService.getStatus(uploadId).getReceivedChunks());
+        verify(fileUploadService, never()).registerUpload(any(), any(), any(), any(), any(), anyBoolean(), any());
+    }
+
+    private static ByteArrayInputStream stream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
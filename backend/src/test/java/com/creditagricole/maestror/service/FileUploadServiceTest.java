@@ -1,26 +1,53 @@
 package com.creditagricole.maestror.service;
 
 import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.writer.LoadMode;
 import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.repository.FileStorageSummary;
+import com.creditagricole.maestror.storage.ContentStore;
+import com.creditagricole.maestror.storage.StoredContent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class FileUploadServiceTest {
 
+    private static final String CONTENT_REF = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
     @Mock
     private FileStorageRepository fileStorageRepository;
 
     @Mock
-    private FileProcessingService fileProcessingService;
+    private IngestionQueueService ingestionQueueService;
+
+    @Mock
+    private ContentStore contentStore;
 
     @InjectMocks
     private FileUploadService fileUploadService;
@@ -72,7 +99,8 @@ class FileUploadServiceTest {
         when(mockFile.isEmpty()).thenReturn(false);
         when(mockFile.getOriginalFilename()).thenReturn("test.csv");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn(new byte[]{1, 2, 3});
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
 
         FileStorage savedFileStorage = new FileStorage();
         savedFileStorage.setId(1L);
@@ -93,7 +121,8 @@ class FileUploadServiceTest {
         when(mockFile.isEmpty()).thenReturn(false);
         when(mockFile.getOriginalFilename()).thenReturn("test.xlsx");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn(new byte[]{1, 2, 3});
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
 
         FileStorage savedFileStorage = new FileStorage();
         savedFileStorage.setId(1L);
@@ -113,7 +142,8 @@ class FileUploadServiceTest {
         when(mockFile.isEmpty()).thenReturn(false);
         when(mockFile.getOriginalFilename()).thenReturn("test.txt");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn(new byte[]{1, 2, 3});
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
 
         FileStorage savedFileStorage = new FileStorage();
         savedFileStorage.setId(1L);
@@ -127,4 +157,313 @@ class FileUploadServiceTest {
 
         assertEquals("CSV", response.getFileType());
     }
+
+    @Test
+    void testUploadFile_QueuesProcessing() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("test.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            fileStorage.setId(7L);
+            return fileStorage;
+        });
+
+        var response = fileUploadService.uploadFile(mockFile, "TEST", "testUser");
+
+        assertEquals(7L, response.getFileId());
+        assertEquals("QUEUED", response.getStatus());
+        assertEquals(3L, response.getFileSize());
+        verify(ingestionQueueService).submit(argThat(fileStorage -> fileStorage.getId() == 7L));
+    }
+
+    @Test
+    void testUploadFile_QueueFull_MarksFileFailed() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("test.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        FileStorage savedFileStorage = new FileStorage();
+        savedFileStorage.setId(8L);
+        when(fileStorageRepository.save(any(FileStorage.class))).thenReturn(savedFileStorage);
+        doThrow(new TaskRejectedException("full")).when(ingestionQueueService).submit(savedFileStorage);
+
+        assertThrows(TaskRejectedException.class,
+            () -> fileUploadService.uploadFile(mockFile, "TEST", "testUser"));
+
+        assertEquals("FAILED", savedFileStorage.getStatus());
+        verify(fileStorageRepository, times(2)).save(any(FileStorage.class));
+    }
+
+    @Test
+    void testGetFileStatus_UsesMetadataProjection() {
+        FileStorageSummary summary = mock(FileStorageSummary.class);
+        when(summary.getId()).thenReturn(3L);
+        when(summary.getStatus()).thenReturn("FAILED");
+        when(summary.getErrorMessage()).thenReturn("Ingestion job FAILED");
+        when(fileStorageRepository.findSummaryById(3L)).thenReturn(Optional.of(summary));
+
+        var response = fileUploadService.getFileStatus(3L);
+
+        assertEquals(3L, response.getFileId());
+        assertEquals("FAILED", response.getStatus());
+        assertEquals("Ingestion job FAILED", response.getErrorMessage());
+        verify(fileStorageRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetFileHistory_NormalizesFilters() {
+        FileStorageSummary summary = mock(FileStorageSummary.class);
+        when(summary.getFileName()).thenReturn("incidents.csv");
+        PageRequest pageable = PageRequest.of(0, 20);
+        when(fileStorageRepository.findHistory("INCIDENT", null, "admin", pageable))
+            .thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+
+        var page = fileUploadService.getFileHistory("incident", null, "admin", pageable);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("incidents.csv", page.getContent().get(0).getFileName());
+    }
+
+    @Test
+    void testUploadFile_IdenticalContentReusesExistingResult() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("incidents.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        FileStorageSummary existing = mock(FileStorageSummary.class);
+        when(existing.getId()).thenReturn(5L);
+        when(existing.getStatus()).thenReturn("COMPLETED");
+        when(fileStorageRepository.findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(
+                eq(CONTENT_REF), eq("INCIDENT"), isNull(), eq("INSERT"), anyCollection()))
+            .thenReturn(Optional.of(existing));
+
+        var response = fileUploadService.uploadFile(mockFile, "incident", "testUser");
+
+        assertTrue(response.isDuplicate());
+        assertEquals(5L, response.getFileId());
+        assertEquals("COMPLETED", response.getStatus());
+        verify(fileStorageRepository, never()).save(any());
+        verifyNoInteractions(ingestionQueueService);
+    }
+
+    @Test
+    void testUploadFile_SameContentAsUpsertIsLoadedAfterInsert() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("incidents.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        when(fileStorageRepository.findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(
+                eq(CONTENT_REF), eq("INCIDENT"), isNull(), eq("UPSERT"), anyCollection()))
+            .thenReturn(Optional.empty());
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            fileStorage.setId(10L);
+            return fileStorage;
+        });
+
+        var response = fileUploadService.uploadFile(mockFile, "INCIDENT", "testUser", null, "UPSERT", false);
+
+        assertFalse(response.isDuplicate());
+        assertEquals("UPSERT", response.getLoadMode());
+        verify(ingestionQueueService).submit(argThat(fileStorage -> fileStorage.getId() == 10L
+                && "UPSERT".equals(fileStorage.getLoadMode())));
+    }
+
+    @Test
+    void testUploadFile_SupersededDeltaResultIsNotReused() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("referential.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        LocalDateTime loadedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        FileStorageSummary older = mock(FileStorageSummary.class);
+        when(older.getCategory()).thenReturn("REFERENTIAL");
+        when(older.getUploadedAt()).thenReturn(loadedAt);
+        when(fileStorageRepository.findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(
+                eq(CONTENT_REF), eq("REFERENTIAL"), isNull(), eq("DELTA"), anyCollection()))
+            .thenReturn(Optional.of(older));
+        when(fileStorageRepository.existsByCategoryAndTargetTableAndUploadedAtAfter("REFERENTIAL", null, loadedAt))
+            .thenReturn(true);
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var response = fileUploadService.uploadFile(mockFile, "REFERENTIAL", "testUser", null, "DELTA", false);
+
+        assertFalse(response.isDuplicate());
+        verify(ingestionQueueService).submit(any(FileStorage.class));
+    }
+
+    @Test
+    void testUploadFile_ReprocessIgnoresIdenticalContent() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("incidents.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            fileStorage.setId(9L);
+            return fileStorage;
+        });
+
+        var response = fileUploadService.uploadFile(mockFile, "INCIDENT", "testUser", null, null, true);
+
+        assertFalse(response.isDuplicate());
+        assertEquals(9L, response.getFileId());
+        verify(fileStorageRepository, never())
+            .findFirstByContentHashAndCategoryAndTargetTableAndLoadModeAndParentFileIdIsNullAndStatusInOrderByUploadedAtDesc(any(), any(), any(), any(), any());
+        verify(ingestionQueueService).submit(argThat(fileStorage -> fileStorage.getId() == 9L));
+    }
+
+    @Test
+    void testUploadFile_UpsertModeStoredAndRestrictedToCodedCategories() throws Exception {
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("controls.csv");
+        when(mockFile.getSize()).thenReturn(1024L);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileUploadService.uploadFile(mockFile, "TEST", "testUser", null, "UPSERT", false));
+        verifyNoInteractions(contentStore);
+
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(contentStore.store(any())).thenReturn(new StoredContent(CONTENT_REF, CONTENT_REF, 3));
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var response = fileUploadService.uploadFile(mockFile, "control", "testUser", null, "upsert", false);
+
+        assertEquals("UPSERT", response.getLoadMode());
+    }
+
+    @Test
+    void testResolveLoadMode_DeltaRestrictedToReferential() {
+        assertEquals(LoadMode.DELTA, fileUploadService.resolveLoadMode("referential", "delta"));
+        assertEquals(LoadMode.DELTA, fileUploadService.resolveLoadMode("WORKBOOK", "DELTA"));
+        assertThrows(IllegalArgumentException.class, () -> fileUploadService.resolveLoadMode("INCIDENT", "DELTA"));
+    }
+
+    @Test
+    void testUploadFile_GzipIsDecompressedIntoContentStore() throws Exception {
+        byte[] csv = "code,label\nINC-1,Panne\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(csv);
+        }
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("incidents.csv.gz");
+        when(mockFile.getSize()).thenReturn((long) gz.size());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(gz.toByteArray()));
+        List<byte[]> stored = storedContents();
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var response = fileUploadService.uploadFile(mockFile, "INCIDENT", "testUser");
+
+        assertEquals("incidents.csv", response.getFileName());
+        assertEquals("CSV", response.getFileType());
+        assertArrayEquals(csv, stored.get(0));
+    }
+
+    @Test
+    void testUploadFile_ZipQueuesOneFilePerSupportedEntry() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            for (String name : List.of("extract/incidents.csv", "extract/readme.pdf", "controls.txt")) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("extract.zip");
+        when(mockFile.getSize()).thenReturn((long) zip.size());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(zip.toByteArray()));
+        List<byte[]> stored = storedContents();
+        long[] ids = {20};
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            fileStorage.setId(ids[0]++);
+            return fileStorage;
+        });
+
+        var response = fileUploadService.uploadFile(mockFile, "TEST", "testUser");
+
+        assertEquals(2, response.getEntries().size());
+        assertEquals("incidents.csv", response.getEntries().get(0).getFileName());
+        assertEquals("controls.txt", response.getEntries().get(1).getFileName());
+        assertEquals("content of controls.txt", new String(stored.get(1), StandardCharsets.UTF_8));
+        verify(ingestionQueueService).submit(argThat(fileStorage -> fileStorage.getId() == 20L));
+        verify(ingestionQueueService).submit(argThat(fileStorage -> fileStorage.getId() == 21L));
+    }
+
+    @Test
+    void testUploadFile_ZipEntriesValidatedBeforeAnyIsRegistered() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            for (String name : List.of("sheets.xlsx", "notes.csv")) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("workbooks.zip");
+        when(mockFile.getSize()).thenReturn((long) zip.size());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(zip.toByteArray()));
+        storedContents();
+
+        // La seconde entrée n'est pas un classeur : la première n'est ni enregistrée ni mise en file
+        assertThrows(IllegalArgumentException.class, () -> fileUploadService.uploadFile(mockFile, "WORKBOOK", "testUser"));
+        verify(fileStorageRepository, never()).save(any());
+        verifyNoInteractions(ingestionQueueService);
+    }
+
+    @Test
+    void testUploadFile_ZipReportsEntriesRejectedByFullQueue() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            for (String name : List.of("a.csv", "b.csv")) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        when(mockFile.isEmpty()).thenReturn(false);
+        when(mockFile.getOriginalFilename()).thenReturn("extract.zip");
+        when(mockFile.getSize()).thenReturn((long) zip.size());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(zip.toByteArray()));
+        storedContents();
+        long[] ids = {30};
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            if (fileStorage.getId() == null) {
+                fileStorage.setId(ids[0]++);
+            }
+            return fileStorage;
+        });
+        doNothing().doThrow(new TaskRejectedException("full")).when(ingestionQueueService).submit(any());
+
+        var response = fileUploadService.uploadFile(mockFile, "TEST", "testUser");
+
+        assertEquals("PARTIAL", response.getStatus());
+        assertEquals("QUEUED", response.getEntries().get(0).getStatus());
+        assertEquals("FAILED", response.getEntries().get(1).getStatus());
+        assertEquals(31L, response.getEntries().get(1).getFileId());
+    }
+
+    private List<byte[]> storedContents() throws Exception {
+        List<byte[]> stored = new ArrayList<>();
+        when(contentStore.store(any())).thenAnswer(invocation -> {
+            try (InputStream in = invocation.getArgument(0)) {
+                byte[] content = in.readAllBytes();
+                stored.add(content);
+                return new StoredContent(CONTENT_REF, CONTENT_REF, content.length);
+            }
+        });
+        return stored;
+    }
 }
@@ -0,0 +1,153 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.dto.IngestionProgressResponse;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgress;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.repository.FileStorageSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionProgressServiceTest {
+
+    @Mock
+    private FileStorageRepository fileStorageRepository;
+
+    @Mock
+    private IngestionProgressTracker ingestionProgressTracker;
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private IngestionProgressService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IngestionProgressService(fileStorageRepository, ingestionProgressTracker, Duration.ofMinutes(1)) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @Test
+    void testSubscribe_SendsCurrentProgressImmediately() throws IOException {
+        IngestionProgress progress = new IngestionProgress(1L, 100, 0, 0);
+        progress.addProcessed(40);
+        when(ingestionProgressTracker.get(1L)).thenReturn(Optional.of(progress));
+
+        service.subscribe(1L);
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertEquals(1, emitter.events.size());
+        assertEquals("PROCESSING", emitter.events.get(0).getStatus());
+        assertEquals(40, emitter.events.get(0).getProcessedRecords());
+        assertEquals(40.0, emitter.events.get(0).getPercentComplete());
+        assertFalse(emitter.completed);
+    }
+
+    @Test
+    void testSubscribe_CompletesAtOnceWhenFileIsFinished() throws IOException {
+        when(ingestionProgressTracker.get(1L)).thenReturn(Optional.empty());
+        FileStorageSummary summary = summary("COMPLETED", 50, 2);
+        when(fileStorageRepository.findSummaryById(1L)).thenReturn(Optional.of(summary));
+
+        service.subscribe(1L);
+        service.pushProgress();
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertEquals(1, emitter.events.size());
+        assertEquals(52, emitter.events.get(0).getEstimatedTotalRecords());
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void testPushProgress_SendsFinalEventAndCompletesWhenFileFails() throws IOException {
+        IngestionProgress progress = new IngestionProgress(1L, -1, 0, 0);
+        FileStorageSummary summary = summary("FAILED", 10, 1);
+        when(summary.getErrorMessage()).thenReturn("Skip limit exceeded");
+        when(ingestionProgressTracker.get(1L)).thenReturn(Optional.of(progress), Optional.empty());
+        when(fileStorageRepository.findSummaryById(1L)).thenReturn(Optional.of(summary));
+
+        service.subscribe(1L);
+        service.pushProgress();
+        // Plus aucun abonné : le flux n'est plus alimenté
+        service.pushProgress();
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertEquals(List.of("PROCESSING", "FAILED"), emitter.events.stream().map(IngestionProgressResponse::getStatus).toList());
+        assertEquals("Skip limit exceeded", emitter.events.get(1).getErrorMessage());
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void testPushProgress_RemovesDisconnectedEmitter() throws IOException {
+        IngestionProgress progress = new IngestionProgress(1L, -1, 0, 0);
+        when(ingestionProgressTracker.get(1L)).thenReturn(Optional.of(progress));
+
+        service.subscribe(1L);
+        service.subscribe(1L);
+        RecordingEmitter disconnected = emitters.get(0);
+        RecordingEmitter connected = emitters.get(1);
+        disconnected.disconnected = true;
+
+        service.pushProgress();
+        service.pushProgress();
+
+        assertEquals(2, disconnected.sendAttempts);
+        assertEquals(3, connected.events.size());
+    }
+
+    private static FileStorageSummary summary(String status, int processed, int failed) {
+        FileStorageSummary summary = mock(FileStorageSummary.class);
+        when(summary.getId()).thenReturn(1L);
+        when(summary.getStatus()).thenReturn(status);
+        when(summary.getProcessedRecords()).thenReturn(processed);
+        when(summary.getFailedRecords()).thenReturn(failed);
+        return summary;
+    }
+
+    /**
+     * Émetteur sans connexion HTTP : enregistre les événements envoyés, échoue une fois le client déconnecté
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<IngestionProgressResponse> events = new ArrayList<>();
+        private int sendAttempts;
+        private boolean disconnected;
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendAttempts++;
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(IngestionProgressResponse.class::isInstance)
+                    .map(IngestionProgressResponse.class::cast)
+                    .forEach(events::add);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
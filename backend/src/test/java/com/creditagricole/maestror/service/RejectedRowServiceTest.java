@@ -0,0 +1,106 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSourceFactory;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RejectedRowServiceTest {
+
+    @Mock
+    private FileStorageRepository fileStorageRepository;
+
+    @Mock
+    private RowSourceFactory rowSourceFactory;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RejectedRowService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RejectedRowService(fileStorageRepository, rowSourceFactory, jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void testWriteCsv_WritesSourceHeaderAndOneBasedRowNumbers() throws Exception {
+        FileStorage file = FileStorage.builder().id(3L).category("INCIDENT").build();
+        RowSource source = mock(RowSource.class);
+        when(source.nextRow()).thenReturn(new String[]{"code", "libellé, court"});
+        when(rowSourceFactory.open(file)).thenReturn(source);
+        rejectedRows(
+                // Ligne illisible : ni numéro ni valeurs
+                new Object[]{null, "Ligne illisible", null},
+                new Object[]{0L, "Date invalide: 31/02/2024", "INC1,31/02/2024"},
+                new Object[]{4L, "Montant \"abc\", non numérique", "INC2,\"a,\"\"b\"\"\""});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeCsv(file, out);
+
+        assertEquals("""
+                line,reason,code,"libellé, court"
+                ,Ligne illisible
+                1,Date invalide: 31/02/2024,INC1,31/02/2024
+                5,"Montant ""abc"", non numérique",INC2,"a,""b""\"
+                """, out.toString(StandardCharsets.UTF_8));
+        verify(source).close();
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testWriteCsv_TestFileHasNoSourceHeader() throws Exception {
+        FileStorage file = FileStorage.builder().id(3L).category("TEST").build();
+        rejectedRows(new Object[]{2L, "Ligne vide", ""});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeCsv(file, out);
+
+        assertEquals("line,reason\n3,Ligne vide,\n", out.toString(StandardCharsets.UTF_8));
+        verifyNoInteractions(rowSourceFactory);
+    }
+
+    /**
+     * Lignes renvoyées par le curseur : numéro (base 0), motif, valeurs CSV
+     */
+    private void rejectedRows(Object[]... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet resultSet(Object[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(row[0] != null ? (Long) row[0] : 0L);
+        when(rs.wasNull()).thenReturn(row[0] == null);
+        when(rs.getString(2)).thenReturn((String) row[1]);
+        when(rs.getString(3)).thenReturn((String) row[2]);
+        return rs;
+    }
+}
@@ -0,0 +1,138 @@
+package com.creditagricole.maestror.service;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.ingestion.progress.IngestionProgressTracker;
+import com.creditagricole.maestror.repository.FileStorageRepository;
+import com.creditagricole.maestror.storage.ContentStore;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkbookIngestionServiceTest {
+
+    @Mock
+    private FileStorageRepository fileStorageRepository;
+
+    @Mock
+    private FileProcessingService fileProcessingService;
+
+    @Mock
+    private ContentStore contentStore;
+
+    @Mock
+    private IngestionProgressTracker ingestionProgressTracker;
+
+    @TempDir
+    Path tempDir;
+
+    private WorkbookIngestionService service;
+    private final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        service = new WorkbookIngestionService(fileStorageRepository, fileProcessingService, contentStore,
+                ingestionProgressTracker, new SimpleAsyncTaskExecutor(), "REFERENTIAL:referentiel|referential,INCIDENT:incident,"
+                        + "CONTROL:controle|control,TEST:test");
+    }
+
+    @Test
+    void testCategoryOf_IgnoresCaseAndAccents() {
+        assertEquals("REFERENTIAL", service.categoryOf("RÉFÉRENTIEL Risques"));
+        assertEquals("CONTROL", service.categoryOf("contrôles 2024"));
+        assertNull(service.categoryOf("Notes"));
+    }
+
+    @Test
+    void testProcessWorkbook_LoadsReferentialSheetsFirst() throws Exception {
+        storeWorkbook();
+        doAnswer(invocation -> {
+            FileStorage sheet = invocation.getArgument(0);
+            processed.add(sheet.getCategory());
+            sheet.setStatus("COMPLETED");
+            sheet.setProcessedRecords(10);
+            sheet.setTotalRecords(10);
+            return null;
+        }).when(fileProcessingService).processFile(any(FileStorage.class));
+
+        FileStorage workbook = workbook();
+        service.processWorkbook(workbook);
+
+        assertEquals("COMPLETED", workbook.getStatus());
+        assertEquals(3, processed.size());
+        assertEquals("REFERENTIAL", processed.get(0));
+        assertTrue(processed.containsAll(List.of("INCIDENT", "CONTROL")));
+        assertEquals(30, workbook.getProcessedRecords());
+        // Avancement du classeur suivi sur ses trois feuilles pendant le traitement
+        verify(ingestionProgressTracker).startWorkbook(eq(workbook), argThat(sheets -> sheets.size() == 3));
+        verify(ingestionProgressTracker).finish(1L);
+    }
+
+    @Test
+    void testProcessWorkbook_FailedReferentialSkipsDependentSheets() throws Exception {
+        storeWorkbook();
+        doAnswer(invocation -> {
+            FileStorage sheet = invocation.getArgument(0);
+            processed.add(sheet.getCategory());
+            sheet.setStatus("FAILED");
+            return null;
+        }).when(fileProcessingService).processFile(any(FileStorage.class));
+
+        FileStorage workbook = workbook();
+        service.processWorkbook(workbook);
+
+        assertEquals(List.of("REFERENTIAL"), processed);
+        assertEquals("FAILED", workbook.getStatus());
+        assertTrue(workbook.getErrorMessage().contains("Incidents"));
+    }
+
+    private void storeWorkbook() throws Exception {
+        Path xlsx = tempDir.resolve("pack.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(xlsx)) {
+            for (String name : List.of("Incidents", "Notes", "Contrôles", "Référentiel risques")) {
+                workbook.createSheet(name).createRow(0).createCell(0).setCellValue("code");
+            }
+            workbook.write(out);
+        }
+        when(contentStore.localFile("ref")).thenReturn(xlsx);
+        AtomicLong ids = new AtomicLong(100);
+        when(fileStorageRepository.save(any(FileStorage.class))).thenAnswer(invocation -> {
+            FileStorage fileStorage = invocation.getArgument(0);
+            if (fileStorage.getId() == null) {
+                fileStorage.setId(ids.incrementAndGet());
+            }
+            return fileStorage;
+        });
+    }
+
+    private static FileStorage workbook() {
+        return FileStorage.builder()
+                .id(1L)
+                .fileName("pack.xlsx")
+                .fileType("EXCEL")
+                .category("WORKBOOK")
+                .contentRef("ref")
+                .contentHash("ref")
+                .fileSize(100L)
+                .uploadedBy("admin")
+                .loadMode("INSERT")
+                .build();
+    }
+}
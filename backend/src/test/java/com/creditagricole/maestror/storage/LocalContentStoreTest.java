@@ -0,0 +1,55 @@
+package com.creditagricole.maestror.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalContentStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testStore_ContentAddressedAndDeduplicated() throws Exception {
+        LocalContentStore store = new LocalContentStore(root.toString());
+        byte[] content = "code,label\nC1,Fraude\n".getBytes(StandardCharsets.UTF_8);
+
+        StoredContent first = store.store(new ByteArrayInputStream(content));
+        StoredContent second = store.store(new ByteArrayInputStream(content));
+
+        assertEquals(first.contentRef(), second.contentRef());
+        assertEquals(content.length, first.size());
+        Path file = store.localFile(first.contentRef());
+        assertEquals(root.resolve(first.contentRef().substring(0, 2)), file.getParent().getParent());
+        assertArrayEquals(content, Files.readAllBytes(file));
+        try (var tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    void testOpenRange_ReadsOnlyRequestedBytes() throws Exception {
+        LocalContentStore store = new LocalContentStore(root.toString());
+        StoredContent stored = store.store(new ByteArrayInputStream("header\nline1\nline2\n".getBytes(StandardCharsets.UTF_8)));
+
+        try (InputStream range = store.openRange(stored.contentRef(), 7, 6)) {
+            assertEquals("line1\n", new String(range.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testLocalFile_UnknownContent() throws Exception {
+        LocalContentStore store = new LocalContentStore(root.toString());
+
+        assertThrows(NoSuchFileException.class, () -> store.localFile("0".repeat(64)));
+        assertThrows(IllegalArgumentException.class, () -> store.localFile("../../etc/passwd"));
+    }
+}
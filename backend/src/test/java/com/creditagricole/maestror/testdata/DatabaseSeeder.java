@@ -0,0 +1,117 @@
+package com.creditagricole.maestror.testdata;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Alimentation directe d'une base PostgreSQL par COPY FROM STDIN avec les lignes du {@link DatasetGenerator} :
+ * référentiel, puis incidents et contrôles rattachés à leur risque (risk_referential_id).
+ * Les codes générés étant fixes pour une graine donnée, la base cible ne doit pas déjà les contenir.
+ */
+public class DatabaseSeeder {
+
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    private final DatasetGenerator generator;
+    private final Connection connection;
+
+    public DatabaseSeeder(DatasetGenerator generator, Connection connection) {
+        this.generator = generator;
+        this.connection = connection;
+    }
+
+    public record SeedResult(long referentials, long incidents, long controls) {
+    }
+
+    public SeedResult seed(long incidents, long controls) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            String now = LocalDateTime.now().toString();
+            long referentials = copy("COPY operational_risk_referential (risk_code, risk_name, risk_description, "
+                    + "risk_category, risk_type, business_line, impact_level, probability_level, active, created_at, "
+                    + "updated_at) FROM STDIN (FORMAT csv)", DatasetGenerator.Kind.REFERENTIAL, generator.getRiskCount(),
+                    null, "true", now, now);
+            long[] riskIds = riskIds();
+            long incidentCount = copy("COPY incident (incident_code, incident_title, incident_description, incident_date, "
+                    + "severity, status, entity_code, business_unit, financial_impact, currency, detected_by, "
+                    + "risk_referential_id, created_at, updated_at) FROM STDIN (FORMAT csv)",
+                    DatasetGenerator.Kind.INCIDENT, incidents, riskIds, now, now);
+            long controlCount = copy("COPY control (control_code, control_name, control_description, control_type, "
+                    + "frequency, entity_code, responsible_person, status, effectiveness, risk_referential_id, created_at, "
+                    + "updated_at) FROM STDIN (FORMAT csv)", DatasetGenerator.Kind.CONTROL, controls, riskIds, now, now);
+            connection.commit();
+            return new SeedResult(referentials, incidentCount, controlCount);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Identifiants des risques générés, indexés par leur rang dans le référentiel
+     */
+    private long[] riskIds() throws SQLException {
+        long[] ids = new long[generator.getRiskCount()];
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, risk_code FROM operational_risk_referential "
+                     + "WHERE risk_code LIKE 'RISK-%'")) {
+            while (rs.next()) {
+                int index = Integer.parseInt(rs.getString(2).substring("RISK-".length())) - 1;
+                if (index >= 0 && index < ids.length) {
+                    ids[index] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @param riskIds identifiants de rattachement, à la place de la colonne riskCode du fichier ; null si aucun
+     * @param extra   valeurs constantes ajoutées en fin de ligne
+     */
+    private long copy(String sql, DatasetGenerator.Kind kind, long rows, long[] riskIds, String... extra)
+            throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder buffer = new StringBuilder(FLUSH_SIZE * 2);
+            for (long i = 0; i < rows; i++) {
+                String[] row = generator.row(kind, i);
+                for (int c = 0; c < (riskIds != null ? row.length - 1 : row.length); c++) {
+                    appendCsv(buffer, row[c]).append(',');
+                }
+                if (riskIds != null) {
+                    buffer.append(riskIds[generator.riskIndex(kind, i)]).append(',');
+                }
+                for (int e = 0; e < extra.length; e++) {
+                    buffer.append(extra[e]).append(e + 1 < extra.length ? ',' : '\n');
+                }
+                if (buffer.length() >= FLUSH_SIZE) {
+                    write(copyIn, buffer);
+                }
+            }
+            write(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static StringBuilder appendCsv(StringBuilder buffer, String value) {
+        return buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,278 @@
+package com.creditagricole.maestror.testdata;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur reproductible de jeux de données de risque opérationnel (référentiel, incidents, contrôles),
+ * aux formats CSV / XLSX attendus par l'upload, pour les tests de charge et les benchmarks.
+ * <p>
+ * Chaque ligne est tirée d'un générateur initialisé par (graine, type, numéro de ligne) : une même graine
+ * produit les mêmes lignes quel que soit le format ou l'ordre de génération. Distributions :
+ * <ul>
+ *     <li>codes entité selon une loi de Zipf (quelques entités concentrent la majorité des incidents) ;</li>
+ *     <li>gravité LOW 45 % / MEDIUM 35 % / HIGH 15 % / CRITICAL 5 % ;</li>
+ *     <li>impact financier log-normal (médiane 5 000 EUR), nul pour 20 % des incidents ;</li>
+ *     <li>dates uniformes sur la période, les incidents anciens étant plus souvent clos ;</li>
+ *     <li>incidents et contrôles rattachés (colonne riskCode) surtout aux premiers risques du référentiel.</li>
+ * </ul>
+ */
+public class DatasetGenerator {
+
+    public enum Kind {
+        REFERENTIAL(new String[]{"riskCode", "riskName", "riskDescription", "riskCategory", "riskType", "businessLine",
+                "impactLevel", "probabilityLevel"}),
+        INCIDENT(new String[]{"incidentCode", "incidentTitle", "incidentDescription", "incidentDate", "severity",
+                "status", "entityCode", "businessUnit", "financialImpact", "currency", "detectedBy", "riskCode"}),
+        CONTROL(new String[]{"controlCode", "controlName", "controlDescription", "controlType", "frequency",
+                "entityCode", "responsiblePerson", "status", "effectiveness", "riskCode"});
+
+        private final String[] header;
+
+        Kind(String[] header) {
+            this.header = header;
+        }
+
+        public String[] header() {
+            return header.clone();
+        }
+    }
+
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+    private static final double[] SEVERITY_CDF = {0.45, 0.80, 0.95, 1.0};
+    private static final String[] LEVELS = {"LOW", "MEDIUM", "HIGH"};
+    private static final String[] RISK_CATEGORIES = {"FRAUD", "TECHNOLOGY", "EXECUTION", "COMPLIANCE", "HUMAN_RESOURCES",
+            "PHYSICAL_ASSETS"};
+    private static final String[] RISK_TYPES = {"INTERNAL", "EXTERNAL", "SYSTEM", "HUMAN", "REGULATORY"};
+    private static final String[] BUSINESS_LINES = {"Retail Banking", "Corporate Banking", "Asset Management", "IT",
+            "Operations", "Compliance", "Security"};
+    private static final String[] CONTROL_TYPES = {"PREVENTIVE", "DETECTIVE", "CORRECTIVE"};
+    private static final String[] FREQUENCIES = {"DAILY", "WEEKLY", "MONTHLY", "QUARTERLY", "YEARLY"};
+    private static final String[] EFFECTIVENESS = {"EFFECTIVE", "PARTIALLY_EFFECTIVE", "INEFFECTIVE"};
+    private static final String[] DETECTED_BY = {"Security Team", "IT Monitoring", "Customer Service", "Audit",
+            "Internal Control", "Compliance"};
+    private static final double MEDIAN_IMPACT = 5000;
+    private static final double IMPACT_SIGMA = 1.5;
+    private static final double ZERO_IMPACT_SHARE = 0.2;
+    private static final int MAX_XLSX_ROWS = 1_048_576;
+
+    private final long seed;
+    private final int riskCount;
+    private final LocalDate startDate;
+    private final long periodDays;
+    private final double[] entityCdf;
+
+    /**
+     * @param riskCount nombre de risques du référentiel, auxquels incidents et contrôles sont rattachés
+     */
+    public DatasetGenerator(long seed, int entityCount, int riskCount, LocalDate startDate, LocalDate endDate) {
+        if (entityCount <= 0 || riskCount <= 0 || !endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("Invalid dataset settings: entities=" + entityCount + ", risks=" + riskCount
+                    + ", period=" + startDate + ".." + endDate);
+        }
+        this.seed = seed;
+        this.riskCount = riskCount;
+        this.startDate = startDate;
+        this.periodDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        this.entityCdf = zipfCdf(entityCount, 1.1);
+    }
+
+    public static DatasetGenerator withDefaults(long seed) {
+        return new DatasetGenerator(seed, 50, 500, LocalDate.of(2020, 1, 1), LocalDate.of(2024, 12, 31));
+    }
+
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= total;
+        }
+        return cdf;
+    }
+
+    private SplittableRandom random(Kind kind, long index) {
+        return new SplittableRandom(seed * 1_000_003L + kind.ordinal() * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private static int pick(double[] cdf, double value) {
+        int index = Arrays.binarySearch(cdf, value);
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    private static String any(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public static String riskCode(long index) {
+        return String.format("RISK-%06d", index + 1);
+    }
+
+    public String entityCode(SplittableRandom random) {
+        return "ENTITY" + (pick(entityCdf, random.nextDouble()) + 1);
+    }
+
+    /**
+     * Risque de rattachement d'un incident ou d'un contrôle (index dans le référentiel), lui aussi concentré
+     */
+    public int riskIndex(Kind kind, long index) {
+        SplittableRandom random = random(kind, index).split();
+        return (int) Math.min(riskCount - 1, Math.floor(riskCount * Math.pow(random.nextDouble(), 2)));
+    }
+
+    public String[] row(Kind kind, long index) {
+        return switch (kind) {
+            case REFERENTIAL -> referentialRow(index);
+            case INCIDENT -> incidentRow(index);
+            case CONTROL -> controlRow(index);
+        };
+    }
+
+    public String[] referentialRow(long index) {
+        SplittableRandom random = random(Kind.REFERENTIAL, index);
+        String category = any(RISK_CATEGORIES, random);
+        return new String[]{
+                riskCode(index),
+                "Risque " + category.toLowerCase() + " " + (index + 1),
+                "Risque de " + category.toLowerCase() + " identifié sur le périmètre " + any(BUSINESS_LINES, random),
+                category,
+                any(RISK_TYPES, random),
+                any(BUSINESS_LINES, random),
+                any(LEVELS, random),
+                any(LEVELS, random)
+        };
+    }
+
+    public String[] incidentRow(long index) {
+        SplittableRandom random = random(Kind.INCIDENT, index);
+        long day = random.nextLong(periodDays);
+        LocalDate date = startDate.plusDays(day);
+        // Plus un incident est ancien, plus il a de chances d'être clos
+        double age = 1 - (double) day / periodDays;
+        String status = random.nextDouble() < 0.2 + 0.75 * age ? "CLOSED"
+                : random.nextBoolean() ? "IN_PROGRESS" : "OPEN";
+        return new String[]{
+                String.format("INC-%d-%08d", date.getYear(), index + 1),
+                "Incident " + (index + 1),
+                "Description de l'incident " + (index + 1) + ", détecté sur le processus " + any(BUSINESS_LINES, random),
+                date.toString(),
+                SEVERITIES[pick(SEVERITY_CDF, random.nextDouble())],
+                status,
+                entityCode(random),
+                any(BUSINESS_LINES, random),
+                financialImpact(random).toPlainString(),
+                "EUR",
+                any(DETECTED_BY, random),
+                riskCode(riskIndex(Kind.INCIDENT, index))
+        };
+    }
+
+    public String[] controlRow(long index) {
+        SplittableRandom random = random(Kind.CONTROL, index);
+        double effectiveness = random.nextDouble();
+        return new String[]{
+                String.format("CTRL-%07d", index + 1),
+                "Contrôle " + (index + 1),
+                "Contrôle " + any(CONTROL_TYPES, random).toLowerCase() + " du périmètre " + any(BUSINESS_LINES, random),
+                any(CONTROL_TYPES, random),
+                any(FREQUENCIES, random),
+                entityCode(random),
+                "Responsable " + random.nextInt(200),
+                random.nextDouble() < 0.9 ? "ACTIVE" : "INACTIVE",
+                EFFECTIVENESS[effectiveness < 0.7 ? 0 : effectiveness < 0.92 ? 1 : 2],
+                riskCode(riskIndex(Kind.CONTROL, index))
+        };
+    }
+
+    private static BigDecimal financialImpact(SplittableRandom random) {
+        if (random.nextDouble() < ZERO_IMPACT_SHARE) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        double impact = Math.exp(Math.log(MEDIAN_IMPACT) + IMPACT_SIGMA * gaussian(random));
+        return BigDecimal.valueOf(impact).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Tirage normal centré réduit (Box-Muller), SplittableRandom n'en fournissant pas
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    public Path writeCsv(Kind kind, long rows, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeCsvLine(out, kind.header);
+            for (long i = 0; i < rows; i++) {
+                writeCsvLine(out, row(kind, i));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Classeur d'une feuille écrit en flux (SXSSF) : seules les dernières lignes sont gardées en mémoire
+     */
+    public Path writeXlsx(Kind kind, long rows, Path file) throws IOException {
+        if (rows >= MAX_XLSX_ROWS) {
+            throw new IllegalArgumentException("An XLSX sheet holds at most " + (MAX_XLSX_ROWS - 1) + " data rows");
+        }
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet(kind.name());
+            writeXlsxRow(sheet.createRow(0), kind.header);
+            for (long i = 0; i < rows; i++) {
+                writeXlsxRow(sheet.createRow((int) i + 1), row(kind, i));
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return file;
+    }
+
+    private static void writeCsvLine(Writer out, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String value = values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeXlsxRow(Row row, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
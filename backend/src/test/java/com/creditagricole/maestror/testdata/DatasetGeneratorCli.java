@@ -0,0 +1,75 @@
+package com.creditagricole.maestror.testdata;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Génération en ligne de commande d'un jeu de données de test (voir {@link DatasetGenerator}) :
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.creditagricole.maestror.testdata.DatasetGeneratorCli \
+ *     -Dexec.args="--out=target/dataset --format=csv --incidents=1000000 --controls=100000"
+ * </pre>
+ * Options : --seed (42), --entities (50), --risks (500), --incidents (10000), --controls (1000),
+ * --from / --to (2020-01-01 / 2024-12-31), --format csv|xlsx|both (csv), --out (target/dataset).
+ * Avec --db-url (et --db-user, --db-password), les lignes sont chargées directement en base par COPY
+ * au lieu d'être écrites dans des fichiers.
+ */
+public final class DatasetGeneratorCli {
+
+    private DatasetGeneratorCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("entities", "50")),
+                Integer.parseInt(options.getOrDefault("risks", "500")),
+                LocalDate.parse(options.getOrDefault("from", "2020-01-01")),
+                LocalDate.parse(options.getOrDefault("to", "2024-12-31")));
+        long incidents = Long.parseLong(options.getOrDefault("incidents", "10000"));
+        long controls = Long.parseLong(options.getOrDefault("controls", "1000"));
+
+        if (options.containsKey("db-url")) {
+            try (Connection connection = DriverManager.getConnection(options.get("db-url"),
+                    options.getOrDefault("db-user", "maestror_user"),
+                    options.getOrDefault("db-password", "maestror_password"))) {
+                DatabaseSeeder.SeedResult result = new DatabaseSeeder(generator, connection).seed(incidents, controls);
+                System.out.printf("Seeded %d risks, %d incidents, %d controls%n",
+                        result.referentials(), result.incidents(), result.controls());
+            }
+            return;
+        }
+
+        Path out = Files.createDirectories(Path.of(options.getOrDefault("out", "target/dataset")));
+        String format = options.getOrDefault("format", "csv");
+        long[] rows = {generator.getRiskCount(), incidents, controls};
+        for (DatasetGenerator.Kind kind : DatasetGenerator.Kind.values()) {
+            String name = kind.name().toLowerCase();
+            if (!"xlsx".equals(format)) {
+                System.out.println("Written " + generator.writeCsv(kind, rows[kind.ordinal()], out.resolve(name + ".csv")));
+            }
+            if (!"csv".equals(format)) {
+                System.out.println("Written " + generator.writeXlsx(kind, rows[kind.ordinal()], out.resolve(name + ".xlsx")));
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value, got: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,86 @@
+package com.creditagricole.maestror.testdata;
+
+import com.creditagricole.maestror.entity.FileStorage;
+import com.creditagricole.maestror.entity.Incident;
+import com.creditagricole.maestror.ingestion.batch.FileRowMappers;
+import com.creditagricole.maestror.ingestion.reader.CsvRowSource;
+import com.creditagricole.maestror.ingestion.reader.RowSource;
+import com.creditagricole.maestror.ingestion.reader.XlsxStreamingReader;
+import com.creditagricole.maestror.ingestion.referential.RiskCodeIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DatasetGenerator generator = DatasetGenerator.withDefaults(42);
+
+    @Test
+    void testRows_ReproducibleForSameSeed() {
+        DatasetGenerator same = DatasetGenerator.withDefaults(42);
+        DatasetGenerator other = DatasetGenerator.withDefaults(7);
+
+        assertArrayEquals(generator.incidentRow(123), same.incidentRow(123));
+        assertArrayEquals(generator.controlRow(5), same.controlRow(5));
+        assertFalse(java.util.Arrays.equals(generator.incidentRow(123), other.incidentRow(123)));
+    }
+
+    @Test
+    void testIncidents_RealisticDistributions() {
+        FileStorage fileStorage = FileStorage.builder().id(1L).build();
+        Map<String, Long> riskIds = new HashMap<>();
+        for (int i = 0; i < generator.getRiskCount(); i++) {
+            riskIds.put(DatasetGenerator.riskCode(i), i + 1L);
+        }
+        RiskCodeIndex riskCodes = new RiskCodeIndex(riskIds);
+        Map<String, Integer> severities = new HashMap<>();
+        Map<String, Integer> entities = new HashMap<>();
+        int zeroImpacts = 0;
+        int rows = 20_000;
+        for (int i = 0; i < rows; i++) {
+            Incident incident = FileRowMappers.buildIncidentFromRow(generator.incidentRow(i), fileStorage, riskCodes);
+            severities.merge(incident.getSeverity(), 1, Integer::sum);
+            entities.merge(incident.getEntityCode(), 1, Integer::sum);
+            if (incident.getFinancialImpact().signum() == 0) {
+                zeroImpacts++;
+            }
+            assertTrue(incident.getFinancialImpact().compareTo(BigDecimal.ZERO) >= 0);
+            assertEquals(generator.riskIndex(DatasetGenerator.Kind.INCIDENT, i) + 1L, incident.getRiskReferential().getId());
+        }
+
+        assertEquals(0.45, severities.get("LOW") / (double) rows, 0.02);
+        assertEquals(0.05, severities.get("CRITICAL") / (double) rows, 0.01);
+        assertEquals(0.2, zeroImpacts / (double) rows, 0.02);
+        // Loi de Zipf : la première entité pèse bien plus que la dixième
+        assertTrue(entities.get("ENTITY1") > 5 * entities.get("ENTITY10"));
+    }
+
+    @Test
+    void testWriteCsvAndXlsx_ReadableByIngestionReaders() throws Exception {
+        Path csv = generator.writeCsv(DatasetGenerator.Kind.INCIDENT, 100, tempDir.resolve("incidents.csv"));
+        Path xlsx = generator.writeXlsx(DatasetGenerator.Kind.CONTROL, 50, tempDir.resolve("controls.xlsx"));
+
+        try (RowSource source = new CsvRowSource(Files.newInputStream(csv))) {
+            assertArrayEquals(DatasetGenerator.Kind.INCIDENT.header(), source.nextRow());
+            assertArrayEquals(generator.incidentRow(0), source.nextRow());
+            while (source.nextRow() != null) {
+                // lecture complète
+            }
+            assertEquals(100, source.getRowNumber());
+        }
+        try (RowSource source = XlsxStreamingReader.open(xlsx)) {
+            assertArrayEquals(DatasetGenerator.Kind.CONTROL.header(), source.nextRow());
+            assertArrayEquals(generator.controlRow(0), source.nextRow());
+        }
+    }
+}
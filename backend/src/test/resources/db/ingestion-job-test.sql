@@ -0,0 +1,25 @@
+-- Tables alimentées par les jobs d'ingestion, pour les tests sur base H2 (mode PostgreSQL)
+-- incident_code n'est pas unique : une ligne chargée deux fois après une reprise resterait visible
+
+CREATE TABLE incident (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    incident_code VARCHAR(255) NOT NULL,
+    incident_title VARCHAR(255) NOT NULL,
+    incident_description VARCHAR(2000),
+    incident_date DATE NOT NULL,
+    severity VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    entity_code VARCHAR(255),
+    business_unit VARCHAR(255),
+    financial_impact NUMERIC(15, 2),
+    currency VARCHAR(255),
+    detected_by VARCHAR(255),
+    risk_referential_id BIGINT,
+    file_storage_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
+
+-- Panne simulée pendant le chargement (voir FileIngestionJobTest.FailingInsertTrigger)
+CREATE TRIGGER incident_failure BEFORE INSERT ON incident FOR EACH ROW
+    CALL 'com.creditagricole.maestror.ingestion.batch.FileIngestionJobTest$FailingInsertTrigger';